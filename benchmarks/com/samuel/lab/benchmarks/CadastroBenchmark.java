@@ -0,0 +1,91 @@
+package com.samuel.lab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samuel.lab.model.Facade;
+
+/**
+ * Benchmarks do cadastro de apostas simples e asseguradas em um sistema já
+ * carregado. O sistema é recriado a cada iteração, para que as apostas
+ * cadastradas durante a medição não se acumulem entre as iterações
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CadastroBenchmark {
+
+	/**
+	 * Quantidade de cenários cadastrados
+	 */
+	@Param({ "10", "1000", "100000", "1000000" })
+	public int cenarios;
+
+	/**
+	 * Quantidade de apostas cadastradas em cada cenário antes da medição
+	 */
+	@Param({ "1", "100", "10000", "1000000" })
+	public int apostasPorCenario;
+
+	/**
+	 * Sistema utilizado na medição
+	 */
+	private Facade facade;
+
+	/**
+	 * Carrega o sistema antes de cada iteração
+	 */
+	@Setup(Level.Iteration)
+	public void carrega() {
+		this.facade = Carga.criar(this.cenarios, this.apostasPorCenario, false);
+	}
+
+	/**
+	 * Mede o cadastro de uma aposta simples
+	 */
+	@Benchmark
+	public void cadastrarAposta(Cursor cursor) {
+		int cenario = cursor.proximo(this.cenarios);
+		this.facade.cadastrarAposta(cenario, Carga.apostador(cenario), 100 + cenario % 1000,
+				Carga.previsao(cenario));
+	}
+
+	/**
+	 * Mede o cadastro de uma aposta assegurada por valor
+	 */
+	@Benchmark
+	public int cadastrarApostaSeguraValor(Cursor cursor) {
+		int cenario = cursor.proximo(this.cenarios);
+		return this.facade.cadastrarApostaSeguraValor(cenario, Carga.apostador(cenario), 100 + cenario % 1000,
+				Carga.previsao(cenario), 50, 10);
+	}
+
+	/**
+	 * Mede o cadastro de uma aposta assegurada por taxa
+	 */
+	@Benchmark
+	public int cadastrarApostaSeguraTaxa(Cursor cursor) {
+		int cenario = cursor.proximo(this.cenarios);
+		return this.facade.cadastrarApostaSeguraTaxa(cenario, Carga.apostador(cenario), 100 + cenario % 1000,
+				Carga.previsao(cenario), 0.25, 10);
+	}
+
+}
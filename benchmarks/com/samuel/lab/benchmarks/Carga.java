@@ -0,0 +1,113 @@
+package com.samuel.lab.benchmarks;
+
+import com.samuel.lab.model.Facade;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.LoteFechamentos;
+
+/**
+ * Classe responsável por montar o estado inicial utilizado pelos benchmarks. Os
+ * cenários são cadastrados um a um, como faria um cliente, e as apostas são
+ * cadastradas em lote, para que a preparação de escalas grandes não domine o
+ * tempo da execução
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public final class Carga {
+
+	/**
+	 * Quantidade máxima de apostas de uma combinação de parâmetros. Pode ser
+	 * alterada pela propriedade de sistema "benchmarks.limiteApostas"
+	 */
+	public static final long LIMITE_APOSTAS = Long.getLong("benchmarks.limiteApostas", 20_000_000L);
+
+	/**
+	 * Quantidade de apostadores distintos utilizados na carga
+	 */
+	private static final int APOSTADORES = 1000;
+
+	/**
+	 * Nomes dos apostadores utilizados na carga
+	 */
+	private static final String[] NOMES = new String[APOSTADORES];
+
+	static {
+		for (int i = 0; i < APOSTADORES; i++) {
+			NOMES[i] = "Apostador " + i;
+		}
+	}
+
+	private Carga() {
+	}
+
+	/**
+	 * Método responsável por recuperar o nome de um apostador da carga
+	 *
+	 * @param indice
+	 *            : Índice qualquer, não negativo
+	 * @return o nome do apostador
+	 */
+	public static String apostador(int indice) {
+		return NOMES[indice % APOSTADORES];
+	}
+
+	/**
+	 * Método responsável por recuperar a previsão de uma aposta da carga. Dois
+	 * terços das apostas preveem que o cenário vai acontecer
+	 *
+	 * @param indice
+	 *            : Índice qualquer, não negativo
+	 * @return a previsão da aposta
+	 */
+	public static String previsao(int indice) {
+		return indice % 3 == 0 ? "N VAI ACONTECER" : "VAI ACONTECER";
+	}
+
+	/**
+	 * Método responsável por criar um sistema com os cenários e apostas pedidos
+	 *
+	 * @param cenarios
+	 *            : Quantidade de cenários
+	 * @param apostasPorCenario
+	 *            : Quantidade de apostas de cada cenário
+	 * @param encerrar
+	 *            : Indica se os cenários devem ser fechados ao final da carga
+	 * @return o sistema carregado
+	 */
+	public static Facade criar(int cenarios, int apostasPorCenario, boolean encerrar) {
+		if ((long) cenarios * apostasPorCenario > LIMITE_APOSTAS)
+			throw new IllegalStateException(String.format(
+					"Combinacao de %d cenarios com %d apostas excede o limite de %d apostas", cenarios,
+					apostasPorCenario, LIMITE_APOSTAS));
+		Facade facade = new Facade();
+		facade.inicializa(100000, 0.01);
+		for (int c = 0; c < cenarios; c++) {
+			if (c % 10 == 0)
+				facade.cadastrarCenario("Cenario " + c, 1000 + c);
+			else
+				facade.cadastrarCenario("Cenario " + c);
+		}
+		for (int id = 1; id <= cenarios; id++) {
+			LoteApostas lote = new LoteApostas(apostasPorCenario);
+			for (int i = 0; i < apostasPorCenario; i++) {
+				int valor = 100 + (i * 31 + id) % 10000;
+				if (i % 20 == 1)
+					lote.adicionarSeguroValor(apostador(i + id), valor, previsao(i), valor / 2, 10);
+				else if (i % 20 == 2)
+					lote.adicionarSeguroTaxa(apostador(i + id), valor, previsao(i), 0.25, 10);
+				else
+					lote.adicionar(apostador(i + id), valor, previsao(i));
+			}
+			facade.cadastrarApostas(id, lote);
+		}
+		if (encerrar) {
+			LoteFechamentos lote = new LoteFechamentos(cenarios);
+			for (int id = 1; id <= cenarios; id++) {
+				lote.adicionar(id, id % 2 == 0);
+			}
+			facade.fecharApostas(lote);
+		}
+		return facade;
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.samuel.lab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samuel.lab.model.Facade;
+
+/**
+ * Benchmarks das consultas de totais do sistema e dos cenários. Todos os
+ * cenários são fechados na carga, para que o caixa e o rateio possam ser
+ * consultados
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultaBenchmark {
+
+	/**
+	 * Quantidade de cenários cadastrados
+	 */
+	@Param({ "10", "1000", "100000", "1000000" })
+	public int cenarios;
+
+	/**
+	 * Quantidade de apostas de cada cenário
+	 */
+	@Param({ "1", "100", "10000", "1000000" })
+	public int apostasPorCenario;
+
+	/**
+	 * Sistema utilizado na medição
+	 */
+	private Facade facade;
+
+	/**
+	 * Carrega o sistema uma única vez, já que as consultas não o alteram
+	 */
+	@Setup(Level.Trial)
+	public void carrega() {
+		this.facade = Carga.criar(this.cenarios, this.apostasPorCenario, true);
+	}
+
+	/**
+	 * Mede a consulta do valor total das apostas de um cenário
+	 */
+	@Benchmark
+	public long valorTotalDeApostas(Cursor cursor) {
+		return this.facade.valorTotalDeApostasLong(cursor.proximo(this.cenarios));
+	}
+
+	/**
+	 * Mede a consulta do caixa de um cenário
+	 */
+	@Benchmark
+	public long getCaixaCenario(Cursor cursor) {
+		return this.facade.getCaixaCenarioLong(cursor.proximo(this.cenarios));
+	}
+
+	/**
+	 * Mede a consulta do rateio de um cenário
+	 */
+	@Benchmark
+	public long getTotalRateioCenario(Cursor cursor) {
+		return this.facade.getTotalRateioCenarioLong(cursor.proximo(this.cenarios));
+	}
+
+	/**
+	 * Mede a consulta do caixa do sistema
+	 */
+	@Benchmark
+	public long getCaixa() {
+		return this.facade.getCaixaLong();
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.samuel.lab.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Estado de cada thread dos benchmarks, que percorre os cenários em sequência
+ * para que as operações não fiquem restritas a um único cenário
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+@State(Scope.Thread)
+public class Cursor {
+
+	/**
+	 * Posição atual do cursor
+	 */
+	private int posicao;
+
+	/**
+	 * Método responsável por avançar o cursor
+	 *
+	 * @param cenarios
+	 *            : Quantidade de cenários cadastrados
+	 * @return o id do próximo cenário, entre 1 e a quantidade de cenários
+	 */
+	public int proximo(int cenarios) {
+		this.posicao = this.posicao % cenarios + 1;
+		return this.posicao;
+	}
+
+}
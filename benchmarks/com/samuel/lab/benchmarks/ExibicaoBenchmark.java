@@ -0,0 +1,91 @@
+package com.samuel.lab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samuel.lab.model.Facade;
+
+/**
+ * Benchmarks da exibição dos cenários e das apostas, com a listagem ordenada
+ * medida em cada uma das ordens aceitas pelo sistema
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExibicaoBenchmark {
+
+	/**
+	 * Quantidade de cenários cadastrados
+	 */
+	@Param({ "10", "1000", "100000", "1000000" })
+	public int cenarios;
+
+	/**
+	 * Quantidade de apostas de cada cenário
+	 */
+	@Param({ "1", "100", "10000", "1000000" })
+	public int apostasPorCenario;
+
+	/**
+	 * Ordem utilizada na exibição dos cenários ordenados
+	 */
+	@Param({ "cadastro", "nome", "apostas" })
+	public String ordem;
+
+	/**
+	 * Sistema utilizado na medição
+	 */
+	private Facade facade;
+
+	/**
+	 * Carrega o sistema uma única vez e aplica a ordem da medição
+	 */
+	@Setup(Level.Trial)
+	public void carrega() {
+		this.facade = Carga.criar(this.cenarios, this.apostasPorCenario, false);
+		this.facade.alterarOrdem(this.ordem);
+	}
+
+	/**
+	 * Mede a listagem de todos os cenários
+	 */
+	@Benchmark
+	public String exibirCenarios() {
+		return this.facade.exibirCenarios();
+	}
+
+	/**
+	 * Mede a listagem das apostas de um cenário
+	 */
+	@Benchmark
+	public String exibeApostas(Cursor cursor) {
+		return this.facade.exibeApostas(cursor.proximo(this.cenarios));
+	}
+
+	/**
+	 * Mede a consulta de um cenário pela sua posição na ordem atual
+	 */
+	@Benchmark
+	public String exibirCenarioOrdenado(Cursor cursor) {
+		return this.facade.exibirCenarioOrdenado(cursor.proximo(this.cenarios));
+	}
+
+}
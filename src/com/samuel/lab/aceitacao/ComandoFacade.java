@@ -0,0 +1,225 @@
+package com.samuel.lab.aceitacao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.samuel.lab.model.Facade;
+
+/**
+ * Vínculo entre um comando dos scripts de aceitação e um método público da
+ * Facade. Os vínculos são criados uma única vez, na carga da classe, para todos
+ * os métodos cujos parâmetros podem ser lidos do texto de um script. Um comando
+ * é identificado pelo nome e pela quantidade de argumentos, como no EasyAccept.
+ *
+ * Cada vínculo guarda um MethodHandle já adaptado para receber a Facade e um
+ * vetor de argumentos e devolver Object, de forma que a invocação não passa por
+ * reflexão nem por conversões de tipo a cada chamada.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+final class ComandoFacade {
+
+	/**
+	 * Vínculos de todos os comandos, na ordem de seus índices
+	 */
+	private static final List<ComandoFacade> COMANDOS;
+
+	/**
+	 * Vínculos indexados por nome e quantidade de argumentos
+	 */
+	private static final Map<String, ComandoFacade> ASSINATURAS = new HashMap<>();
+
+	/**
+	 * Assinaturas que correspondem a mais de um método
+	 */
+	private static final Set<String> AMBIGUAS = new HashSet<>();
+
+	static {
+		Method[] metodos = Facade.class.getMethods();
+		Arrays.sort(metodos, Comparator.comparing(Method::getName).thenComparingInt(Method::getParameterCount)
+				.thenComparing(Method::toGenericString));
+		List<ComandoFacade> comandos = new ArrayList<>();
+		for (Method metodo : metodos) {
+			if (Modifier.isStatic(metodo.getModifiers()) || metodo.getDeclaringClass() == Object.class
+					|| !suportado(metodo.getParameterTypes()))
+				continue;
+			String assinatura = assinatura(metodo.getName(), metodo.getParameterCount());
+			if (ASSINATURAS.containsKey(assinatura)) {
+				AMBIGUAS.add(assinatura);
+				continue;
+			}
+			ComandoFacade comando = new ComandoFacade(metodo, comandos.size());
+			comandos.add(comando);
+			ASSINATURAS.put(assinatura, comando);
+		}
+		COMANDOS = Collections.unmodifiableList(comandos);
+	}
+
+	/**
+	 * Nome do comando
+	 */
+	private final String nome;
+
+	/**
+	 * Índice do comando, usado nos totais de tempo
+	 */
+	private final int indice;
+
+	/**
+	 * Tipos dos parâmetros do método
+	 */
+	private final Class<?>[] parametros;
+
+	/**
+	 * Método adaptado para a forma (Object, Object[])Object
+	 */
+	private final MethodHandle metodo;
+
+	/**
+	 * Cria o vínculo de um método
+	 */
+	private ComandoFacade(Method metodo, int indice) {
+		this.nome = metodo.getName();
+		this.indice = indice;
+		this.parametros = metodo.getParameterTypes();
+		try {
+			MethodHandle handle = MethodHandles.publicLookup().unreflect(metodo);
+			this.metodo = handle.asType(handle.type().generic()).asSpreader(Object[].class, this.parametros.length);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Método responsável por buscar o vínculo de um comando
+	 * @param nome : nome do comando
+	 * @param aridade : quantidade de argumentos
+	 * @return o vínculo, ou null caso nenhum método corresponda ao comando
+	 * @throws IllegalArgumentException
+	 *             caso mais de um método corresponda ao comando
+	 */
+	static ComandoFacade buscar(String nome, int aridade) {
+		String assinatura = assinatura(nome, aridade);
+		if (AMBIGUAS.contains(assinatura))
+			throw new IllegalArgumentException("Comando ambiguo: " + assinatura);
+		return ASSINATURAS.get(assinatura);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de comandos vinculados
+	 * @return a quantidade de comandos
+	 */
+	static int getQuantidade() {
+		return COMANDOS.size();
+	}
+
+	/**
+	 * Método responsável por recuperar um comando pelo índice
+	 * @param indice : índice do comando
+	 * @return o comando
+	 */
+	static ComandoFacade getComando(int indice) {
+		return COMANDOS.get(indice);
+	}
+
+	/**
+	 * Método responsável por converter o texto de um argumento para o tipo do
+	 * parâmetro
+	 * @param parametro : posição do parâmetro
+	 * @param texto : texto do argumento
+	 * @return o argumento convertido
+	 * @throws NumberFormatException
+	 *             caso o texto não seja um número válido para o parâmetro
+	 */
+	Object converter(int parametro, String texto) {
+		Class<?> tipo = this.parametros[parametro];
+		if (tipo == String.class)
+			return texto;
+		if (tipo == int.class || tipo == Integer.class)
+			return Integer.valueOf(texto.trim());
+		if (tipo == long.class || tipo == Long.class)
+			return Long.valueOf(texto.trim());
+		if (tipo == double.class || tipo == Double.class)
+			return Double.valueOf(texto.trim());
+		return Boolean.valueOf(texto.trim());
+	}
+
+	/**
+	 * Método responsável por invocar o método vinculado
+	 * @param facade : Facade onde o método será invocado
+	 * @param argumentos : argumentos já convertidos
+	 * @return o retorno do método, ou null caso ele não tenha retorno
+	 * @throws Throwable
+	 *             qualquer erro lançado pelo método
+	 */
+	Object invocar(Facade facade, Object[] argumentos) throws Throwable {
+		return (Object) this.metodo.invokeExact((Object) facade, argumentos);
+	}
+
+	/**
+	 * Método responsável por recuperar o nome do comando
+	 * @return o nome
+	 */
+	String getNome() {
+		return this.nome;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de argumentos do comando
+	 * @return a quantidade de argumentos
+	 */
+	int getAridade() {
+		return this.parametros.length;
+	}
+
+	/**
+	 * Método responsável por recuperar o índice do comando
+	 * @return o índice
+	 */
+	int getIndice() {
+		return this.indice;
+	}
+
+	/**
+	 * Método responsável por gerar a representação textual do comando
+	 * @return o nome e a quantidade de argumentos
+	 */
+	@Override
+	public String toString() {
+		return assinatura(this.nome, this.parametros.length);
+	}
+
+	/**
+	 * Método responsável por gerar a assinatura de um comando
+	 */
+	private static String assinatura(String nome, int aridade) {
+		return nome + "/" + aridade;
+	}
+
+	/**
+	 * Método responsável por verificar se todos os parâmetros podem ser lidos de
+	 * um script
+	 */
+	private static boolean suportado(Class<?>[] parametros) {
+		for (Class<?> tipo : parametros) {
+			if (!(tipo == String.class || tipo == int.class || tipo == Integer.class || tipo == long.class
+					|| tipo == Long.class || tipo == double.class || tipo == Double.class || tipo == boolean.class
+					|| tipo == Boolean.class))
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.samuel.lab.aceitacao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.samuel.lab.model.Facade;
+
+/**
+ * Executa scripts de aceitação sem o EasyAccept. Os scripts são agrupados em
+ * sessões: os scripts de uma sessão são executados em ordem sobre a mesma
+ * Facade e compartilham as variáveis, como os scripts do laboratório, que
+ * dependem dos cenários cadastrados pelos anteriores. Sessões diferentes são
+ * independentes e executadas em paralelo, cada uma com a sua Facade.
+ *
+ * Cada arquivo é compilado uma única vez, mesmo que apareça em várias sessões,
+ * e as compilações também são feitas em paralelo.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ExecutorAceitacao {
+
+	/**
+	 * Scripts do laboratório, executados em uma única sessão quando o executor é
+	 * chamado sem argumentos
+	 */
+	private static final String[] SCRIPTS_LABORATORIO = { "easy_accept/us1_test.txt", "easy_accept/us2_test.txt",
+			"easy_accept/us3_test.txt", "easy_accept/us4_test.txt", "easy_accept/us5_test.txt",
+			"easy_accept/us6_test.txt", "easy_accept/us7_test.txt" };
+
+	private ExecutorAceitacao() {
+	}
+
+	/**
+	 * Método responsável por executar sessões de scripts
+	 * @param sessoes : sessões, cada uma com os scripts que serão executados em
+	 *            ordem sobre a mesma Facade
+	 * @return o resultado de todas as sessões, com as falhas na ordem das sessões
+	 * @throws IOException
+	 *             caso algum script não possa ser lido
+	 */
+	public static ResultadoAceitacao executar(List<List<Path>> sessoes) throws IOException {
+		List<Path> arquivos = sessoes.stream().flatMap(List::stream).distinct().collect(Collectors.toList());
+		Map<Path, ScriptAceitacao> scripts = new ConcurrentHashMap<>();
+		try {
+			arquivos.parallelStream().forEach(arquivo -> {
+				try {
+					scripts.put(arquivo, ScriptAceitacao.compilar(arquivo));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		ResultadoAceitacao[] parciais = new ResultadoAceitacao[sessoes.size()];
+		IntStream.range(0, sessoes.size()).parallel().forEach(sessao -> {
+			Facade facade = new Facade();
+			Map<String, String> variaveis = new HashMap<>();
+			ResultadoAceitacao parcial = new ResultadoAceitacao();
+			for (Path arquivo : sessoes.get(sessao)) {
+				scripts.get(arquivo).executar(facade, variaveis, parcial);
+			}
+			parciais[sessao] = parcial;
+		});
+		ResultadoAceitacao resultado = new ResultadoAceitacao();
+		for (ResultadoAceitacao parcial : parciais) {
+			resultado.juntar(parcial);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Método responsável por executar scripts independentes, cada um em sua
+	 * própria sessão
+	 * @param arquivos : scripts que serão executados
+	 * @return o resultado de todos os scripts
+	 * @throws IOException
+	 *             caso algum script não possa ser lido
+	 */
+	public static ResultadoAceitacao executarIndependentes(List<Path> arquivos) throws IOException {
+		List<List<Path>> sessoes = new ArrayList<>();
+		for (Path arquivo : arquivos) {
+			sessoes.add(Collections.singletonList(arquivo));
+		}
+		return executar(sessoes);
+	}
+
+	/**
+	 * Executa as sessões indicadas nos argumentos e exibe o relatório. Cada
+	 * argumento é uma sessão, com os scripts separados por vírgula. Sem
+	 * argumentos, executa os scripts do laboratório em uma única sessão, como a
+	 * Facade faz com o EasyAccept. Termina com o código 1 caso haja falhas
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0)
+			args = new String[] { String.join(",", SCRIPTS_LABORATORIO) };
+		List<List<Path>> sessoes = new ArrayList<>();
+		for (String sessao : args) {
+			List<Path> arquivos = new ArrayList<>();
+			for (String arquivo : sessao.split(",")) {
+				arquivos.add(Paths.get(arquivo));
+			}
+			sessoes.add(arquivos);
+		}
+		ResultadoAceitacao resultado = executar(sessoes);
+		System.out.println(resultado);
+		if (!resultado.getFalhas().isEmpty())
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.samuel.lab.aceitacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da execução de scripts de aceitação: as falhas encontradas, na ordem
+ * em que ocorreram, e a quantidade de execuções e o tempo gasto em cada comando.
+ * Cada sessão de scripts preenche o seu próprio resultado, e os resultados das
+ * sessões são juntados ao final.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ResultadoAceitacao {
+
+	/**
+	 * Falhas, no formato "arquivo:linha: mensagem"
+	 */
+	private final List<String> falhas;
+
+	/**
+	 * Quantidade de instruções executadas
+	 */
+	private long instrucoes;
+
+	/**
+	 * Quantidade de execuções de cada comando, indexada pelo índice do comando
+	 */
+	private final long[] execucoes;
+
+	/**
+	 * Tempo total de cada comando em nanossegundos
+	 */
+	private final long[] tempos;
+
+	/**
+	 * Maior tempo de uma execução de cada comando em nanossegundos
+	 */
+	private final long[] maximos;
+
+	/**
+	 * Inicializa um resultado vazio
+	 */
+	public ResultadoAceitacao() {
+		this.falhas = new ArrayList<>();
+		this.execucoes = new long[ComandoFacade.getQuantidade()];
+		this.tempos = new long[ComandoFacade.getQuantidade()];
+		this.maximos = new long[ComandoFacade.getQuantidade()];
+	}
+
+	/**
+	 * Método responsável por registrar uma instrução executada
+	 */
+	void contarInstrucao() {
+		this.instrucoes++;
+	}
+
+	/**
+	 * Método responsável por registrar o tempo de uma execução de um comando
+	 */
+	void registrar(ComandoFacade comando, long tempo) {
+		int indice = comando.getIndice();
+		this.execucoes[indice]++;
+		this.tempos[indice] += tempo;
+		if (tempo > this.maximos[indice])
+			this.maximos[indice] = tempo;
+	}
+
+	/**
+	 * Método responsável por registrar uma falha
+	 */
+	void falhar(String arquivo, int linha, String mensagem) {
+		this.falhas.add(arquivo + ":" + linha + ": " + mensagem);
+	}
+
+	/**
+	 * Método responsável por acrescentar a este resultado as falhas e os tempos de
+	 * outro
+	 * @param outro : resultado que será acrescentado
+	 */
+	void juntar(ResultadoAceitacao outro) {
+		this.falhas.addAll(outro.falhas);
+		this.instrucoes += outro.instrucoes;
+		for (int i = 0; i < this.execucoes.length; i++) {
+			this.execucoes[i] += outro.execucoes[i];
+			this.tempos[i] += outro.tempos[i];
+			this.maximos[i] = Math.max(this.maximos[i], outro.maximos[i]);
+		}
+	}
+
+	/**
+	 * Método responsável por recuperar as falhas
+	 * @return as falhas, no formato "arquivo:linha: mensagem"
+	 */
+	public List<String> getFalhas() {
+		return Collections.unmodifiableList(this.falhas);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de instruções executadas
+	 * @return a quantidade de instruções
+	 */
+	public long getInstrucoes() {
+		return this.instrucoes;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de execuções de um comando,
+	 * somando todas as quantidades de argumentos
+	 * @param comando : nome do comando
+	 * @return a quantidade de execuções
+	 */
+	public long getExecucoes(String comando) {
+		long execucoes = 0;
+		for (int i = 0; i < this.execucoes.length; i++) {
+			if (ComandoFacade.getComando(i).getNome().equals(comando))
+				execucoes += this.execucoes[i];
+		}
+		return execucoes;
+	}
+
+	/**
+	 * Método responsável por recuperar o tempo total de um comando, somando todas
+	 * as quantidades de argumentos
+	 * @param comando : nome do comando
+	 * @return o tempo em nanossegundos
+	 */
+	public long getTempo(String comando) {
+		long tempo = 0;
+		for (int i = 0; i < this.tempos.length; i++) {
+			if (ComandoFacade.getComando(i).getNome().equals(comando))
+				tempo += this.tempos[i];
+		}
+		return tempo;
+	}
+
+	/**
+	 * Método responsável por gerar o relatório textual, com uma linha por comando
+	 * executado e uma por falha
+	 * @return o relatório
+	 */
+	@Override
+	public String toString() {
+		StringBuilder relatorio = new StringBuilder(
+				String.format("Instrucoes: %d - Falhas: %d", this.instrucoes, this.falhas.size()));
+		for (int i = 0; i < this.execucoes.length; i++) {
+			if (this.execucoes[i] > 0)
+				relatorio.append(System.lineSeparator())
+						.append(String.format("%s: %d execucoes - total %.3f ms - media %.1f us - max %.1f us",
+								ComandoFacade.getComando(i), this.execucoes[i], this.tempos[i] / 1e6,
+								this.tempos[i] / 1e3 / this.execucoes[i], this.maximos[i] / 1e3));
+		}
+		for (String falha : this.falhas) {
+			relatorio.append(System.lineSeparator()).append(falha);
+		}
+		return relatorio.toString();
+	}
+
+}
@@ -0,0 +1,447 @@
+package com.samuel.lab.aceitacao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.samuel.lab.model.Facade;
+
+/**
+ * Script de aceitação compilado. O arquivo segue a sintaxe dos scripts do
+ * EasyAccept usados pelo laboratório:
+ *
+ * <pre>
+ * # comentário
+ * comando nome=valor nome="valor com espaços"
+ * variavel=comando nome=valor
+ * expect valorEsperado comando nome=valor
+ * expectError "mensagem esperada" comando nome=valor
+ * </pre>
+ *
+ * Os argumentos são passados ao método na ordem em que aparecem, e os nomes
+ * servem apenas de documentação. Uma variável guarda o retorno do comando, e
+ * ${variavel} é substituída pelo seu valor nos argumentos e nos valores
+ * esperados das linhas seguintes.
+ *
+ * O script é lido e compilado uma única vez: cada linha é separada em
+ * argumentos, o comando é vinculado ao método da Facade e os argumentos sem
+ * variáveis já são convertidos para o tipo do parâmetro. Uma linha que não pode
+ * ser compilada, como um comando desconhecido, é registrada como falha quando o
+ * script é executado, na sua posição.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ScriptAceitacao {
+
+	/**
+	 * Tipos de instrução
+	 */
+	private enum Tipo {
+		COMANDO, EXPECT, EXPECT_ERROR, ERRO
+	}
+
+	/**
+	 * Nome do arquivo do script, usado nas falhas
+	 */
+	private final String arquivo;
+
+	/**
+	 * Instruções do script, na ordem do arquivo
+	 */
+	private final Instrucao[] instrucoes;
+
+	/**
+	 * Cria um script compilado
+	 */
+	private ScriptAceitacao(String arquivo, Instrucao[] instrucoes) {
+		this.arquivo = arquivo;
+		this.instrucoes = instrucoes;
+	}
+
+	/**
+	 * Método responsável por ler e compilar um script
+	 * @param arquivo : caminho do script
+	 * @return o script compilado
+	 * @throws IOException
+	 *             caso o arquivo não possa ser lido
+	 */
+	public static ScriptAceitacao compilar(Path arquivo) throws IOException {
+		List<String> linhas = Files.readAllLines(arquivo, StandardCharsets.UTF_8);
+		List<Instrucao> instrucoes = new ArrayList<>();
+		for (int i = 0; i < linhas.size(); i++) {
+			String linha = linhas.get(i).trim();
+			if (linha.isEmpty() || linha.startsWith("#"))
+				continue;
+			instrucoes.add(compilar(linha, i + 1));
+		}
+		return new ScriptAceitacao(arquivo.getFileName().toString(), instrucoes.toArray(new Instrucao[0]));
+	}
+
+	/**
+	 * Método responsável por compilar uma linha
+	 */
+	private static Instrucao compilar(String linha, int numero) {
+		List<Argumento> argumentos;
+		try {
+			argumentos = separar(linha);
+		} catch (IllegalArgumentException e) {
+			return Instrucao.erro(numero, e.getMessage());
+		}
+		Tipo tipo = Tipo.COMANDO;
+		Modelo esperado = null;
+		String variavel = null;
+		String nome = argumentos.get(0).texto;
+		int inicio = 1;
+		if (argumentos.get(0).igual < 0 && (nome.equals("expect") || nome.equals("expectError"))) {
+			if (argumentos.size() < 3)
+				return Instrucao.erro(numero, "Linha mal formatada: " + linha);
+			tipo = nome.equals("expect") ? Tipo.EXPECT : Tipo.EXPECT_ERROR;
+			esperado = Modelo.de(argumentos.get(1).texto);
+			nome = argumentos.get(2).texto;
+			inicio = 3;
+		} else if (argumentos.get(0).igual > 0) {
+			variavel = nome.substring(0, argumentos.get(0).igual);
+			nome = nome.substring(argumentos.get(0).igual + 1);
+		}
+		if (nome.isEmpty() || nome.indexOf('=') >= 0)
+			return Instrucao.erro(numero, "Linha mal formatada: " + linha);
+
+		int aridade = argumentos.size() - inicio;
+		ComandoFacade comando;
+		try {
+			comando = ComandoFacade.buscar(nome, aridade);
+		} catch (IllegalArgumentException e) {
+			return Instrucao.erro(numero, e.getMessage());
+		}
+		if (comando == null)
+			return Instrucao.erro(numero, "Comando desconhecido: " + nome + "/" + aridade);
+
+		Object[] constantes = new Object[aridade];
+		Modelo[] modelos = new Modelo[aridade];
+		for (int i = 0; i < aridade; i++) {
+			Argumento argumento = argumentos.get(inicio + i);
+			String valor = argumento.igual >= 0 ? argumento.texto.substring(argumento.igual + 1) : argumento.texto;
+			Modelo modelo = Modelo.de(valor);
+			if (modelo.isConstante()) {
+				try {
+					constantes[i] = comando.converter(i, valor);
+					continue;
+				} catch (NumberFormatException e) {
+					// a conversão é refeita na execução, onde o erro é tratado como erro do comando
+				}
+			}
+			modelos[i] = modelo;
+		}
+		return new Instrucao(numero, tipo, variavel, esperado, comando, constantes, modelos, null);
+	}
+
+	/**
+	 * Método responsável por separar uma linha em argumentos. Espaços separam
+	 * argumentos, exceto entre aspas; as aspas são removidas e, dentro delas, \"
+	 * e \\ representam uma aspa e uma barra
+	 */
+	private static List<Argumento> separar(String linha) {
+		List<Argumento> argumentos = new ArrayList<>();
+		StringBuilder texto = new StringBuilder();
+		boolean aspas = false;
+		boolean vazio = true;
+		int igual = -1;
+		for (int i = 0; i < linha.length(); i++) {
+			char c = linha.charAt(i);
+			if (aspas) {
+				if (c == '\\' && i + 1 < linha.length() && (linha.charAt(i + 1) == '"' || linha.charAt(i + 1) == '\\'))
+					texto.append(linha.charAt(++i));
+				else if (c == '"')
+					aspas = false;
+				else
+					texto.append(c);
+			} else if (c == '"') {
+				aspas = true;
+				vazio = false;
+			} else if (Character.isWhitespace(c)) {
+				if (!vazio)
+					argumentos.add(new Argumento(texto.toString(), igual));
+				texto.setLength(0);
+				vazio = true;
+				igual = -1;
+			} else {
+				if (c == '=' && igual < 0)
+					igual = texto.length();
+				texto.append(c);
+				vazio = false;
+			}
+		}
+		if (aspas)
+			throw new IllegalArgumentException("Aspas nao fechadas: " + linha);
+		if (!vazio)
+			argumentos.add(new Argumento(texto.toString(), igual));
+		return argumentos;
+	}
+
+	/**
+	 * Método responsável por executar o script
+	 * @param facade : Facade onde os comandos serão executados
+	 * @param variaveis : variáveis da sessão, compartilhadas entre os scripts
+	 *            executados na mesma Facade
+	 * @param resultado : resultado onde as falhas e os tempos serão registrados
+	 */
+	public void executar(Facade facade, Map<String, String> variaveis, ResultadoAceitacao resultado) {
+		for (Instrucao instrucao : this.instrucoes) {
+			resultado.contarInstrucao();
+			if (instrucao.tipo == Tipo.ERRO) {
+				resultado.falhar(this.arquivo, instrucao.linha, instrucao.erro);
+				continue;
+			}
+			Object retorno = null;
+			Throwable erro = null;
+			String[] textos;
+			try {
+				textos = instrucao.resolver(variaveis);
+			} catch (IllegalArgumentException e) {
+				resultado.falhar(this.arquivo, instrucao.linha, e.getMessage());
+				continue;
+			}
+			long inicio = System.nanoTime();
+			try {
+				retorno = instrucao.comando.invocar(facade, instrucao.converter(textos));
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				erro = e;
+			}
+			resultado.registrar(instrucao.comando, System.nanoTime() - inicio);
+			this.verificar(instrucao, retorno, erro, variaveis, resultado);
+		}
+	}
+
+	/**
+	 * Método responsável por comparar o resultado de uma instrução com o esperado
+	 */
+	private void verificar(Instrucao instrucao, Object retorno, Throwable erro, Map<String, String> variaveis,
+			ResultadoAceitacao resultado) {
+		String esperado;
+		try {
+			esperado = instrucao.esperado == null ? null : instrucao.esperado.resolver(variaveis);
+		} catch (IllegalArgumentException e) {
+			resultado.falhar(this.arquivo, instrucao.linha, e.getMessage());
+			return;
+		}
+		if (instrucao.tipo == Tipo.EXPECT_ERROR) {
+			if (erro == null)
+				resultado.falhar(this.arquivo, instrucao.linha,
+						"Era esperado o erro <" + esperado + ">, mas o comando retornou <" + retorno + ">");
+			else if (!esperado.equals(erro.getMessage()))
+				resultado.falhar(this.arquivo, instrucao.linha,
+						"Era esperado o erro <" + esperado + ">, mas ocorreu <" + erro.getMessage() + ">");
+			return;
+		}
+		if (erro != null) {
+			resultado.falhar(this.arquivo, instrucao.linha, "Erro inesperado: " + erro);
+			return;
+		}
+		String obtido = String.valueOf(retorno);
+		if (instrucao.variavel != null)
+			variaveis.put(instrucao.variavel, obtido);
+		if (instrucao.tipo == Tipo.EXPECT && !esperado.equals(obtido))
+			resultado.falhar(this.arquivo, instrucao.linha,
+					"Era esperado <" + esperado + ">, mas foi obtido <" + obtido + ">");
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de instruções do script
+	 * @return a quantidade de instruções, sem contar comentários e linhas vazias
+	 */
+	public int getTamanho() {
+		return this.instrucoes.length;
+	}
+
+	/**
+	 * Argumento de uma linha, com a posição do primeiro '=' fora de aspas
+	 */
+	private static class Argumento {
+
+		private final String texto;
+
+		private final int igual;
+
+		private Argumento(String texto, int igual) {
+			this.texto = texto;
+			this.igual = igual;
+		}
+
+	}
+
+	/**
+	 * Texto com referências a variáveis, separado em trechos fixos e nomes de
+	 * variáveis alternados
+	 */
+	private static class Modelo {
+
+		/**
+		 * Trechos fixos; há sempre um trecho a mais que variáveis
+		 */
+		private final String[] trechos;
+
+		/**
+		 * Nomes das variáveis entre os trechos
+		 */
+		private final String[] variaveis;
+
+		private Modelo(String[] trechos, String[] variaveis) {
+			this.trechos = trechos;
+			this.variaveis = variaveis;
+		}
+
+		/**
+		 * Separa um texto em trechos e referências ${variavel}
+		 */
+		private static Modelo de(String texto) {
+			List<String> trechos = new ArrayList<>();
+			List<String> variaveis = new ArrayList<>();
+			int inicio = 0;
+			int referencia;
+			while ((referencia = texto.indexOf("${", inicio)) >= 0) {
+				int fim = texto.indexOf('}', referencia + 2);
+				if (fim < 0)
+					break;
+				trechos.add(texto.substring(inicio, referencia));
+				variaveis.add(texto.substring(referencia + 2, fim));
+				inicio = fim + 1;
+			}
+			trechos.add(texto.substring(inicio));
+			return new Modelo(trechos.toArray(new String[0]), variaveis.toArray(new String[0]));
+		}
+
+		private boolean isConstante() {
+			return this.variaveis.length == 0;
+		}
+
+		/**
+		 * Substitui as variáveis pelos seus valores
+		 * @throws IllegalArgumentException
+		 *             caso alguma variável não tenha sido definida
+		 */
+		private String resolver(Map<String, String> valores) {
+			if (this.variaveis.length == 0)
+				return this.trechos[0];
+			StringBuilder texto = new StringBuilder(this.trechos[0]);
+			for (int i = 0; i < this.variaveis.length; i++) {
+				String valor = valores.get(this.variaveis[i]);
+				if (valor == null)
+					throw new IllegalArgumentException("Variavel nao definida: " + this.variaveis[i]);
+				texto.append(valor).append(this.trechos[i + 1]);
+			}
+			return texto.toString();
+		}
+
+	}
+
+	/**
+	 * Linha compilada do script
+	 */
+	private static class Instrucao {
+
+		private final int linha;
+
+		private final Tipo tipo;
+
+		/**
+		 * Variável que recebe o retorno do comando, ou null
+		 */
+		private final String variavel;
+
+		/**
+		 * Valor ou mensagem de erro esperados, ou null
+		 */
+		private final Modelo esperado;
+
+		private final ComandoFacade comando;
+
+		/**
+		 * Argumentos já convertidos; null nas posições que dependem da execução
+		 */
+		private final Object[] constantes;
+
+		/**
+		 * Argumentos que dependem de variáveis ou cuja conversão falhou na
+		 * compilação; null nas demais posições
+		 */
+		private final Modelo[] modelos;
+
+		/**
+		 * Indica se todos os argumentos são constantes
+		 */
+		private final boolean constante;
+
+		/**
+		 * Mensagem das linhas que não puderam ser compiladas
+		 */
+		private final String erro;
+
+		private Instrucao(int linha, Tipo tipo, String variavel, Modelo esperado, ComandoFacade comando,
+				Object[] constantes, Modelo[] modelos, String erro) {
+			this.linha = linha;
+			this.tipo = tipo;
+			this.variavel = variavel;
+			this.esperado = esperado;
+			this.comando = comando;
+			this.constantes = constantes;
+			this.modelos = modelos;
+			this.erro = erro;
+			boolean constante = true;
+			if (modelos != null) {
+				for (Modelo modelo : modelos) {
+					constante &= modelo == null;
+				}
+			}
+			this.constante = constante;
+		}
+
+		private static Instrucao erro(int linha, String mensagem) {
+			return new Instrucao(linha, Tipo.ERRO, null, null, null, null, null, mensagem);
+		}
+
+		/**
+		 * Substitui as variáveis nos argumentos que dependem da execução
+		 * @return o texto de cada um desses argumentos, ou null caso todos os
+		 *         argumentos sejam constantes
+		 * @throws IllegalArgumentException
+		 *             caso alguma variável não tenha sido definida
+		 */
+		private String[] resolver(Map<String, String> variaveis) {
+			if (this.constante)
+				return null;
+			String[] textos = new String[this.modelos.length];
+			for (int i = 0; i < this.modelos.length; i++) {
+				if (this.modelos[i] != null)
+					textos[i] = this.modelos[i].resolver(variaveis);
+			}
+			return textos;
+		}
+
+		/**
+		 * Monta os argumentos da invocação, convertendo os textos resolvidos. Os
+		 * argumentos constantes são usados sem cópia
+		 * @throws NumberFormatException
+		 *             caso algum texto não seja um número válido, tratado como
+		 *             erro do comando
+		 */
+		private Object[] converter(String[] textos) {
+			if (textos == null)
+				return this.constantes;
+			Object[] argumentos = this.constantes.clone();
+			for (int i = 0; i < textos.length; i++) {
+				if (textos[i] != null)
+					argumentos[i] = this.comando.converter(i, textos[i]);
+			}
+			return argumentos;
+		}
+
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.samuel.lab.carga;
+
+import java.util.SplittableRandom;
+
+import com.samuel.lab.exception.CampoInvalidoException;
+
+/**
+ * Distribuição de Zipf sobre as posições 1..n, em que a posição k é sorteada
+ * com probabilidade proporcional a 1/k^s. As amostras são geradas por
+ * rejeição-inversão (Hörmann e Derflinger), que não depende de tabelas: a
+ * quantidade de posições pode mudar a cada amostra, como acontece com os
+ * cenários de uma carga que cresce enquanto é gerada.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class DistribuicaoZipf {
+
+	/**
+	 * Expoente da distribuição
+	 */
+	private final double expoente;
+
+	/**
+	 * Valor de H(1,5) - 1, o limite superior do intervalo sorteado
+	 */
+	private final double hIntegralX1;
+
+	/**
+	 * Limite usado para aceitar uma amostra sem calcular H
+	 */
+	private final double limiteAceitacao;
+
+	/**
+	 * Inicializa a distribuição com um expoente
+	 * @param expoente : expoente da distribuição, maior que zero. Quanto maior, mais
+	 *            concentradas são as amostras nas primeiras posições
+	 */
+	public DistribuicaoZipf(double expoente) {
+		if (!(expoente > 0) || Double.isInfinite(expoente))
+			throw new CampoInvalidoException("Erro na geracao de carga: Expoente deve ser maior que zero");
+		this.expoente = expoente;
+		this.hIntegralX1 = this.hIntegral(1.5) - 1;
+		this.limiteAceitacao = 2 - this.hIntegralInversa(this.hIntegral(2.5) - this.h(2));
+	}
+
+	/**
+	 * Método responsável por sortear uma posição
+	 * @param n : quantidade de posições, maior que zero
+	 * @param aleatorio : gerador de números aleatórios
+	 * @return uma posição entre 1 e n
+	 */
+	public int amostra(int n, SplittableRandom aleatorio) {
+		if (n <= 0)
+			throw new CampoInvalidoException("Erro na geracao de carga: Quantidade de posicoes deve ser maior que zero");
+		double hIntegralN = this.hIntegral(n + 0.5);
+		while (true) {
+			double u = hIntegralN + aleatorio.nextDouble() * (this.hIntegralX1 - hIntegralN);
+			double x = this.hIntegralInversa(u);
+			int k = (int) (x + 0.5);
+			if (k < 1)
+				k = 1;
+			else if (k > n)
+				k = n;
+			if (k - x <= this.limiteAceitacao || u >= this.hIntegral(k + 0.5) - this.h(k))
+				return k;
+		}
+	}
+
+	/**
+	 * Método responsável por recuperar o expoente da distribuição
+	 * @return o expoente
+	 */
+	public double getExpoente() {
+		return this.expoente;
+	}
+
+	/**
+	 * Integral de h, H(x) = (x^(1-s) - 1) / (1-s), calculada de forma estável
+	 * quando s é próximo de 1
+	 */
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+		return auxiliar2((1 - this.expoente) * logX) * logX;
+	}
+
+	/**
+	 * Função h(x) = 1/x^s
+	 */
+	private double h(double x) {
+		return Math.exp(-this.expoente * Math.log(x));
+	}
+
+	/**
+	 * Inversa de H
+	 */
+	private double hIntegralInversa(double x) {
+		double t = x * (1 - this.expoente);
+		if (t < -1)
+			t = -1;
+		return Math.exp(auxiliar1(t) * x);
+	}
+
+	/**
+	 * Calcula log(1+x)/x, com a série de Taylor perto de zero
+	 */
+	private static double auxiliar1(double x) {
+		if (Math.abs(x) > 1e-8)
+			return Math.log1p(x) / x;
+		return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+	}
+
+	/**
+	 * Calcula (e^x - 1)/x, com a série de Taylor perto de zero
+	 */
+	private static double auxiliar2(double x) {
+		if (Math.abs(x) > 1e-8)
+			return Math.expm1(x) / x;
+		return 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+	}
+
+}
@@ -0,0 +1,253 @@
+package com.samuel.lab.carga;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import com.samuel.lab.exception.CampoInvalidoException;
+
+/**
+ * Gerador de cargas sintéticas para o SistemadeApostas. O roteiro gerado
+ * depende apenas do perfil e da semente, para que execuções em versões
+ * diferentes do sistema possam ser comparadas.
+ *
+ * Cada operação é sorteada segundo os pesos do perfil. Os cenários e os
+ * apostadores são escolhidos por uma distribuição de Zipf: os cenários mais
+ * antigos e os primeiros apostadores concentram a maior parte do tráfego. O
+ * gerador acompanha quais cenários estão abertos e quantas apostas asseguradas
+ * cada um tem, para que as operações geradas sejam válidas quando o roteiro é
+ * reproduzido em ordem. Uma operação que não tem como ser gerada no estado
+ * atual, como um fechamento sem cenários abertos, é substituída pela operação
+ * que cria o que falta.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class GeradorCarga {
+
+	/**
+	 * Perfil da carga
+	 */
+	private final PerfilCarga perfil;
+
+	/**
+	 * Semente dos sorteios
+	 */
+	private final long semente;
+
+	/**
+	 * Gerador de números aleatórios da geração atual
+	 */
+	private SplittableRandom aleatorio;
+
+	/**
+	 * Distribuição usada na escolha de cenários e apostadores
+	 */
+	private DistribuicaoZipf zipf;
+
+	/**
+	 * Roteiro em geração
+	 */
+	private Roteiro roteiro;
+
+	/**
+	 * Quantidade de cenários cadastrados
+	 */
+	private int cenarios;
+
+	/**
+	 * Ids dos cenários abertos, na ordem de popularidade
+	 */
+	private int[] abertos;
+
+	/**
+	 * Quantidade de cenários abertos
+	 */
+	private int quantidadeAbertos;
+
+	/**
+	 * Ids dos cenários fechados, na ordem de fechamento
+	 */
+	private int[] fechados;
+
+	/**
+	 * Quantidade de cenários fechados
+	 */
+	private int quantidadeFechados;
+
+	/**
+	 * Quantidade de apostas asseguradas de cada cenário, indexada pelo id
+	 */
+	private int[] asseguradas;
+
+	/**
+	 * Inicializa o gerador
+	 * @param perfil : perfil da carga
+	 * @param semente : semente dos sorteios
+	 */
+	public GeradorCarga(PerfilCarga perfil, long semente) {
+		if (perfil == null)
+			throw new CampoInvalidoException("Erro na geracao de carga: Perfil nao pode ser nulo");
+		this.perfil = perfil;
+		this.semente = semente;
+	}
+
+	/**
+	 * Método responsável por gerar o roteiro da carga. Chamadas repetidas geram
+	 * roteiros iguais
+	 * @return o roteiro gerado
+	 */
+	public synchronized Roteiro gerar() {
+		int[] acumulados = new int[Operacao.values().length];
+		int total = 0;
+		for (Operacao operacao : Operacao.values()) {
+			total += this.perfil.getPeso(operacao);
+			acumulados[operacao.ordinal()] = total;
+		}
+		if (total == 0)
+			throw new CampoInvalidoException("Erro na geracao de carga: Nenhuma operacao tem peso maior que zero");
+		int iniciais = this.perfil.getCenariosIniciais();
+		this.aleatorio = new SplittableRandom(this.semente);
+		this.zipf = new DistribuicaoZipf(this.perfil.getExpoente());
+		this.roteiro = new Roteiro(this.perfil.getApostadores(), iniciais + this.perfil.getOperacoes());
+		this.cenarios = 0;
+		this.abertos = new int[Math.max(16, iniciais)];
+		this.quantidadeAbertos = 0;
+		this.fechados = new int[16];
+		this.quantidadeFechados = 0;
+		this.asseguradas = new int[Math.max(16, iniciais + 1)];
+
+		int pesoSemBonus = this.perfil.getPeso(Operacao.CADASTRAR_CENARIO);
+		int pesoCenarios = pesoSemBonus + this.perfil.getPeso(Operacao.CADASTRAR_CENARIO_BONUS);
+		for (int i = 0; i < iniciais; i++) {
+			this.cadastrarCenario(pesoCenarios > 0 && this.aleatorio.nextInt(pesoCenarios) >= pesoSemBonus);
+		}
+		this.roteiro.encerrarPreparacao();
+		for (int i = 0; i < this.perfil.getOperacoes(); i++) {
+			int sorteio = this.aleatorio.nextInt(total);
+			int operacao = 0;
+			while (acumulados[operacao] <= sorteio) {
+				operacao++;
+			}
+			this.gerar(Operacao.values()[operacao]);
+		}
+		Roteiro gerado = this.roteiro;
+		this.roteiro = null;
+		return gerado;
+	}
+
+	/**
+	 * Método responsável por gerar uma operação, ou a operação que a substitui
+	 * quando ela não pode ser gerada no estado atual
+	 */
+	private void gerar(Operacao operacao) {
+		switch (operacao) {
+		case CADASTRAR_CENARIO:
+			this.cadastrarCenario(false);
+			break;
+		case CADASTRAR_CENARIO_BONUS:
+			this.cadastrarCenario(true);
+			break;
+		case APOSTAR:
+		case APOSTAR_SEGURO_VALOR:
+		case APOSTAR_SEGURO_TAXA:
+			if (this.quantidadeAbertos == 0)
+				this.cadastrarCenario(false);
+			else
+				this.apostar(operacao);
+			break;
+		case ALTERAR_SEGURO_VALOR:
+		case ALTERAR_SEGURO_TAXA:
+			this.alterarSeguro(operacao);
+			break;
+		case FECHAR_CENARIO:
+			if (this.quantidadeAbertos == 0)
+				this.cadastrarCenario(false);
+			else
+				this.fecharCenario();
+			break;
+		case CONSULTAR_TOTAL:
+		case EXIBIR_CENARIO:
+			this.roteiro.adicionar(operacao, this.zipf.amostra(this.cenarios, this.aleatorio), 0, 0, 0, 0, false);
+			break;
+		case CONSULTAR_CAIXA:
+			if (this.quantidadeFechados == 0)
+				this.gerar(Operacao.CONSULTAR_TOTAL);
+			else
+				this.roteiro.adicionar(operacao,
+						this.fechados[this.zipf.amostra(this.quantidadeFechados, this.aleatorio) - 1], 0, 0, 0, 0,
+						false);
+			break;
+		}
+	}
+
+	/**
+	 * Método responsável por gerar o cadastro de um cenário
+	 */
+	private void cadastrarCenario(boolean bonus) {
+		int id = ++this.cenarios;
+		if (this.quantidadeAbertos == this.abertos.length)
+			this.abertos = Arrays.copyOf(this.abertos, this.abertos.length * 2);
+		this.abertos[this.quantidadeAbertos++] = id;
+		if (id == this.asseguradas.length)
+			this.asseguradas = Arrays.copyOf(this.asseguradas, this.asseguradas.length * 2);
+		if (bonus)
+			this.roteiro.adicionar(Operacao.CADASTRAR_CENARIO_BONUS, id, 0, 100 + this.aleatorio.nextInt(10000), 0,
+					0, false);
+		else
+			this.roteiro.adicionar(Operacao.CADASTRAR_CENARIO, id, 0, 0, 0, 0, false);
+	}
+
+	/**
+	 * Método responsável por gerar uma aposta em um cenário aberto
+	 */
+	private void apostar(Operacao operacao) {
+		int cenario = this.abertos[this.zipf.amostra(this.quantidadeAbertos, this.aleatorio) - 1];
+		int apostador = this.zipf.amostra(this.perfil.getApostadores(), this.aleatorio) - 1;
+		int valor = 100 + this.aleatorio.nextInt(10000);
+		boolean acontece = this.aleatorio.nextBoolean();
+		int argumento = 0;
+		int custo = 0;
+		if (operacao == Operacao.APOSTAR_SEGURO_VALOR) {
+			argumento = 1 + this.aleatorio.nextInt(valor);
+			custo = 1 + this.aleatorio.nextInt(100);
+			this.asseguradas[cenario]++;
+		} else if (operacao == Operacao.APOSTAR_SEGURO_TAXA) {
+			argumento = 1 + this.aleatorio.nextInt(500);
+			custo = 1 + this.aleatorio.nextInt(100);
+			this.asseguradas[cenario]++;
+		}
+		this.roteiro.adicionar(operacao, cenario, apostador, valor, argumento, custo, acontece);
+	}
+
+	/**
+	 * Método responsável por gerar a alteração do seguro de uma aposta
+	 * assegurada. Caso o cenário sorteado não tenha apostas asseguradas, gera uma
+	 * aposta assegurada no lugar
+	 */
+	private void alterarSeguro(Operacao operacao) {
+		int cenario = this.zipf.amostra(this.cenarios, this.aleatorio);
+		if (this.asseguradas[cenario] == 0) {
+			this.gerar(operacao == Operacao.ALTERAR_SEGURO_VALOR ? Operacao.APOSTAR_SEGURO_VALOR
+					: Operacao.APOSTAR_SEGURO_TAXA);
+			return;
+		}
+		int aposta = 1 + this.aleatorio.nextInt(this.asseguradas[cenario]);
+		int valor = operacao == Operacao.ALTERAR_SEGURO_VALOR ? 1 + this.aleatorio.nextInt(5000)
+				: 1 + this.aleatorio.nextInt(500);
+		this.roteiro.adicionar(operacao, cenario, 0, valor, aposta, 0, false);
+	}
+
+	/**
+	 * Método responsável por gerar o fechamento de um cenário aberto
+	 */
+	private void fecharCenario() {
+		int posicao = this.zipf.amostra(this.quantidadeAbertos, this.aleatorio) - 1;
+		int cenario = this.abertos[posicao];
+		this.abertos[posicao] = this.abertos[--this.quantidadeAbertos];
+		if (this.quantidadeFechados == this.fechados.length)
+			this.fechados = Arrays.copyOf(this.fechados, this.fechados.length * 2);
+		this.fechados[this.quantidadeFechados++] = cenario;
+		this.roteiro.adicionar(Operacao.FECHAR_CENARIO, cenario, 0, 0, 0, 0, this.aleatorio.nextBoolean());
+	}
+
+}
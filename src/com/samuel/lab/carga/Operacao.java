@@ -0,0 +1,66 @@
+package com.samuel.lab.carga;
+
+/**
+ * Operações que compõem uma carga sintética
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public enum Operacao {
+
+	/**
+	 * Cadastro de um cenário sem bônus
+	 */
+	CADASTRAR_CENARIO,
+
+	/**
+	 * Cadastro de um cenário com bônus
+	 */
+	CADASTRAR_CENARIO_BONUS,
+
+	/**
+	 * Cadastro de uma aposta simples
+	 */
+	APOSTAR,
+
+	/**
+	 * Cadastro de uma aposta assegurada por valor
+	 */
+	APOSTAR_SEGURO_VALOR,
+
+	/**
+	 * Cadastro de uma aposta assegurada por taxa
+	 */
+	APOSTAR_SEGURO_TAXA,
+
+	/**
+	 * Alteração do seguro de uma aposta assegurada para um valor
+	 */
+	ALTERAR_SEGURO_VALOR,
+
+	/**
+	 * Alteração do seguro de uma aposta assegurada para uma taxa
+	 */
+	ALTERAR_SEGURO_TAXA,
+
+	/**
+	 * Fechamento de um cenário
+	 */
+	FECHAR_CENARIO,
+
+	/**
+	 * Consulta do valor total das apostas de um cenário
+	 */
+	CONSULTAR_TOTAL,
+
+	/**
+	 * Exibição de um cenário
+	 */
+	EXIBIR_CENARIO,
+
+	/**
+	 * Consulta do caixa de um cenário fechado
+	 */
+	CONSULTAR_CAIXA;
+
+}
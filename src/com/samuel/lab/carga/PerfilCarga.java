@@ -0,0 +1,164 @@
+package com.samuel.lab.carga;
+
+import com.samuel.lab.exception.CampoInvalidoException;
+
+/**
+ * Perfil de uma carga sintética: quantas operações serão geradas, o peso de
+ * cada tipo de operação e o quanto o tráfego se concentra nos cenários e
+ * apostadores mais populares. O perfil padrão é dominado por apostas simples e
+ * consultas, com poucos cadastros e fechamentos de cenários.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class PerfilCarga {
+
+	/**
+	 * Peso de cada operação, indexado pelo ordinal da operação
+	 */
+	private final int[] pesos;
+
+	/**
+	 * Quantidade de operações medidas
+	 */
+	private int operacoes;
+
+	/**
+	 * Quantidade de cenários cadastrados antes da medição
+	 */
+	private int cenariosIniciais;
+
+	/**
+	 * Quantidade de apostadores distintos
+	 */
+	private int apostadores;
+
+	/**
+	 * Expoente da distribuição de Zipf usada na escolha de cenários e apostadores
+	 */
+	private double expoente;
+
+	/**
+	 * Inicializa o perfil padrão
+	 */
+	public PerfilCarga() {
+		this.pesos = new int[Operacao.values().length];
+		this.operacoes = 100000;
+		this.cenariosIniciais = 100;
+		this.apostadores = 10000;
+		this.expoente = 0.99;
+		this.setPeso(Operacao.CADASTRAR_CENARIO, 2).setPeso(Operacao.CADASTRAR_CENARIO_BONUS, 1)
+				.setPeso(Operacao.APOSTAR, 50).setPeso(Operacao.APOSTAR_SEGURO_VALOR, 8)
+				.setPeso(Operacao.APOSTAR_SEGURO_TAXA, 8).setPeso(Operacao.ALTERAR_SEGURO_VALOR, 3)
+				.setPeso(Operacao.ALTERAR_SEGURO_TAXA, 3).setPeso(Operacao.FECHAR_CENARIO, 1)
+				.setPeso(Operacao.CONSULTAR_TOTAL, 12).setPeso(Operacao.EXIBIR_CENARIO, 8)
+				.setPeso(Operacao.CONSULTAR_CAIXA, 4);
+	}
+
+	/**
+	 * Método responsável por alterar o peso de uma operação
+	 * @param operacao : operação que terá o peso alterado
+	 * @param peso : novo peso, zero para não gerar a operação
+	 * @return o próprio perfil
+	 */
+	public PerfilCarga setPeso(Operacao operacao, int peso) {
+		if (operacao == null)
+			throw new CampoInvalidoException("Erro no perfil de carga: Operacao nao pode ser nula");
+		if (peso < 0)
+			throw new CampoInvalidoException("Erro no perfil de carga: Peso nao pode ser negativo");
+		this.pesos[operacao.ordinal()] = peso;
+		return this;
+	}
+
+	/**
+	 * Método responsável por recuperar o peso de uma operação
+	 * @param operacao : operação consultada
+	 * @return o peso da operação
+	 */
+	public int getPeso(Operacao operacao) {
+		return this.pesos[operacao.ordinal()];
+	}
+
+	/**
+	 * Método responsável por alterar a quantidade de operações medidas
+	 * @param operacoes : quantidade de operações, maior que zero
+	 * @return o próprio perfil
+	 */
+	public PerfilCarga setOperacoes(int operacoes) {
+		if (operacoes <= 0)
+			throw new CampoInvalidoException("Erro no perfil de carga: Quantidade de operacoes deve ser maior que zero");
+		this.operacoes = operacoes;
+		return this;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações medidas
+	 * @return a quantidade de operações
+	 */
+	public int getOperacoes() {
+		return this.operacoes;
+	}
+
+	/**
+	 * Método responsável por alterar a quantidade de cenários cadastrados antes da
+	 * medição
+	 * @param cenariosIniciais : quantidade de cenários, maior que zero
+	 * @return o próprio perfil
+	 */
+	public PerfilCarga setCenariosIniciais(int cenariosIniciais) {
+		if (cenariosIniciais <= 0)
+			throw new CampoInvalidoException("Erro no perfil de carga: Cenarios iniciais deve ser maior que zero");
+		this.cenariosIniciais = cenariosIniciais;
+		return this;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de cenários cadastrados antes
+	 * da medição
+	 * @return a quantidade de cenários iniciais
+	 */
+	public int getCenariosIniciais() {
+		return this.cenariosIniciais;
+	}
+
+	/**
+	 * Método responsável por alterar a quantidade de apostadores distintos
+	 * @param apostadores : quantidade de apostadores, maior que zero
+	 * @return o próprio perfil
+	 */
+	public PerfilCarga setApostadores(int apostadores) {
+		if (apostadores <= 0)
+			throw new CampoInvalidoException("Erro no perfil de carga: Quantidade de apostadores deve ser maior que zero");
+		this.apostadores = apostadores;
+		return this;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostadores distintos
+	 * @return a quantidade de apostadores
+	 */
+	public int getApostadores() {
+		return this.apostadores;
+	}
+
+	/**
+	 * Método responsável por alterar o expoente da distribuição de Zipf
+	 * @param expoente : expoente, maior que zero
+	 * @return o próprio perfil
+	 */
+	public PerfilCarga setExpoente(double expoente) {
+		if (!(expoente > 0) || Double.isInfinite(expoente))
+			throw new CampoInvalidoException("Erro no perfil de carga: Expoente deve ser maior que zero");
+		this.expoente = expoente;
+		return this;
+	}
+
+	/**
+	 * Método responsável por recuperar o expoente da distribuição de Zipf
+	 * @return o expoente
+	 */
+	public double getExpoente() {
+		return this.expoente;
+	}
+
+}
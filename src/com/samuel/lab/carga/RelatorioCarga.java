@@ -0,0 +1,205 @@
+package com.samuel.lab.carga;
+
+import java.util.Arrays;
+
+import com.samuel.lab.exception.CampoInvalidoException;
+
+/**
+ * Resultado da reprodução de um roteiro: a vazão, os erros e os percentis de
+ * latência das operações medidas, no total e por tipo de operação. As latências
+ * são guardadas em nanossegundos e os percentis são calculados pelo posto mais
+ * próximo.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class RelatorioCarga {
+
+	/**
+	 * Percentis exibidos no relatório textual
+	 */
+	private static final double[] PERCENTIS = { 50, 90, 99, 99.9, 100 };
+
+	/**
+	 * Rótulo de cada percentil exibido
+	 */
+	private static final String[] ROTULOS = { "p50", "p90", "p99", "p99,9", "max" };
+
+	/**
+	 * Latências de todas as operações, ordenadas
+	 */
+	private final long[] latencias;
+
+	/**
+	 * Latências de cada tipo de operação, ordenadas e indexadas pelo ordinal
+	 */
+	private final long[][] latenciasPorOperacao;
+
+	/**
+	 * Quantidade de erros de cada tipo de operação
+	 */
+	private final int[] errosPorOperacao;
+
+	/**
+	 * Quantidade total de erros
+	 */
+	private final int erros;
+
+	/**
+	 * Duração da medição em nanossegundos
+	 */
+	private final long duracao;
+
+	/**
+	 * Inicializa o relatório da reprodução das operações medidas de um roteiro
+	 * @param roteiro : roteiro reproduzido
+	 * @param latencias : latência de cada operação medida, na ordem do roteiro
+	 * @param falhas : indica se cada operação medida falhou
+	 * @param duracao : duração da medição em nanossegundos
+	 */
+	public RelatorioCarga(Roteiro roteiro, long[] latencias, boolean[] falhas, long duracao) {
+		int tipos = Operacao.values().length;
+		int inicio = roteiro.getPreparacao();
+		int[] quantidades = new int[tipos];
+		for (int i = 0; i < latencias.length; i++) {
+			quantidades[roteiro.getOperacao(inicio + i).ordinal()]++;
+		}
+		this.latenciasPorOperacao = new long[tipos][];
+		for (int tipo = 0; tipo < tipos; tipo++) {
+			this.latenciasPorOperacao[tipo] = new long[quantidades[tipo]];
+		}
+		this.errosPorOperacao = new int[tipos];
+		int[] posicoes = new int[tipos];
+		int erros = 0;
+		for (int i = 0; i < latencias.length; i++) {
+			int tipo = roteiro.getOperacao(inicio + i).ordinal();
+			this.latenciasPorOperacao[tipo][posicoes[tipo]++] = latencias[i];
+			if (falhas[i]) {
+				this.errosPorOperacao[tipo]++;
+				erros++;
+			}
+		}
+		for (long[] latenciasOperacao : this.latenciasPorOperacao) {
+			Arrays.sort(latenciasOperacao);
+		}
+		this.latencias = latencias.clone();
+		Arrays.sort(this.latencias);
+		this.erros = erros;
+		this.duracao = duracao;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações medidas
+	 * @return a quantidade de operações
+	 */
+	public int getOperacoes() {
+		return this.latencias.length;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações de um tipo
+	 * @param operacao : tipo de operação
+	 * @return a quantidade de operações do tipo
+	 */
+	public int getOperacoes(Operacao operacao) {
+		return this.latenciasPorOperacao[operacao.ordinal()].length;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações que falharam
+	 * @return a quantidade de erros
+	 */
+	public int getErros() {
+		return this.erros;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações de um tipo que
+	 * falharam
+	 * @param operacao : tipo de operação
+	 * @return a quantidade de erros do tipo
+	 */
+	public int getErros(Operacao operacao) {
+		return this.errosPorOperacao[operacao.ordinal()];
+	}
+
+	/**
+	 * Método responsável por recuperar a duração da medição
+	 * @return a duração em nanossegundos
+	 */
+	public long getDuracao() {
+		return this.duracao;
+	}
+
+	/**
+	 * Método responsável por calcular a vazão da medição
+	 * @return a quantidade de operações por segundo
+	 */
+	public double getVazao() {
+		return this.duracao == 0 ? 0 : this.latencias.length * 1e9 / this.duracao;
+	}
+
+	/**
+	 * Método responsável por recuperar um percentil da latência de todas as
+	 * operações
+	 * @param percentil : percentil, maior que 0 e até 100
+	 * @return a latência em nanossegundos, ou 0 caso não haja operações
+	 */
+	public long getPercentil(double percentil) {
+		return percentil(this.latencias, percentil);
+	}
+
+	/**
+	 * Método responsável por recuperar um percentil da latência de um tipo de
+	 * operação
+	 * @param operacao : tipo de operação
+	 * @param percentil : percentil, maior que 0 e até 100
+	 * @return a latência em nanossegundos, ou 0 caso não haja operações do tipo
+	 */
+	public long getPercentil(Operacao operacao, double percentil) {
+		return percentil(this.latenciasPorOperacao[operacao.ordinal()], percentil);
+	}
+
+	/**
+	 * Método responsável por calcular o percentil de latências ordenadas
+	 */
+	private static long percentil(long[] ordenadas, double percentil) {
+		if (!(percentil > 0 && percentil <= 100))
+			throw new CampoInvalidoException("Erro no relatorio de carga: Percentil deve estar entre 0 e 100");
+		if (ordenadas.length == 0)
+			return 0;
+		int posicao = (int) Math.ceil(percentil / 100 * ordenadas.length) - 1;
+		return ordenadas[Math.max(0, Math.min(posicao, ordenadas.length - 1))];
+	}
+
+	/**
+	 * Método responsável por gerar o relatório textual, com as latências em
+	 * microssegundos
+	 * @return o relatório, com uma linha para o total e uma por tipo de operação
+	 */
+	@Override
+	public String toString() {
+		StringBuilder relatorio = new StringBuilder(String.format("Operacoes: %d - Erros: %d - Duracao: %.3f s - Vazao: %.1f op/s",
+				this.getOperacoes(), this.erros, this.duracao / 1e9, this.getVazao()));
+		relatorio.append(System.lineSeparator()).append(this.linha("Total", this.latencias, this.erros));
+		for (Operacao operacao : Operacao.values()) {
+			long[] latenciasOperacao = this.latenciasPorOperacao[operacao.ordinal()];
+			if (latenciasOperacao.length > 0)
+				relatorio.append(System.lineSeparator())
+						.append(this.linha(operacao.name(), latenciasOperacao, this.errosPorOperacao[operacao.ordinal()]));
+		}
+		return relatorio.toString();
+	}
+
+	/**
+	 * Método responsável por gerar a linha de um grupo de operações
+	 */
+	private String linha(String nome, long[] ordenadas, int erros) {
+		StringBuilder linha = new StringBuilder(String.format("%s: %d op - %d erros", nome, ordenadas.length, erros));
+		for (int i = 0; i < PERCENTIS.length; i++) {
+			linha.append(String.format(" - %s %.1f us", ROTULOS[i], percentil(ordenadas, PERCENTIS[i]) / 1e3));
+		}
+		return linha.toString();
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.samuel.lab.carga;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.samuel.lab.exception.CampoInvalidoException;
+import com.samuel.lab.model.Facade;
+import com.samuel.lab.model.SistemadeApostas;
+
+/**
+ * Reproduz um roteiro de carga em um SistemadeApostas recém inicializado e mede
+ * a latência de cada operação. A preparação do roteiro é executada antes da
+ * medição, por uma única thread.
+ *
+ * No ciclo fechado, cada thread só envia uma operação depois que a anterior
+ * terminou, e a latência é medida a partir do envio. Com uma taxa alvo, cada
+ * thread espaça os seus envios para que o conjunto não passe da taxa.
+ *
+ * No ciclo aberto, a operação i é agendada para o instante i / taxa a partir do
+ * início, independente de quando as anteriores terminam, e a latência é medida
+ * a partir do instante agendado. Assim, o atraso de uma operação que esperou por
+ * uma thread livre entra na sua latência, em vez de reduzir a taxa de envio.
+ *
+ * Com mais de uma thread, operações vizinhas do roteiro podem ser executadas
+ * fora de ordem, como uma aposta em um cenário cujo cadastro ainda não
+ * terminou. Essas operações falham e são contadas como erros no relatório.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ReproducaoCarga {
+
+	/**
+	 * Sistema onde o roteiro é reproduzido
+	 */
+	private final SistemadeApostas sistema;
+
+	/**
+	 * Roteiro reproduzido
+	 */
+	private final Roteiro roteiro;
+
+	/**
+	 * Indica se o roteiro já foi reproduzido
+	 */
+	private boolean reproduzido;
+
+	/**
+	 * Inicializa a reprodução de um roteiro
+	 * @param sistema : sistema recém inicializado, sem cenários
+	 * @param roteiro : roteiro que será reproduzido
+	 */
+	public ReproducaoCarga(SistemadeApostas sistema, Roteiro roteiro) {
+		if (sistema == null)
+			throw new CampoInvalidoException("Erro na reproducao de carga: Sistema nao pode ser nulo");
+		if (roteiro == null)
+			throw new CampoInvalidoException("Erro na reproducao de carga: Roteiro nao pode ser nulo");
+		this.sistema = sistema;
+		this.roteiro = roteiro;
+	}
+
+	/**
+	 * Método responsável por reproduzir o roteiro em ciclo fechado
+	 * @param threads : quantidade de threads que enviam operações
+	 * @param taxa : taxa alvo em operações por segundo, ou 0 para enviar sem espera
+	 * @return o relatório da reprodução
+	 * @throws InterruptedException
+	 *             caso a thread seja interrompida enquanto espera a reprodução
+	 */
+	public RelatorioCarga executarCicloFechado(int threads, double taxa) throws InterruptedException {
+		if (!(taxa >= 0) || Double.isInfinite(taxa))
+			throw new CampoInvalidoException("Erro na reproducao de carga: Taxa nao pode ser negativa");
+		return this.executar(threads, taxa, false);
+	}
+
+	/**
+	 * Método responsável por reproduzir o roteiro em ciclo aberto
+	 * @param threads : quantidade de threads que enviam operações
+	 * @param taxa : taxa alvo em operações por segundo, maior que zero
+	 * @return o relatório da reprodução
+	 * @throws InterruptedException
+	 *             caso a thread seja interrompida enquanto espera a reprodução
+	 */
+	public RelatorioCarga executarCicloAberto(int threads, double taxa) throws InterruptedException {
+		if (!(taxa > 0) || Double.isInfinite(taxa))
+			throw new CampoInvalidoException("Erro na reproducao de carga: Taxa deve ser maior que zero");
+		return this.executar(threads, taxa, true);
+	}
+
+	/**
+	 * Método responsável por executar a preparação e medir as demais operações
+	 */
+	private synchronized RelatorioCarga executar(int threads, double taxa, boolean aberto)
+			throws InterruptedException {
+		if (threads <= 0)
+			throw new CampoInvalidoException("Erro na reproducao de carga: Quantidade de threads deve ser maior que zero");
+		if (this.reproduzido)
+			throw new CampoInvalidoException("Erro na reproducao de carga: Roteiro ja reproduzido");
+		this.reproduzido = true;
+		int preparacao = this.roteiro.getPreparacao();
+		for (int i = 0; i < preparacao; i++) {
+			this.roteiro.executar(i, this.sistema);
+		}
+
+		int quantidade = this.roteiro.getTamanho() - preparacao;
+		long[] latencias = new long[quantidade];
+		boolean[] falhas = new boolean[quantidade];
+		AtomicInteger proximo = new AtomicInteger();
+		double intervalo = taxa > 0 ? 1e9 / taxa : 0;
+		long inicio = System.nanoTime();
+		Thread[] trabalhadores = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			trabalhadores[t] = new Thread(() -> {
+				long enviadas = 0;
+				int i;
+				while ((i = proximo.getAndIncrement()) < quantidade) {
+					long referencia;
+					if (aberto) {
+						referencia = inicio + (long) (i * intervalo);
+						espera(referencia);
+					} else {
+						if (intervalo > 0)
+							espera(inicio + (long) (enviadas++ * intervalo * threads));
+						referencia = System.nanoTime();
+					}
+					try {
+						this.roteiro.executar(preparacao + i, this.sistema);
+					} catch (RuntimeException e) {
+						falhas[i] = true;
+					}
+					latencias[i] = System.nanoTime() - referencia;
+				}
+			}, "reproducao-carga-" + t);
+			trabalhadores[t].start();
+		}
+		for (Thread trabalhador : trabalhadores) {
+			trabalhador.join();
+		}
+		return new RelatorioCarga(this.roteiro, latencias, falhas, System.nanoTime() - inicio);
+	}
+
+	/**
+	 * Método responsável por esperar até um instante de System.nanoTime
+	 */
+	private static void espera(long instante) {
+		long restante;
+		while ((restante = instante - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(restante);
+		}
+	}
+
+	/**
+	 * Gera e reproduz uma carga em uma Facade nova e exibe o relatório. Os
+	 * argumentos, todos opcionais, são: semente, quantidade de operações, ciclo
+	 * ("fechado" ou "aberto"), quantidade de threads e taxa alvo em operações por
+	 * segundo
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		long semente = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		PerfilCarga perfil = new PerfilCarga();
+		if (args.length > 1)
+			perfil.setOperacoes(Integer.parseInt(args[1]));
+		boolean aberto = args.length > 2 && args[2].equals("aberto");
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+		double taxa = args.length > 4 ? Double.parseDouble(args[4]) : aberto ? 10000 : 0;
+
+		Facade facade = new Facade();
+		facade.inicializa(0, 0.01);
+		ReproducaoCarga reproducao = new ReproducaoCarga(facade, new GeradorCarga(perfil, semente).gerar());
+		RelatorioCarga relatorio = aberto ? reproducao.executarCicloAberto(threads, taxa)
+				: reproducao.executarCicloFechado(threads, taxa);
+		System.out.println(relatorio);
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.samuel.lab.carga;
+
+import com.samuel.lab.model.SistemadeApostas;
+
+/**
+ * Sequência de operações de uma carga sintética, gerada pelo GeradorCarga. As
+ * operações ficam em colunas de tipos primitivos, uma posição por operação,
+ * para que roteiros com milhões de operações ocupem pouca memória e não criem
+ * objetos durante a reprodução. As primeiras operações do roteiro formam a
+ * preparação, que cadastra os cenários iniciais e não é medida.
+ *
+ * Os ids de cenário do roteiro são os ids que os cenários recebem quando o
+ * roteiro é reproduzido, na ordem, em um sistema recém inicializado.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class Roteiro {
+
+	/**
+	 * Operações, para conversão dos ordinais guardados
+	 */
+	private static final Operacao[] OPERACOES = Operacao.values();
+
+	/**
+	 * Ordinal da operação de cada posição
+	 */
+	private final byte[] operacoes;
+
+	/**
+	 * Id do cenário de cada operação
+	 */
+	private final int[] cenarios;
+
+	/**
+	 * Índice do apostador das apostas
+	 */
+	private final int[] apostadores;
+
+	/**
+	 * Valor das apostas, bônus dos cenários, novo seguro ou nova taxa em
+	 * milésimos das alterações
+	 */
+	private final int[] valores;
+
+	/**
+	 * Seguro das apostas asseguradas por valor, taxa em milésimos das asseguradas
+	 * por taxa ou id da aposta alterada
+	 */
+	private final int[] argumentos;
+
+	/**
+	 * Custo das apostas asseguradas
+	 */
+	private final int[] custos;
+
+	/**
+	 * Previsão das apostas ou se o cenário fechado ocorreu
+	 */
+	private final boolean[] acontece;
+
+	/**
+	 * Nome de cada apostador
+	 */
+	private final String[] nomes;
+
+	/**
+	 * Quantidade de operações do roteiro
+	 */
+	private int tamanho;
+
+	/**
+	 * Quantidade de operações da preparação
+	 */
+	private int preparacao;
+
+	/**
+	 * Inicializa um roteiro vazio
+	 * @param apostadores : quantidade de apostadores distintos
+	 * @param capacidade : quantidade de operações do roteiro
+	 */
+	Roteiro(int apostadores, int capacidade) {
+		this.operacoes = new byte[capacidade];
+		this.cenarios = new int[capacidade];
+		this.apostadores = new int[capacidade];
+		this.valores = new int[capacidade];
+		this.argumentos = new int[capacidade];
+		this.custos = new int[capacidade];
+		this.acontece = new boolean[capacidade];
+		this.nomes = new String[apostadores];
+		for (int i = 0; i < apostadores; i++) {
+			this.nomes[i] = "Apostador " + i;
+		}
+	}
+
+	/**
+	 * Método responsável por adicionar uma operação ao fim do roteiro
+	 */
+	void adicionar(Operacao operacao, int cenario, int apostador, int valor, int argumento, int custo,
+			boolean acontece) {
+		int posicao = this.tamanho++;
+		this.operacoes[posicao] = (byte) operacao.ordinal();
+		this.cenarios[posicao] = cenario;
+		this.apostadores[posicao] = apostador;
+		this.valores[posicao] = valor;
+		this.argumentos[posicao] = argumento;
+		this.custos[posicao] = custo;
+		this.acontece[posicao] = acontece;
+	}
+
+	/**
+	 * Método responsável por encerrar a preparação: as operações adicionadas até
+	 * aqui não serão medidas
+	 */
+	void encerrarPreparacao() {
+		this.preparacao = this.tamanho;
+	}
+
+	/**
+	 * Método responsável por executar uma operação do roteiro em um sistema
+	 * @param posicao : posição da operação
+	 * @param sistema : sistema onde a operação será executada
+	 */
+	public void executar(int posicao, SistemadeApostas sistema) {
+		int cenario = this.cenarios[posicao];
+		switch (OPERACOES[this.operacoes[posicao]]) {
+		case CADASTRAR_CENARIO:
+			sistema.cadastrarCenario("Cenario " + cenario);
+			break;
+		case CADASTRAR_CENARIO_BONUS:
+			sistema.cadastrarCenario("Cenario " + cenario, this.valores[posicao]);
+			break;
+		case APOSTAR:
+			sistema.cadastrarAposta(cenario, this.getApostador(posicao), this.valores[posicao],
+					this.getPrevisao(posicao));
+			break;
+		case APOSTAR_SEGURO_VALOR:
+			sistema.cadastrarApostaSeguraValor(cenario, this.getApostador(posicao), this.valores[posicao],
+					this.getPrevisao(posicao), this.argumentos[posicao], this.custos[posicao]);
+			break;
+		case APOSTAR_SEGURO_TAXA:
+			sistema.cadastrarApostaSeguraTaxa(cenario, this.getApostador(posicao), this.valores[posicao],
+					this.getPrevisao(posicao), this.argumentos[posicao] / 1000.0, this.custos[posicao]);
+			break;
+		case ALTERAR_SEGURO_VALOR:
+			sistema.alterarSeguroValor(cenario, this.argumentos[posicao], this.valores[posicao]);
+			break;
+		case ALTERAR_SEGURO_TAXA:
+			sistema.alterarSeguroTaxa(cenario, this.argumentos[posicao], this.valores[posicao] / 1000.0);
+			break;
+		case FECHAR_CENARIO:
+			sistema.fecharAposta(cenario, this.acontece[posicao]);
+			break;
+		case CONSULTAR_TOTAL:
+			sistema.valorTotalDeApostasLong(cenario);
+			break;
+		case EXIBIR_CENARIO:
+			sistema.exibirCenario(cenario);
+			break;
+		case CONSULTAR_CAIXA:
+			sistema.getCaixaCenarioLong(cenario);
+			break;
+		}
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações do roteiro
+	 * @return a quantidade de operações, incluindo a preparação
+	 */
+	public int getTamanho() {
+		return this.tamanho;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de operações da preparação
+	 * @return a quantidade de operações que antecedem a medição
+	 */
+	public int getPreparacao() {
+		return this.preparacao;
+	}
+
+	/**
+	 * Método responsável por recuperar a operação de uma posição
+	 * @param posicao : posição da operação
+	 * @return a operação
+	 */
+	public Operacao getOperacao(int posicao) {
+		return OPERACOES[this.operacoes[posicao]];
+	}
+
+	/**
+	 * Método responsável por recuperar o cenário de uma operação
+	 * @param posicao : posição da operação
+	 * @return o id do cenário
+	 */
+	public int getCenario(int posicao) {
+		return this.cenarios[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o apostador de uma operação
+	 * @param posicao : posição da operação
+	 * @return o nome do apostador
+	 */
+	public String getApostador(int posicao) {
+		return this.nomes[this.apostadores[posicao]];
+	}
+
+	/**
+	 * Método responsável por recuperar o valor de uma operação
+	 * @param posicao : posição da operação
+	 * @return o valor da aposta, o bônus do cenário ou o novo seguro ou taxa em
+	 *         milésimos da alteração
+	 */
+	public int getValor(int posicao) {
+		return this.valores[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o argumento de uma operação
+	 * @param posicao : posição da operação
+	 * @return o seguro, a taxa em milésimos ou o id da aposta alterada
+	 */
+	public int getArgumento(int posicao) {
+		return this.argumentos[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o custo de uma aposta assegurada
+	 * @param posicao : posição da operação
+	 * @return o custo da aposta
+	 */
+	public int getCusto(int posicao) {
+		return this.custos[posicao];
+	}
+
+	/**
+	 * Método responsável por indicar a previsão de uma aposta ou se um cenário
+	 * fechado ocorreu
+	 * @param posicao : posição da operação
+	 * @return true caso a aposta preveja que o cenário vai acontecer, ou caso o
+	 *         cenário fechado tenha ocorrido
+	 */
+	public boolean isAcontece(int posicao) {
+		return this.acontece[posicao];
+	}
+
+	/**
+	 * Método responsável por converter a previsão de uma aposta
+	 */
+	private String getPrevisao(int posicao) {
+		return this.acontece[posicao] ? "VAI ACONTECER" : "N VAI ACONTECER";
+	}
+
+}
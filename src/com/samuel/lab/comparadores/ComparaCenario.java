@@ -15,13 +15,24 @@ public class ComparaCenario implements Comparator<Cenario>{
 	/**
 	 * Ordem utilizada para a ordenação dos cenários
 	 */
-	private String ordem;
+	private volatile String ordem;
 	
 	
+	/**
+	 * Inicializa o comparador na ordem de cadastro
+	 */
 	public ComparaCenario() {
 		this.ordem = "cadastro";
 	}
 
+	/**
+	 * Inicializa o comparador em uma ordem específica
+	 * @param ordem : Uma String representando a ordem ("cadastro", "nome" ou "apostas")
+	 */
+	public ComparaCenario(String ordem) {
+		this.setOrdem(ordem);
+	}
+
 	/**
 	 * Método responsável por comparar dois cenários de acordo com uma ordem específica.
 	 */
@@ -51,4 +62,12 @@ public class ComparaCenario implements Comparator<Cenario>{
 		this.ordem = ordem;
 	}
 
+	/**
+	 * Método responsável por recuperar a ordem utilizada pelo comparador
+	 * @return : Uma String representando a ordem atual
+	 */
+	public String getOrdem() {
+		return this.ordem;
+	}
+
 }
@@ -1,10 +1,16 @@
 package com.samuel.lab.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.samuel.lab.estruturas.ColunasApostas;
+import com.samuel.lab.estruturas.RegistrosApostas;
+import com.samuel.lab.estruturas.TabelaApostadores;
 import com.samuel.lab.exception.ApostaNaoCadastradaException;
 import com.samuel.lab.exception.CampoInvalidoException;
 import com.samuel.lab.exception.CenarioSemApostasException;
@@ -12,44 +18,112 @@ import com.samuel.lab.model.Aposta;
 import com.samuel.lab.model.ApostaAssegurada;
 import com.samuel.lab.model.ApostaSeguroTaxa;
 import com.samuel.lab.model.ApostaSeguroValor;
+import com.samuel.lab.model.DestinoPagamentos;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.ResultadoLote;
+import com.samuel.lab.model.TaxaFixa;
 
+/**
+ * Classe responsável por controlar as apostas de um cenário. Os cadastros e
+ * alterações devem ser feitos com o monitor do cenário dono do controlador, que
+ * também protege a exibição das apostas; os totais podem ser lidos a qualquer
+ * momento sem bloqueio.
+ * 
+ * As apostas ficam no heap por padrão. Cenários com muitas apostas podem
+ * movê-las para registros fora do heap com armazenarForaDoHeap; a partir daí as
+ * apostas simples e asseguradas só existem nos registros.
+ * 
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
 public class ApostaController {
 	
 	/**
-	 * Representa todas as apostas cadastradas no cenário
+	 * Representa todas as apostas simples cadastradas no cenário, armazenadas em
+	 * colunas
 	 */
-	private List<Aposta> apostas;
+	private ColunasApostas apostas;
 
 	/**
-	 * Representa todas as apostas asseguradas
+	 * Representa todas as apostas asseguradas. A aposta de id n fica na posição
+	 * n - 1, já que os ids são gerados em sequência a partir de 1
 	 */
+	private ApostaAssegurada[] apostasAsseguradas;
 
-	private Map<Integer, ApostaAssegurada> apostasAsseguradas;
+	/**
+	 * Representa a quantidade de apostas asseguradas cadastradas, que é também o id
+	 * da última aposta assegurada
+	 */
+	private int quantidadeAsseguradas;
 
 	/**
-	 * Um inteiro usado como base para o cadastramento de apostas asseguradas
+	 * Representa as apostas simples quando elas são guardadas fora do heap, ou
+	 * null quando elas estão nas colunas
 	 */
-	private int idBaseAsseguradas;
+	private RegistrosApostas registrosSimples;
+
+	/**
+	 * Representa as apostas asseguradas quando elas são guardadas fora do heap, ou
+	 * null quando elas estão no vetor. A aposta de id n fica na posição n - 1
+	 */
+	private RegistrosApostas registrosAsseguradas;
 	
 	
 	/**
-	 * Representa o valor total das apostas cadastradas 
+	 * Representa o valor total das apostas cadastradas. Este e os demais totais são
+	 * contadores distribuídos, que podem ser lidos sem bloquear quem cadastra
+	 * apostas
 	 */
-	private int valorTotal;
+	private LongAdder valorTotal;
 	
 	/**
 	 * Representa a quantidade de apostas cadastradas
 	 */
-	private int quantidadeApostas;
+	private LongAdder quantidadeApostas;
+
+	/**
+	 * Representa o valor total das apostas (simples e asseguradas) que preveem que
+	 * o cenário vai acontecer
+	 */
+	private LongAdder valorAcontece;
+
+	/**
+	 * Representa o valor total das apostas (simples e asseguradas) que preveem que
+	 * o cenário não vai acontecer
+	 */
+	private LongAdder valorNaoAcontece;
+
+	/**
+	 * Representa o valor total dos seguros das apostas asseguradas que preveem
+	 * que o cenário vai acontecer
+	 */
+	private LongAdder seguroAcontece;
+
+	/**
+	 * Representa o valor total dos seguros das apostas asseguradas que preveem
+	 * que o cenário não vai acontecer
+	 */
+	private LongAdder seguroNaoAcontece;
+
+	/**
+	 * Representa o custo total das apostas asseguradas
+	 */
+	private LongAdder custos;
 
 	/**
 	 * Método responsável por inicializar o controlador de aposta
 	 */
 	public ApostaController() {
-		this.apostas = new ArrayList<>();
-		this.apostasAsseguradas = new HashMap<>();
-		this.idBaseAsseguradas = 1;
-		this.valorTotal =0;
+		this.apostas = new ColunasApostas();
+		this.apostasAsseguradas = new ApostaAssegurada[8];
+		this.quantidadeAsseguradas = 0;
+		this.valorTotal = new LongAdder();
+		this.quantidadeApostas = new LongAdder();
+		this.valorAcontece = new LongAdder();
+		this.valorNaoAcontece = new LongAdder();
+		this.seguroAcontece = new LongAdder();
+		this.seguroNaoAcontece = new LongAdder();
+		this.custos = new LongAdder();
 	}
 	
 	/**
@@ -65,17 +139,191 @@ public class ApostaController {
 	public void cadastrar(String apostador, int valor, String previsao) {
 		if (previsao == null || previsao.trim().isEmpty())
 			throw new CampoInvalidoException("Erro no cadastro de aposta: Previsao nao pode ser vazia ou nula");
-		Aposta aposta = null;
-		if (previsao.equals("VAI ACONTECER")) {
-			aposta = new Aposta(apostador, valor, true);
-		} else if (previsao.equals("N VAI ACONTECER")) {
-			aposta = new Aposta(apostador, valor, false);
+		boolean previsaoBool = this.verificaPrevisao(previsao);
+		Aposta.valida(apostador, valor);
+		this.guardaSimples(apostador, valor, previsaoBool);
+		this.valorTotal.add(valor);
+		this.quantidadeApostas.increment();
+		this.acumulaValor(valor, previsaoBool);
+	}
+
+	/**
+	 * Método responsável por somar o valor de uma aposta ao total do lado que ela
+	 * prevê
+	 * 
+	 * @param valor
+	 *            : Valor da aposta que foi cadastrada
+	 * @param previsao
+	 *            : Previsão da aposta que foi cadastrada
+	 */
+	private void acumulaValor(int valor, boolean previsao) {
+		if (previsao) {
+			this.valorAcontece.add(valor);
 		} else {
-			throw new CampoInvalidoException("Erro no cadastro de aposta: Previsao invalida");
+			this.valorNaoAcontece.add(valor);
 		}
-		this.apostas.add(aposta);
-		this.valorTotal += aposta.getValor();
-		this.quantidadeApostas++;
+	}
+
+	/**
+	 * Método responsável por somar o seguro e o custo de uma aposta assegurada aos
+	 * totais do controlador
+	 * 
+	 * @param aposta
+	 *            : Aposta assegurada que foi cadastrada
+	 */
+	private void acumulaAssegurada(ApostaAssegurada aposta) {
+		this.acumulaValor(aposta.getValor(), aposta.isAcontece());
+		this.acumulaSeguro(aposta, 1);
+		this.custos.add(aposta.getCusto());
+	}
+
+	/**
+	 * Método responsável por somar ou subtrair o seguro de uma aposta do total do
+	 * lado que ela prevê. O seguro de cada aposta é truncado para centavos, assim
+	 * como no somatório feito aposta por aposta.
+	 * 
+	 * @param aposta
+	 *            : Aposta assegurada
+	 * @param sinal
+	 *            : 1 para somar o seguro, -1 para subtrair
+	 */
+	private void acumulaSeguro(ApostaAssegurada aposta, int sinal) {
+		long seguro = sinal * aposta.getSeguro();
+		if (aposta.isAcontece()) {
+			this.seguroAcontece.add(seguro);
+		} else {
+			this.seguroNaoAcontece.add(seguro);
+		}
+	}
+
+	/**
+	 * Método responsável por substituir uma aposta assegurada mantendo os totais de
+	 * seguro atualizados
+	 * 
+	 * @param idAposta
+	 *            : id da aposta que será substituída
+	 * @param antiga
+	 *            : Aposta que está cadastrada
+	 * @param nova
+	 *            : Aposta que tomará o seu lugar
+	 */
+	private void substituiAssegurada(int idAposta, ApostaAssegurada antiga, ApostaAssegurada nova) {
+		this.acumulaSeguro(antiga, -1);
+		if (this.registrosAsseguradas == null) {
+			this.apostasAsseguradas[idAposta - 1] = nova;
+		} else if (nova instanceof ApostaSeguroTaxa) {
+			this.registrosAsseguradas.alterarSeguroTaxa(idAposta - 1, ((ApostaSeguroTaxa) nova).getTaxaFixa());
+		} else {
+			this.registrosAsseguradas.alterarSeguroValor(idAposta - 1, (int) nova.getSeguro());
+		}
+		this.acumulaSeguro(nova, 1);
+	}
+
+	/**
+	 * Método responsável por guardar uma aposta simples onde as apostas do
+	 * controlador estão armazenadas
+	 * 
+	 * @param apostador
+	 *            : Nome do apostador
+	 * @param valor
+	 *            : Valor da aposta
+	 * @param previsao
+	 *            : Previsão da aposta
+	 */
+	private void guardaSimples(String apostador, int valor, boolean previsao) {
+		if (this.registrosSimples == null) {
+			this.apostas.adicionar(apostador, valor, previsao);
+		} else {
+			this.registrosSimples.adicionar(TabelaApostadores.getInstancia().id(apostador), valor, previsao);
+		}
+	}
+
+	/**
+	 * Método responsável por guardar uma aposta assegurada no próximo id, sem
+	 * atualizar os totais
+	 * 
+	 * @param aposta
+	 *            : Aposta assegurada
+	 */
+	private void guardaAssegurada(ApostaAssegurada aposta) {
+		if (this.registrosAsseguradas == null) {
+			if (this.quantidadeAsseguradas == this.apostasAsseguradas.length)
+				this.apostasAsseguradas = Arrays.copyOf(this.apostasAsseguradas, this.quantidadeAsseguradas * 2);
+			this.apostasAsseguradas[this.quantidadeAsseguradas] = aposta;
+		} else if (aposta instanceof ApostaSeguroTaxa) {
+			this.registrosAsseguradas.adicionarSeguroTaxa(aposta.getIdApostador(), aposta.getValor(),
+					aposta.isAcontece(), ((ApostaSeguroTaxa) aposta).getTaxaFixa(), aposta.getCusto());
+		} else {
+			this.registrosAsseguradas.adicionarSeguroValor(aposta.getIdApostador(), aposta.getValor(),
+					aposta.isAcontece(), (int) aposta.getSeguro(), aposta.getCusto());
+		}
+		this.quantidadeAsseguradas++;
+	}
+
+	/**
+	 * Método responsável por reservar espaço para novas apostas, de modo que um
+	 * lote cresça o armazenamento uma única vez
+	 * 
+	 * @param simples
+	 *            : Quantidade de apostas simples que serão guardadas
+	 * @param asseguradas
+	 *            : Quantidade de apostas asseguradas que serão guardadas
+	 */
+	private void reserva(int simples, int asseguradas) {
+		if (this.registrosSimples == null) {
+			this.apostas.garantirCapacidade(simples);
+		} else {
+			this.registrosSimples.garantirCapacidade(simples);
+		}
+		if (this.registrosAsseguradas != null) {
+			this.registrosAsseguradas.garantirCapacidade(asseguradas);
+			return;
+		}
+		int capacidade = this.quantidadeAsseguradas + asseguradas;
+		if (capacidade > this.apostasAsseguradas.length)
+			this.apostasAsseguradas = Arrays.copyOf(this.apostasAsseguradas,
+					Math.max(capacidade, this.apostasAsseguradas.length * 2));
+	}
+
+	/**
+	 * Método responsável por criar a aposta simples de uma posição
+	 * 
+	 * @param posicao
+	 *            : Posição da aposta, na ordem de cadastro
+	 * @return a aposta
+	 */
+	private Aposta simples(int posicao) {
+		return this.registrosSimples == null ? this.apostas.get(posicao) : this.registrosSimples.get(posicao);
+	}
+
+	/**
+	 * Método responsável por guardar uma aposta assegurada no próximo id livre
+	 * 
+	 * @param aposta
+	 *            : Aposta assegurada que será cadastrada
+	 * @return o id da aposta cadastrada
+	 */
+	private int adicionaAssegurada(ApostaAssegurada aposta) {
+		this.guardaAssegurada(aposta);
+		this.valorTotal.add(aposta.getValor());
+		this.quantidadeApostas.increment();
+		this.acumulaAssegurada(aposta);
+		return this.quantidadeAsseguradas;
+	}
+
+	/**
+	 * Método responsável por recuperar uma aposta assegurada pelo seu id
+	 * 
+	 * @param idAposta
+	 *            : id da aposta
+	 * @return a aposta, ou null caso ela não esteja cadastrada
+	 */
+	private ApostaAssegurada getAssegurada(int idAposta) {
+		if (idAposta <= 0 || idAposta > this.quantidadeAsseguradas)
+			return null;
+		if (this.registrosAsseguradas != null)
+			return (ApostaAssegurada) this.registrosAsseguradas.get(idAposta - 1);
+		return this.apostasAsseguradas[idAposta - 1];
 	}
 	
 	/**
@@ -87,34 +335,21 @@ public class ApostaController {
 	 * @return Um valor inteiroi representando o tatal em centavos do valor que será
 	 *         adicionado ao sistema
 	 */
-	public int calculaCaixaPerdedoras(boolean ocorreu, double taxa) {
-		int valor = 0;
-		for (Aposta aposta : this.apostas) {
-			if (aposta.isAcontece()) {
-				if (!ocorreu) {
-					valor += aposta.getValor();
-				}
-			} else {
-				if (ocorreu) {
-					valor += aposta.getValor();
-				}
-			}
+	public long calculaCaixaPerdedoras(boolean ocorreu, double taxa) {
+		return this.calculaCaixaPerdedoras(ocorreu, TaxaFixa.converter(taxa));
+	}
 
-		}
-		
-		for(ApostaAssegurada aposta : this.apostasAsseguradas.values()) {
-			if (aposta.isAcontece()) {
-				if (!ocorreu) {
-					valor += aposta.getValor();
-				}
-			} else {
-				if (ocorreu) {
-					valor += aposta.getValor();
-				}
-			}
-		}
-		valor = (int) Math.floor((valor * taxa));
-		return valor;
+	/**
+	 * Método responsável por calcular o valor do caixa de um cenário que será
+	 * destinado ao sistema, em aritmética inteira
+	 * 
+	 * @param taxa
+	 *            : A taxa que o sistema usa para o cálculo, em milionésimos
+	 * @return o valor em centavos que será adicionado ao sistema, arredondado para
+	 *         baixo
+	 */
+	public long calculaCaixaPerdedoras(boolean ocorreu, long taxa) {
+		return TaxaFixa.aplicar(this.calculaCaixa(ocorreu), taxa);
 	}
 
 	/**
@@ -122,31 +357,24 @@ public class ApostaController {
 	 * 
 	 * @return o valor do caixa de um cenário
 	 */
-	public int calculaCaixa(boolean ocorreu) {
-		int valor = 0;
-		valor = 0;
-		for (Aposta aposta : this.apostas) {
-			if (aposta.isAcontece()) {
-				if (!ocorreu) {
-					valor += aposta.getValor();
-				}
-			} else {
-				if (ocorreu) {
-					valor += aposta.getValor();
-				}
-			}
-		}
-		
-		for(Aposta aposta : this.apostasAsseguradas.values()) {
-			if (aposta.isAcontece()) {
-				if (!ocorreu) {
-					valor += aposta.getValor();
-				}
-			} else {
-				if (ocorreu) {
-					valor += aposta.getValor();
-				}
-			}
+	public long calculaCaixa(boolean ocorreu) {
+		return (ocorreu ? this.valorNaoAcontece : this.valorAcontece).sum();
+	}
+
+	/**
+	 * Método responsável por recalcular o caixa completo de um cenário percorrendo
+	 * todas as apostas. Serve para auditar os totais mantidos a cada cadastro
+	 * 
+	 * @return o valor do caixa de um cenário
+	 */
+	public long recalculaCaixa(boolean ocorreu) {
+		if (this.registrosSimples != null)
+			return Math.addExact(this.registrosSimples.somaValores(!ocorreu),
+					this.registrosAsseguradas.somaValores(!ocorreu));
+		long valor = this.apostas.somaValores(!ocorreu);
+		for (int i = 0; i < this.quantidadeAsseguradas; i++) {
+			if (this.apostasAsseguradas[i].isAcontece() != ocorreu)
+				valor = Math.addExact(valor, this.apostasAsseguradas[i].getValor());
 		}
 		return valor;
 	}
@@ -157,8 +385,8 @@ public class ApostaController {
 	 * @return um valor inteiro representando o valor total acumulado do cenário em
 	 *         centavos
 	 */
-	public int getValorTotal() {
-		return this.valorTotal;
+	public long getValorTotal() {
+		return this.valorTotal.sum();
 	}
 	
 	/**
@@ -168,32 +396,94 @@ public class ApostaController {
 	 * @return um String representando todas as Strings do cenário
 	 */
 	public String exibir() {
-		if (this.apostas.isEmpty() && this.apostasAsseguradas.isEmpty())
+		StringBuilder retorno = new StringBuilder();
+		try {
+			this.exibir(retorno);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return retorno.toString();
+	}
+
+	/**
+	 * Método responsável por escrever a representação textual de todas as apostas
+	 * de um cenário, uma aposta por linha, sem montar uma String intermediária
+	 * 
+	 * @param saida
+	 *            : Destino onde as apostas serão escritas
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	public void exibir(Appendable saida) throws IOException {
+		if (this.getQuantidadeSimples() == 0 && this.quantidadeAsseguradas == 0)
 			throw new CenarioSemApostasException();
-		String retorno = "";
-		for (Aposta aposta : this.apostas) {
-			if (retorno.isEmpty()) {
-				retorno = aposta.toString();
-			} else {
-				retorno += System.lineSeparator() + aposta.toString();
-			}
+		boolean primeira = true;
+		for (int i = 0; i < this.getQuantidadeSimples(); i++) {
+			primeira = escreveLinha(saida, this.simples(i).toString(), primeira);
 		}
-		for(Aposta aposta : this.apostasAsseguradas.values()) {
-			if (retorno.isEmpty()) {
-				retorno = aposta.toString();
+		for (int id = 1; id <= this.quantidadeAsseguradas; id++) {
+			primeira = escreveLinha(saida, this.getAssegurada(id).toString(), primeira);
+		}
+	}
+
+	/**
+	 * Método responsável por recuperar uma página das apostas do cenário. As apostas
+	 * seguem sempre a mesma ordem de exibir: primeiro as apostas simples, na ordem
+	 * de cadastro, e depois as asseguradas, na ordem de seus ids. Apenas as apostas
+	 * da página são visitadas.
+	 * 
+	 * @param inicio
+	 *            : Posição da primeira aposta da página, começando em 0
+	 * @param quantidade
+	 *            : Quantidade máxima de apostas da página
+	 * @return as apostas da página, vazia caso inicio esteja além da última aposta
+	 */
+	public List<Aposta> getApostas(int inicio, int quantidade) {
+		if (inicio < 0)
+			throw new CampoInvalidoException("Erro na consulta de apostas: Inicio nao pode ser negativo");
+		if (quantidade <= 0)
+			throw new CampoInvalidoException("Erro na consulta de apostas: Quantidade deve ser maior que zero");
+		int simples = this.getQuantidadeSimples();
+		int fim = (int) Math.min((long) inicio + quantidade, simples + this.quantidadeAsseguradas);
+		List<Aposta> pagina = new ArrayList<>(Math.max(fim - inicio, 0));
+		for (int i = inicio; i < fim; i++) {
+			if (i < simples) {
+				pagina.add(this.simples(i));
 			} else {
-				retorno += System.lineSeparator() + aposta.toString();
+				pagina.add(this.getAssegurada(i - simples + 1));
 			}
 		}
-		return retorno;
+		return pagina;
+	}
+
+	/**
+	 * Método responsável por escrever uma linha na saída, separando-a da linha
+	 * anterior
+	 * 
+	 * @param saida
+	 *            : Destino da linha
+	 * @param linha
+	 *            : Conteúdo da linha
+	 * @param primeira
+	 *            : Indica se é a primeira linha escrita
+	 * @return false, já que a próxima linha não será mais a primeira
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	static boolean escreveLinha(Appendable saida, String linha, boolean primeira) throws IOException {
+		if (!primeira)
+			saida.append(System.lineSeparator());
+		saida.append(linha);
+		return false;
 	}
 
 	/**
 	 * Método responsável por calcular a quantidade de apostas cadastradas em um cenário
-	 * @return
+	 * @return a quantidade de apostas
+	 * @throws ArithmeticException caso a quantidade não caiba em um int
 	 */
 	public int getQuantidade() {
-		return this.quantidadeApostas;
+		return Math.toIntExact(this.quantidadeApostas.sum());
 	}
 
 	/**
@@ -211,12 +501,7 @@ public class ApostaController {
 		
 		boolean previsaoBool = verificaPrevisao(previsao);
 		ApostaSeguroValor aposta  = new ApostaSeguroValor(apostador, valor, previsaoBool, seguro, custo);
-		//this.apostasSeguroValor.put(this.idBaseValor, aposta);
-		this.apostasAsseguradas.put(this.idBaseAsseguradas, aposta);
-		this.idBaseAsseguradas++;
-		this.valorTotal+= aposta.getValor();
-		this.quantidadeApostas++;
-		return this.idBaseAsseguradas - 1;
+		return this.adicionaAssegurada(aposta);
 	}
 
 	/**
@@ -254,12 +539,132 @@ public class ApostaController {
 		} else {
 			throw new CampoInvalidoException("Erro no cadastro de aposta: Previsao invalida");
 		}
-		this.valorTotal+= aposta.getValor();
-		//this.apostasSeguroTaxa.put(this.idBaseTaxa, aposta);
-		this.apostasAsseguradas.put(this.idBaseAsseguradas, aposta);
-		this.idBaseAsseguradas++;
-		this.quantidadeApostas++;
-		return idBaseAsseguradas - 1;
+		return this.adicionaAssegurada(aposta);
+	}
+
+	/**
+	 * Método responsável por cadastrar um lote de apostas. As apostas são
+	 * validadas em uma única passagem e as inválidas são registradas no resultado
+	 * sem interromper o lote. O espaço das apostas válidas é reservado de uma vez
+	 * e os totais do controlador são atualizados uma única vez por lote
+	 * @param lote : Apostas que serão cadastradas
+	 * @return o resultado do cadastro de cada aposta do lote
+	 */
+	public ResultadoLote cadastrar(LoteApostas lote) {
+		ResultadoLote resultado = new ResultadoLote(lote.tamanho());
+		int simples = 0;
+		int asseguradas = 0;
+		for (int i = 0; i < lote.tamanho(); i++) {
+			String erro = validaItem(lote, i);
+			if (erro != null) {
+				resultado.registrarErro(i, erro);
+			} else if (lote.getTipo(i) == LoteApostas.SIMPLES) {
+				simples++;
+			} else {
+				asseguradas++;
+			}
+		}
+		this.reserva(simples, asseguradas);
+
+		long valor = 0;
+		long valorAcontece = 0;
+		long seguroAcontece = 0;
+		long seguroNaoAcontece = 0;
+		long custos = 0;
+		for (int i = 0; i < lote.tamanho(); i++) {
+			if (!resultado.isCadastrada(i))
+				continue;
+			boolean previsao = lote.getPrevisao(i).equals("VAI ACONTECER");
+			valor = Math.addExact(valor, lote.getValor(i));
+			if (previsao)
+				valorAcontece = Math.addExact(valorAcontece, lote.getValor(i));
+			if (lote.getTipo(i) == LoteApostas.SIMPLES) {
+				this.guardaSimples(lote.getApostador(i), lote.getValor(i), previsao);
+				continue;
+			}
+			ApostaAssegurada aposta;
+			if (lote.getTipo(i) == LoteApostas.SEGURO_VALOR) {
+				aposta = new ApostaSeguroValor(lote.getApostador(i), lote.getValor(i), previsao, lote.getSeguro(i),
+						lote.getCusto(i));
+			} else {
+				aposta = new ApostaSeguroTaxa(lote.getApostador(i), lote.getValor(i), previsao, lote.getTaxa(i),
+						lote.getCusto(i));
+			}
+			this.guardaAssegurada(aposta);
+			resultado.registrarId(i, this.quantidadeAsseguradas);
+			if (previsao) {
+				seguroAcontece = Math.addExact(seguroAcontece, aposta.getSeguro());
+			} else {
+				seguroNaoAcontece = Math.addExact(seguroNaoAcontece, aposta.getSeguro());
+			}
+			custos = Math.addExact(custos, aposta.getCusto());
+		}
+		this.valorTotal.add(valor);
+		this.quantidadeApostas.add(simples + asseguradas);
+		this.valorAcontece.add(valorAcontece);
+		this.valorNaoAcontece.add(valor - valorAcontece);
+		this.seguroAcontece.add(seguroAcontece);
+		this.seguroNaoAcontece.add(seguroNaoAcontece);
+		this.custos.add(custos);
+		return resultado;
+	}
+
+	/**
+	 * Método responsável por validar uma aposta de um lote. As verificações e as
+	 * mensagens são as mesmas do cadastro individual de cada tipo de aposta, na
+	 * mesma ordem
+	 * @param lote : Lote da aposta
+	 * @param posicao : Posição da aposta no lote
+	 * @return a mensagem do primeiro erro encontrado, ou null caso a aposta seja
+	 *         válida
+	 */
+	private static String validaItem(LoteApostas lote, int posicao) {
+		String apostador = lote.getApostador(posicao);
+		int valor = lote.getValor(posicao);
+		String previsao = lote.getPrevisao(posicao);
+		boolean apostadorInvalido = apostador == null || apostador.trim().isEmpty();
+		boolean previsaoVazia = previsao == null || previsao.trim().isEmpty();
+		boolean previsaoInvalida = previsaoVazia
+				|| !(previsao.equals("VAI ACONTECER") || previsao.equals("N VAI ACONTECER"));
+		switch (lote.getTipo(posicao)) {
+		case LoteApostas.SIMPLES:
+			if (apostadorInvalido)
+				return "Erro no cadastro de aposta: Apostador nao pode ser vazio ou nulo";
+			if (previsaoVazia)
+				return "Erro no cadastro de aposta: Previsao nao pode ser vazia ou nula";
+			if (previsaoInvalida)
+				return "Erro no cadastro de aposta: Previsao invalida";
+			if (valor <= 0)
+				return "Erro no cadastro de aposta: Valor nao pode ser menor ou igual a zero";
+			return null;
+		case LoteApostas.SEGURO_VALOR:
+			String erro = validaAssegurada("Erro no cadastro de aposta assegurada por valor: ", apostadorInvalido,
+					valor, previsaoVazia, previsaoInvalida, lote.getCusto(posicao));
+			if (erro == null && lote.getSeguro(posicao) <= 0)
+				return "Erro no cadastro de aposta: Seguro inválido";
+			return erro;
+		default:
+			erro = validaAssegurada("Erro no cadastro de aposta assegurada por taxa: ", apostadorInvalido, valor,
+					previsaoVazia, previsaoInvalida, lote.getCusto(posicao));
+			if (erro == null && TaxaFixa.converter(lote.getTaxa(posicao)) <= 0)
+				return "Erro no cadastro de aposta: taxa inválida";
+			return erro;
+		}
+	}
+
+	private static String validaAssegurada(String prefixo, boolean apostadorInvalido, int valor,
+			boolean previsaoVazia, boolean previsaoInvalida, int custo) {
+		if (apostadorInvalido)
+			return prefixo + "Apostador nao pode ser vazio ou nulo";
+		if (valor <= 0)
+			return prefixo + "Valor nao pode ser menor ou igual a zero";
+		if (previsaoVazia)
+			return prefixo + "Previsao nao pode ser vazia ou nula";
+		if (previsaoInvalida)
+			return prefixo + "Previsao invalida";
+		if (custo <= 0)
+			return "Erro no cadastro de aposta: Custo inválido";
+		return null;
 	}
 
 	/**
@@ -271,11 +676,10 @@ public class ApostaController {
 	public int alterar(int idAposta, int seguro) {
 		if (idAposta <= 0)
 			throw new CampoInvalidoException("Erro ao alterar a aposta: Aposta inválida");
-		if (!this.apostasAsseguradas.containsKey(idAposta))
+		ApostaAssegurada aposta = this.getAssegurada(idAposta);
+		if (aposta == null)
 			throw new ApostaNaoCadastradaException("Erro ao alterar a aposta: Aposta não cadastrada");
-		ApostaAssegurada aposta =  this.apostasAsseguradas.get(idAposta);
-		String previsao = aposta.isAcontece()?"VAI ACONTECER":"N VAI ACONTECER";
-		this.apostasAsseguradas.put(idAposta, new ApostaSeguroValor(aposta.getApostador(), aposta.getValor(), this.verificaPrevisao(previsao), seguro, aposta.getCusto()));
+		this.substituiAssegurada(idAposta, aposta, new ApostaSeguroValor(aposta.getApostador(), aposta.getValor(), aposta.isAcontece(), seguro, aposta.getCusto()));
 		return idAposta;
 	}
 
@@ -288,12 +692,10 @@ public class ApostaController {
 	public int alterar(int idAposta, double taxa) {
 		if (idAposta <= 0)
 			throw new CampoInvalidoException("Erro ao alterar a aposta: Aposta inválida");
-		if (!this.apostasAsseguradas.containsKey(idAposta))
+		ApostaAssegurada aposta = this.getAssegurada(idAposta);
+		if (aposta == null)
 			throw new ApostaNaoCadastradaException("Erro ao alterar a aposta: Aposta não cadastrada");
-		ApostaAssegurada aposta = this.apostasAsseguradas.get(idAposta);
-		String previsao = aposta.isAcontece()?"VAI ACONTECER":"N VAI ACONTECER";
-		this.apostasAsseguradas.remove(idAposta);
-		this.apostasAsseguradas.put(idAposta, new ApostaSeguroTaxa(aposta.getApostador(), aposta.getValor(), this.verificaPrevisao(previsao), taxa, aposta.getCusto()));
+		this.substituiAssegurada(idAposta, aposta, new ApostaSeguroTaxa(aposta.getApostador(), aposta.getValor(), aposta.isAcontece(), taxa, aposta.getCusto()));
 		return idAposta;
 	}
 
@@ -301,30 +703,220 @@ public class ApostaController {
 	 * Método responsével por calcular o valor dos seguros de suas apostas
 	 * @return : o valor do seguro das apostas do cenário
 	 */
-	public int seguroPerdedoras(boolean ocorreu) {
-		int retorno = 0;
-		for(ApostaAssegurada aposta : this.apostasAsseguradas.values()) {
-			if (aposta.isAcontece()) {
-				if (!ocorreu)
-					retorno += aposta.getSeguro();
+	public long seguroPerdedoras(boolean ocorreu) {
+		return (ocorreu ? this.seguroNaoAcontece : this.seguroAcontece).sum();
+	}
+
+	/**
+	 * Método responsável por distribuir o rateio de um cenário encerrado entre as
+	 * apostas vencedoras, proporcionalmente aos seus valores, e devolver o seguro
+	 * das apostas asseguradas perdedoras. Os pagamentos são calculados em uma única
+	 * passagem pelas apostas, na ordem de exibição, e entregues ao destino à
+	 * medida que são calculados.
+	 * 
+	 * O prêmio de cada aposta é a diferença entre as parcelas acumuladas do rateio
+	 * antes e depois dela, arredondadas para baixo: a aposta k recebe
+	 * floor(rateio * V_k / V) - floor(rateio * V_(k-1) / V), onde V_k é a soma dos
+	 * valores das k primeiras apostas vencedoras e V o total vencedor. Assim os
+	 * prêmios somam exatamente o rateio e os centavos que sobram de cada divisão
+	 * vão sempre para as mesmas apostas
+	 * @param ocorreu : indica se o cenário ocorreu
+	 * @param rateio : valor que será distribuído entre as apostas vencedoras
+	 * @param destino : destino dos pagamentos
+	 * @return : o total pago, somando prêmios e seguros
+	 */
+	public long distribuir(boolean ocorreu, long rateio, DestinoPagamentos destino) {
+		TabelaApostadores tabela = TabelaApostadores.getInstancia();
+		long vencedor = (ocorreu ? this.valorAcontece : this.valorNaoAcontece).sum();
+		long acumulado = 0;
+		long distribuido = 0;
+		long pago = 0;
+		int simples = this.getQuantidadeSimples();
+		for (int i = 0; i < simples; i++) {
+			if (this.isAconteceSimples(i) != ocorreu)
+				continue;
+			int valor = this.getValorSimples(i);
+			acumulado += valor;
+			long parcela = parcela(rateio, acumulado, vencedor);
+			destino.premio(false, i + 1, tabela.nome(this.getIdApostadorSimples(i)), valor, parcela - distribuido);
+			distribuido = parcela;
+		}
+		for (int id = 1; id <= this.quantidadeAsseguradas; id++) {
+			boolean acontece;
+			int valor;
+			int idApostador;
+			long seguro;
+			if (this.registrosAsseguradas == null) {
+				ApostaAssegurada aposta = this.apostasAsseguradas[id - 1];
+				acontece = aposta.isAcontece();
+				valor = aposta.getValor();
+				idApostador = aposta.getIdApostador();
+				seguro = aposta.getSeguro();
 			} else {
-				if (ocorreu)
-					retorno += aposta.getSeguro();
+				acontece = this.registrosAsseguradas.isAcontece(id - 1);
+				valor = this.registrosAsseguradas.getValor(id - 1);
+				idApostador = this.registrosAsseguradas.getIdApostador(id - 1);
+				seguro = this.registrosAsseguradas.getSeguro(id - 1);
+			}
+			if (acontece == ocorreu) {
+				acumulado += valor;
+				long parcela = parcela(rateio, acumulado, vencedor);
+				destino.premio(true, id, tabela.nome(idApostador), valor, parcela - distribuido);
+				distribuido = parcela;
+			} else {
+				destino.seguro(id, tabela.nome(idApostador), valor, seguro);
+				pago = Math.addExact(pago, seguro);
 			}
 		}
-		return retorno;
+		return Math.addExact(pago, distribuido);
 	}
 
 	/**
-	 * Método responsável por recuperar o custo das apostas do cenário
-	 * @return : o valor do custo das apostas
+	 * Método responsável por calcular a parcela do rateio que cabe a um valor
+	 * acumulado, arredondada para baixo
+	 * @param rateio : valor total do rateio
+	 * @param acumulado : soma dos valores das apostas vencedoras até a atual
+	 * @param vencedor : soma dos valores de todas as apostas vencedoras
+	 * @return : a parcela acumulada do rateio
+	 */
+	private static long parcela(long rateio, long acumulado, long vencedor) {
+		if (rateio <= 0)
+			return 0;
+		if (acumulado <= Long.MAX_VALUE / rateio)
+			return rateio * acumulado / vencedor;
+		return BigInteger.valueOf(rateio).multiply(BigInteger.valueOf(acumulado))
+				.divide(BigInteger.valueOf(vencedor)).longValue();
+	}
+
+	/**
+	 * Método responsável por mover as apostas do controlador para registros fora
+	 * do heap. As apostas já cadastradas são copiadas e as próximas serão
+	 * guardadas diretamente nos registros. Não faz nada caso as apostas já estejam
+	 * fora do heap
+	 * @param simples : registros vazios que guardarão as apostas simples
+	 * @param asseguradas : registros vazios que guardarão as apostas asseguradas
 	 */
-	public int getCustos() {
-		int custos = 0;
-		for(ApostaAssegurada aposta : this.apostasAsseguradas.values()) {
-			custos += aposta.getCusto();
+	public void armazenarForaDoHeap(RegistrosApostas simples, RegistrosApostas asseguradas) {
+		if (this.registrosSimples != null)
+			return;
+		simples.garantirCapacidade(this.apostas.tamanho());
+		for (int i = 0; i < this.apostas.tamanho(); i++) {
+			simples.adicionar(this.apostas.getIdApostador(i), this.apostas.getValor(i), this.apostas.isAcontece(i));
+		}
+		int quantidade = this.quantidadeAsseguradas;
+		this.registrosAsseguradas = asseguradas;
+		this.registrosAsseguradas.garantirCapacidade(quantidade);
+		this.quantidadeAsseguradas = 0;
+		for (int i = 0; i < quantidade; i++) {
+			this.guardaAssegurada(this.apostasAsseguradas[i]);
+		}
+		this.registrosSimples = simples;
+		this.apostas = null;
+		this.apostasAsseguradas = null;
+	}
+
+	/**
+	 * Método responsável por verificar se as apostas estão guardadas fora do heap
+	 * @return : true caso as apostas estejam em registros fora do heap
+	 */
+	public boolean isForaDoHeap() {
+		return this.registrosSimples != null;
+	}
+
+	/**
+	 * Método responsável por recalcular o seguro das apostas perdedoras
+	 * percorrendo todas as apostas asseguradas
+	 * @param ocorreu : indica se o cenário ocorreu
+	 * @return : o valor do seguro das apostas perdedoras
+	 */
+	public long recalculaSeguro(boolean ocorreu) {
+		if (this.registrosAsseguradas != null)
+			return this.registrosAsseguradas.somaSeguros(!ocorreu);
+		long seguro = 0;
+		for (int i = 0; i < this.quantidadeAsseguradas; i++) {
+			if (this.apostasAsseguradas[i].isAcontece() != ocorreu)
+				seguro = Math.addExact(seguro, this.apostasAsseguradas[i].getSeguro());
+		}
+		return seguro;
+	}
+
+	/**
+	 * Método responsável por recalcular o custo das apostas percorrendo todas as
+	 * apostas asseguradas
+	 * @return : o custo das apostas
+	 */
+	public long recalculaCustos() {
+		if (this.registrosAsseguradas != null)
+			return this.registrosAsseguradas.somaCustos();
+		long custos = 0;
+		for (int i = 0; i < this.quantidadeAsseguradas; i++) {
+			custos = Math.addExact(custos, this.apostasAsseguradas[i].getCusto());
 		}
 		return custos;
 	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas simples
+	 * @return : a quantidade de apostas simples
+	 */
+	public int getQuantidadeSimples() {
+		return this.registrosSimples == null ? this.apostas.tamanho() : this.registrosSimples.tamanho();
+	}
+
+	/**
+	 * Método responsável por recuperar o id do apostador de uma aposta simples
+	 * @param posicao : posição da aposta, na ordem de cadastro
+	 * @return : o id do apostador na tabela de apostadores
+	 */
+	public int getIdApostadorSimples(int posicao) {
+		return this.registrosSimples == null ? this.apostas.getIdApostador(posicao)
+				: this.registrosSimples.getIdApostador(posicao);
+	}
+
+	/**
+	 * Método responsável por recuperar o valor de uma aposta simples
+	 * @param posicao : posição da aposta, na ordem de cadastro
+	 * @return : o valor da aposta em centavos
+	 */
+	public int getValorSimples(int posicao) {
+		return this.registrosSimples == null ? this.apostas.getValor(posicao)
+				: this.registrosSimples.getValor(posicao);
+	}
+
+	/**
+	 * Método responsável por recuperar a previsão de uma aposta simples
+	 * @param posicao : posição da aposta, na ordem de cadastro
+	 * @return : true caso a aposta preveja que o cenário vai acontecer
+	 */
+	public boolean isAconteceSimples(int posicao) {
+		return this.registrosSimples == null ? this.apostas.isAcontece(posicao)
+				: this.registrosSimples.isAcontece(posicao);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas asseguradas, que é
+	 * também o id da última aposta assegurada
+	 * @return : a quantidade de apostas asseguradas
+	 */
+	public int getQuantidadeAsseguradas() {
+		return this.quantidadeAsseguradas;
+	}
+
+	/**
+	 * Método responsável por recuperar uma aposta assegurada pelo seu id
+	 * @param idAposta : id da aposta
+	 * @return : a aposta, ou null caso ela não esteja cadastrada
+	 */
+	public ApostaAssegurada getApostaAssegurada(int idAposta) {
+		return this.getAssegurada(idAposta);
+	}
+
+	/**
+	 * Método responsável por recuperar o custo das apostas do cenário
+	 * @return : o valor do custo das apostas
+	 */
+	public long getCustos() {
+		return this.custos.sum();
+	}
 	
 }
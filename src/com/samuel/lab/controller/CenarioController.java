@@ -1,16 +1,33 @@
 package com.samuel.lab.controller;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 import com.samuel.lab.comparadores.ComparaCenario;
+import com.samuel.lab.estruturas.IndiceCenarios;
+import com.samuel.lab.estruturas.RegistroCenarios;
+import com.samuel.lab.estruturas.RegistrosApostas;
 import com.samuel.lab.exception.CampoInvalidoException;
+import com.samuel.lab.exception.CenarioJaEncerradoException;
 import com.samuel.lab.exception.CenarioNaoCadastradoException;
 import com.samuel.lab.exception.CenarioNaoEncerradoException;
+import com.samuel.lab.model.Aposta;
 import com.samuel.lab.model.Cenario;
+import com.samuel.lab.model.DestinoPagamentos;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.LoteFechamentos;
+import com.samuel.lab.model.ResultadoFechamentos;
+import com.samuel.lab.model.ResultadoLote;
+import com.samuel.lab.model.TaxaFixa;
+import com.samuel.lab.persistencia.Diario;
 
 /**
  * Classe responsável por controlar tudo que pertence a um cenário
@@ -21,30 +38,52 @@ import com.samuel.lab.model.Cenario;
 public class CenarioController{
 
 	/**
-	 * Representa o caixa do sistema
+	 * Representa o caixa inicial do sistema
 	 */
 	private int caixa;
 
 	/**
-	 * Representa a taxa que será cobrada aos caixas dos cenários
+	 * Representa o quanto os cenários acrescentaram (ou retiraram) do caixa do
+	 * sistema: bonus concedidos, custos das apostas asseguradas e, para os
+	 * cenários encerrados, o caixa arrecadado menos os seguros pagos. É um contador
+	 * distribuído para que operações em cenários diferentes não disputem o mesmo
+	 * campo
 	 */
-	private double taxa;
+	private LongAdder caixaCenarios;
 
 	/**
-	 * Representa de onde o id irá inicializar
+	 * Representa a taxa que será cobrada aos caixas dos cenários, em ponto fixo
 	 */
-	private int idBase;
+	private long taxa;
 
 	/**
 	 * Representa todos os cenários cadastrados
 	 */
-	private Map<Integer, Cenario> cenarios;
+	private RegistroCenarios cenarios;
 	
 	
 	/**
 	 * Comparador utilizado para comparar os  cenários
 	 */
 	private ComparaCenario comparaCenario;
+
+	/**
+	 * Índices que mantêm os cenários ordenados por nome e por quantidade de apostas
+	 */
+	private IndiceCenarios indice;
+
+	/**
+	 * Diário onde as operações que alteram o sistema são registradas, ou null
+	 * caso o sistema não seja persistido. Cada operação é registrada com o lock que
+	 * a ordena, para que a reprodução do diário gere os mesmos ids
+	 */
+	private volatile Diario diario;
+
+	/**
+	 * Lock que ordena a reserva de ids de cenários com o seu registro no diário.
+	 * Só é usado quando há um diário
+	 */
+	private final Object criacaoCenarios = new Object();
 	
 	/**
 	 * Método responsável por inicializar um cenarioController
@@ -61,11 +100,12 @@ public class CenarioController{
 		}
 		if (taxa < 0)
 			throw new CampoInvalidoException("Erro na inicializacao: Taxa nao pode ser inferior a 0");
-		this.idBase = 1;
 		this.caixa = caixa;
-		this.taxa = taxa;
-		this.cenarios = new HashMap<>();
+		this.taxa = TaxaFixa.converter(taxa);
+		this.cenarios = new RegistroCenarios();
 		this.comparaCenario = new ComparaCenario();
+		this.caixaCenarios = new LongAdder();
+		this.indice = new IndiceCenarios();
 	}
 
 	/**
@@ -76,9 +116,9 @@ public class CenarioController{
 	 * @return o id do cenário que foi cadastrado
 	 */
 	public int cadastrarCenario(String descricao) {
-		Cenario cenario = new Cenario(this.idBase, descricao);
-		this.cenarios.put(cenario.getId(), cenario);
-		this.idBase++;
+		Cenario.valida(descricao);
+		Cenario cenario = this.criaCenario(descricao, 0);
+		this.publica(cenario);
 		return cenario.getId();
 	}
 
@@ -92,10 +132,11 @@ public class CenarioController{
 	public String exibirCenario(int idCenario) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro na consulta de cenario: Cenario invalido");
-		if (!cenarios.containsKey(idCenario)) {
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null) {
 			throw new CenarioNaoCadastradoException("Erro na consulta de cenario: Cenario nao cadastrado");
 		}
-		return this.cenarios.get(idCenario).toString();
+		return cenario.toString();
 	}
 
 	/**
@@ -104,15 +145,29 @@ public class CenarioController{
 	 * @return : Uma representação textual para todos os cenários cadastrados
 	 */
 	public String exibirCenarios() {
-		String retorno = "";
-		for (Cenario cenario : this.cenarios.values()) {
-			if (retorno.isEmpty()) {
-				retorno = cenario.toString();
-			} else {
-				retorno += System.lineSeparator() + cenario.toString();
-			}
+		StringBuilder retorno = new StringBuilder();
+		try {
+			this.exibirCenarios(retorno);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return retorno.toString();
+	}
+
+	/**
+	 * Responsável por escrever todos os cenários do sistema, um cenário por linha,
+	 * sem montar uma String intermediária
+	 * 
+	 * @param saida
+	 *            : Destino onde os cenários serão escritos
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	public void exibirCenarios(Appendable saida) throws IOException {
+		boolean primeiro = true;
+		for (Cenario cenario : this.cenarios) {
+			primeiro = ApostaController.escreveLinha(saida, cenario.toString(), primeiro);
 		}
-		return retorno;
 	}
 
 	/**
@@ -130,13 +185,59 @@ public class CenarioController{
 	public void cadastrarAposta(int idCenario, String apostador, int valor, String previsao) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro no cadastro de aposta: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
 			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta: Cenario nao cadastrado");
 		if (apostador == null || apostador.trim().isEmpty())
 			throw new CampoInvalidoException("Erro no cadastro de aposta: Apostador nao pode ser vazio ou nulo");
-		Cenario cenario = cenarios.get(idCenario);
-		cenario.apostar(apostador, valor, previsao);
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				cenario.apostar(apostador, valor, previsao);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.apostaCadastrada(idCenario, apostador, valor, previsao);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+		this.indice.atualizar(cenario);
+	}
 
+	/**
+	 * Método responsável por cadastrar um lote de apostas em um cenário. O cenário
+	 * é buscado e bloqueado uma única vez para todo o lote, e o caixa e os índices
+	 * são atualizados uma única vez. Apostas inválidas não interrompem o lote:
+	 * seus erros são informados no resultado
+	 * @param idCenario : id do cenário onde as apostas serão cadastradas
+	 * @param lote : Apostas que serão cadastradas
+	 * @return o resultado do cadastro de cada aposta do lote
+	 */
+	public ResultadoLote cadastrarApostas(int idCenario, LoteApostas lote) {
+		if (idCenario <= 0)
+			throw new CampoInvalidoException("Erro no cadastro de apostas: Cenario invalido");
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro no cadastro de apostas: Cenario nao cadastrado");
+		if (lote == null)
+			throw new CampoInvalidoException("Erro no cadastro de apostas: Lote nao pode ser nulo");
+		ResultadoLote resultado;
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				resultado = cenario.apostar(lote);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null && resultado.getQuantidadeCadastradas() > 0)
+					diario.loteCadastrado(idCenario, lote);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+		if (resultado.getQuantidadeCadastradas() > 0)
+			this.indice.atualizar(cenario);
+		return resultado;
 	}
 
 	/**
@@ -146,13 +247,12 @@ public class CenarioController{
 	 *            : id do cenário que será verificado
 	 * @return o valor resultante do processo
 	 */
-	public int valorTotalDeApostas(int idCenario) {
+	public long valorTotalDeApostas(int idCenario) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro na consulta do valor total de apostas: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException(
-					"Erro na consulta do valor total de apostas: Cenario nao cadastrado");
 		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro na consulta do valor total de apostas: Cenario nao cadastrado");
 		return cenario.getValorTotalDeApostas();
 	}
 
@@ -166,9 +266,10 @@ public class CenarioController{
 	public int totalDeApostas(int idCenario) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro na consulta do total de apostas: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
 			throw new CenarioNaoCadastradoException("Erro na consulta do total de apostas: Cenario nao cadastrado");
-		return this.cenarios.get(idCenario).totalApostas();
+		return cenario.totalApostas();
 	}
 
 	/**
@@ -180,12 +281,76 @@ public class CenarioController{
 	 * @return A representação textual obtida
 	 */
 	public String exibirApostas(int idCenario) {
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta: Cenario nao cadastrado");
 		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta: Cenario nao cadastrado");
 		return cenario.exibiApostas();
 	}
 
+	/**
+	 * responsável por escrever todas as apostas cadastradas em um cenário, uma
+	 * aposta por linha
+	 * 
+	 * @param idCenario
+	 *            : id do cenário que será verificado
+	 * @param saida
+	 *            : Destino onde as apostas serão escritas
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	public void exibirApostas(int idCenario, Appendable saida) throws IOException {
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta: Cenario nao cadastrado");
+		cenario.exibiApostas(saida);
+	}
+
+	/**
+	 * responsável por recuperar uma página das apostas cadastradas em um cenário,
+	 * sem percorrer as apostas que estão fora dela
+	 * 
+	 * @param idCenario
+	 *            : id do cenário que será verificado
+	 * @param inicio
+	 *            : Posição da primeira aposta da página, começando em 0
+	 * @param quantidade
+	 *            : Quantidade máxima de apostas da página
+	 * @return as apostas da página
+	 */
+	public List<Aposta> getApostas(int idCenario, int inicio, int quantidade) {
+		if (idCenario <= 0)
+			throw new CampoInvalidoException("Erro na consulta de apostas: Cenario invalido");
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro na consulta de apostas: Cenario nao cadastrado");
+		return cenario.getApostas(inicio, quantidade);
+	}
+
+	/**
+	 * responsável por recuperar a representação textual de uma página das apostas
+	 * cadastradas em um cenário, uma aposta por linha
+	 * 
+	 * @param idCenario
+	 *            : id do cenário que será verificado
+	 * @param inicio
+	 *            : Posição da primeira aposta da página, começando em 0
+	 * @param quantidade
+	 *            : Quantidade máxima de apostas da página
+	 * @return A representação textual da página
+	 */
+	public String exibirApostas(int idCenario, int inicio, int quantidade) {
+		StringBuilder retorno = new StringBuilder();
+		try {
+			boolean primeira = true;
+			for (Aposta aposta : this.getApostas(idCenario, inicio, quantidade)) {
+				primeira = ApostaController.escreveLinha(retorno, aposta.toString(), primeira);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return retorno.toString();
+	}
+
 	/**
 	 * responsável por fechar um aposta de um cenário
 	 * 
@@ -197,10 +362,100 @@ public class CenarioController{
 	public void fecharAposta(int idCenario, boolean ocorreu) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro ao fechar aposta: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
 			throw new CenarioNaoCadastradoException("Erro ao fechar aposta: Cenario nao cadastrado");
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				cenario.ocorrer(ocorreu);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.apostaFechada(idCenario, ocorreu);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+	}
+
+	/**
+	 * Método responsável por fechar vários cenários de uma só vez e liquidá-los,
+	 * calculando o caixa, o rateio e os seguros de cada um. Cenários diferentes são
+	 * fechados em paralelo no pool de fork-join, cada um com o seu monitor; um
+	 * cenário que não pode ser fechado é informado no resultado sem impedir o
+	 * fechamento dos demais. Quando um cenário aparece mais de uma vez no lote,
+	 * apenas a primeira ocorrência o fecha, e as seguintes recebem o erro da
+	 * primeira, ou o de cenário já fechado caso ela tenha fechado o cenário
+	 * @param lote : cenários que serão fechados
+	 * @return o resultado do fechamento de cada cenário do lote
+	 */
+	public ResultadoFechamentos fecharApostas(LoteFechamentos lote) {
+		if (lote == null)
+			throw new CampoInvalidoException("Erro ao fechar apostas: Lote nao pode ser nulo");
+		ResultadoFechamentos resultado = new ResultadoFechamentos(lote.tamanho());
+		int cadastrados = this.cenarios.tamanho();
+		Map<Integer, Integer> primeiras = new HashMap<>();
+		int[] primeira = new int[lote.tamanho()];
+		Arrays.fill(primeira, -1);
+		for (int i = 0; i < lote.tamanho(); i++) {
+			int idCenario = lote.getCenario(i);
+			if (idCenario <= 0) {
+				resultado.registrarErro(i, "Erro ao fechar aposta: Cenario invalido");
+			} else if (idCenario > cadastrados) {
+				resultado.registrarErro(i, "Erro ao fechar aposta: Cenario nao cadastrado");
+			} else {
+				Integer anterior = primeiras.putIfAbsent(idCenario, i);
+				if (anterior != null)
+					primeira[i] = anterior;
+			}
+		}
+		IntStream.range(0, lote.tamanho()).parallel().filter(i -> primeira[i] < 0 && resultado.isFechado(i))
+				.forEach(i -> this.fechaLiquidando(lote.getCenario(i), lote.isOcorreu(i), i, resultado));
+		for (int i = 0; i < lote.tamanho(); i++) {
+			if (primeira[i] >= 0) {
+				String erro = resultado.getErro(primeira[i]);
+				resultado.registrarErro(i, erro != null ? erro : new CenarioJaEncerradoException().getMessage());
+			}
+		}
+		return resultado;
+	}
+
+	/**
+	 * Método responsável por fechar um cenário de um lote e registrar a sua
+	 * liquidação no resultado
+	 */
+	private void fechaLiquidando(int idCenario, boolean ocorreu, int posicao, ResultadoFechamentos resultado) {
 		Cenario cenario = this.cenarios.get(idCenario);
-		cenario.ocorrer(ocorreu);
+		if (cenario == null) {
+			resultado.registrarErro(posicao, "Erro ao fechar aposta: Cenario nao cadastrado");
+			return;
+		}
+		Diario diario;
+		try {
+			diario = this.iniciaRegistro();
+		} catch (IllegalStateException | UncheckedIOException e) {
+			resultado.registrarErro(posicao, "Erro ao fechar aposta: " + e.getMessage());
+			return;
+		}
+		try {
+			synchronized (cenario) {
+				if (cenario.isEncerrado()) {
+					resultado.registrarErro(posicao, new CenarioJaEncerradoException().getMessage());
+					return;
+				}
+				long contribuicao = this.contribuicao(cenario);
+				cenario.ocorrer(ocorreu);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.apostaFechada(idCenario, ocorreu);
+				long caixa = cenario.calculaCaixa(this.taxa);
+				resultado.registrar(posicao, caixa, cenario.getCaixa() - caixa + cenario.getBonus(),
+						cenario.calculaSeguro());
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
 	}
 
 	/**
@@ -210,12 +465,12 @@ public class CenarioController{
 	 *            : id do cenário que será verificado
 	 * @return o valor do caixa do cenário
 	 */
-	public int getCaixaCenario(int idCenario) {
+	public long getCaixaCenario(int idCenario) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro na consulta do caixa do cenario: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException("Erro na consulta do caixa do cenario: Cenario nao cadastrado");
 		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro na consulta do caixa do cenario: Cenario nao cadastrado");
 		if (!cenario.isEncerrado())
 			throw new CenarioNaoEncerradoException("Erro na consulta do caixa do cenario: Cenario ainda esta aberto");
 
@@ -229,39 +484,102 @@ public class CenarioController{
 	 *            : id do cenário que será verificado
 	 * @return o valor de raterio de um cenário
 	 */
-	public int getTotalRateio(int idCenario) {
+	public long getTotalRateio(int idCenario) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro na consulta do total de rateio do cenario: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException(
-					"Erro na consulta do total de rateio do cenario: Cenario nao cadastrado");
 		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro na consulta do total de rateio do cenario: Cenario nao cadastrado");
 		if (!cenario.isEncerrado())
 			throw new CenarioNaoEncerradoException(
 					"Erro na consulta do total de rateio do cenario: Cenario ainda esta aberto");
-		return (int) (cenario.getCaixa() - cenario.calculaCaixa(taxa)) + cenario.getBonus();
+		return cenario.getCaixa() - cenario.calculaCaixa(this.taxa) + cenario.getBonus();
+	}
+
+	/**
+	 * Método responsável por distribuir o rateio de um cenário encerrado entre as
+	 * suas apostas vencedoras e devolver os seguros das apostas asseguradas
+	 * perdedoras. Os pagamentos são entregues ao destino um a um, em centavos, e
+	 * os prêmios somam exatamente o total de rateio do cenário quando há apostas
+	 * vencedoras
+	 * @param idCenario : id do cenário
+	 * @param destino : destino dos pagamentos
+	 * @return : o total pago, somando prêmios e seguros
+	 */
+	public long distribuirRateio(int idCenario, DestinoPagamentos destino) {
+		if (idCenario <= 0)
+			throw new CampoInvalidoException("Erro na distribuicao do rateio do cenario: Cenario invalido");
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException(
+					"Erro na distribuicao do rateio do cenario: Cenario nao cadastrado");
+		if (!cenario.isEncerrado())
+			throw new CenarioNaoEncerradoException(
+					"Erro na distribuicao do rateio do cenario: Cenario ainda esta aberto");
+		if (destino == null)
+			throw new CampoInvalidoException("Erro na distribuicao do rateio do cenario: Destino nao pode ser nulo");
+		synchronized (cenario) {
+			long rateio = cenario.getCaixa() - cenario.calculaCaixa(this.taxa) + cenario.getBonus();
+			return cenario.getApostaController().distribuir(cenario.isOcorreu(), rateio, destino);
+		}
 	}
 
 	/**
 	 * Recupera o valor do caixa do sistema
 	 * @return o valor do caixa
 	 */
-	public int getCaixa() {
-		int caixasCenarios = 0;
-		int bonus = 0;
-		int seguro = 0;
-		int custo = 0;
-		for (Cenario c : this.cenarios.values()) {
+	public long getCaixa() {
+		return Math.addExact(this.caixa, this.caixaCenarios.sum());
+	}
+
+	/**
+	 * Recalcula o caixa do sistema percorrendo todos os cenários cadastrados. Serve
+	 * para auditar o valor mantido incrementalmente por getCaixa
+	 * @return o valor do caixa
+	 */
+	public long recalcularCaixa() {
+		long caixasCenarios = 0;
+		long bonus = 0;
+		long seguro = 0;
+		long custo = 0;
+		for (Cenario c : this.cenarios) {
 			if (c.isEncerrado()) {
-				caixasCenarios += c.calculaCaixa(taxa);
-				seguro += c.calculaSeguro();
+				caixasCenarios = Math.addExact(caixasCenarios, c.calculaCaixa(taxa));
+				seguro = Math.addExact(seguro, c.calculaSeguro());
 			}
 			if (c.getBonus() > 0) {
-				bonus += c.getBonus();
+				bonus = Math.addExact(bonus, c.getBonus());
 			}
-			custo += c.getCustosApostas();
+			custo = Math.addExact(custo, c.getCustosApostas());
+		}
+		return Math.addExact(Math.subtractExact(Math.subtractExact(this.caixa, bonus), seguro), Math.addExact(caixasCenarios, custo));
+	}
+
+	/**
+	 * Método responsável por calcular o quanto um cenário contribui para o caixa do
+	 * sistema
+	 * @param cenario : cenário que será verificado
+	 * @return a contribuição do cenário para o caixa
+	 */
+	private long contribuicao(Cenario cenario) {
+		long retorno = cenario.getCustosApostas() - cenario.getBonus();
+		if (cenario.isEncerrado()) {
+			retorno += cenario.calculaCaixa(this.taxa) - cenario.calculaSeguro();
 		}
-		return (this.caixa - bonus - seguro) + caixasCenarios+ custo;
+		return retorno;
+	}
+
+	/**
+	 * Método responsável por atualizar o caixa do sistema após uma operação sobre um
+	 * cenário. Deve ser chamado com o monitor do cenário, o mesmo usado para obter a
+	 * contribuição anterior
+	 * @param cenario : cenário que foi alterado
+	 * @param contribuicaoAnterior : contribuição do cenário antes da operação
+	 */
+	private void atualizaCaixa(Cenario cenario, long contribuicaoAnterior) {
+		long diferenca = this.contribuicao(cenario) - contribuicaoAnterior;
+		if (diferenca != 0)
+			this.caixaCenarios.add(diferenca);
 	}
 
 	/**
@@ -273,12 +591,49 @@ public class CenarioController{
 	public int cadastrarCenario(String descricao, int bonus) {
 		if (bonus <= 0)
 			throw new CampoInvalidoException("Erro no cadastro de cenario: Bonus invalido");
-		Cenario cenario = new Cenario(this.idBase, descricao, bonus);
-		this.cenarios.put(cenario.getId(), cenario);
-		this.idBase++;
+		Cenario.valida(descricao);
+		Cenario cenario = this.criaCenario(descricao, bonus);
+		this.caixaCenarios.add(-cenario.getBonus());
+		this.publica(cenario);
 		return cenario.getId();
 	}
 
+	/**
+	 * Método responsável por criar um cenário com o próximo id. Com um diário, a
+	 * reserva do id e o registro do cenário são feitos juntos, assim os cenários
+	 * aparecem no diário na ordem dos seus ids. O diário é verificado antes da
+	 * reserva, assim nenhum id fica reservado sem cenário caso ele esteja fechado
+	 * @param descricao : Descrição do cenário, já validada
+	 * @param bonus : bonus do cenário, ou 0
+	 * @return o cenário criado, ainda não publicado
+	 */
+	private Cenario criaCenario(String descricao, int bonus) {
+		Diario diario = this.iniciaRegistro();
+		if (diario == null)
+			return new Cenario(this.cenarios.reservarId(), descricao, bonus);
+		try {
+			synchronized (this.criacaoCenarios) {
+				Cenario cenario = new Cenario(this.cenarios.reservarId(), descricao, bonus);
+				diario.cenarioCadastrado(cenario.getId(), descricao, bonus);
+				return cenario;
+			}
+		} finally {
+			diario.terminar();
+		}
+	}
+
+	/**
+	 * Método responsável por tornar visível um cenário recém criado. A descrição é
+	 * validada antes da reserva do id, assim nenhum id reservado fica sem cenário.
+	 * O cenário entra nos índices ordenados antes de ser publicado no registro, de
+	 * modo que toda posição até o tamanho do registro existe nos índices
+	 * @param cenario : cenário criado
+	 */
+	private void publica(Cenario cenario) {
+		this.indice.atualizar(cenario);
+		this.cenarios.publicar(cenario);
+	}
+
 	/**
 	 * Método responsável por cadastrar uma aposta assegurada por valor
 	 * @param idCenario : id do cenário que a aposta será cadastrada
@@ -293,9 +648,9 @@ public class CenarioController{
 			int custo) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro no cadastro de aposta assegurada por valor: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException(
-					"Erro no cadastro de aposta assegurada por valor: Cenario invalido");
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta assegurada por valor: Cenario invalido");
 		if (apostador == null || apostador.trim().length() == 0)
 			throw new CampoInvalidoException(
 					"Erro no cadastro de aposta assegurada por valor: Apostador nao pode ser vazio ou nulo");
@@ -307,8 +662,21 @@ public class CenarioController{
 					"Erro no cadastro de aposta assegurada por valor: Previsao nao pode ser vazia ou nula");
 		if (!(previsao.equals("VAI ACONTECER") || previsao.equals("N VAI ACONTECER")))
 			throw new CampoInvalidoException("Erro no cadastro de aposta assegurada por valor: Previsao invalida");
-		Cenario cenario = this.cenarios.get(idCenario);
-		return cenario.apostarSeguroValor(apostador, valor, previsao, seguro, custo);
+		int idAposta;
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				idAposta = cenario.apostarSeguroValor(apostador, valor, previsao, seguro, custo);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.apostaCadastrada(idCenario, apostador, valor, previsao, seguro, custo);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+		this.indice.atualizar(cenario);
+		return idAposta;
 	}
 
 	/**
@@ -325,10 +693,24 @@ public class CenarioController{
 			int custo) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro no cadastro de aposta assegurada por taxa: Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta assegurada por taxa: Cenario invalido");
 		Cenario cenario = this.cenarios.get(idCenario);
-		return cenario.apostarSeguroTaxa(apostador, valor, previsao, taxa, custo);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro no cadastro de aposta assegurada por taxa: Cenario invalido");
+		int idAposta;
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				idAposta = cenario.apostarSeguroTaxa(apostador, valor, previsao, taxa, custo);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.apostaCadastrada(idCenario, apostador, valor, previsao, taxa, custo);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+		this.indice.atualizar(cenario);
+		return idAposta;
 	}
 
 	/**
@@ -341,10 +723,22 @@ public class CenarioController{
 	public int alterarSeguro(int idCenario, int idAposta, int seguro) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("a fazer");
-		if (!this.cenarios.containsKey(idCenario))
-			throw new CenarioNaoCadastradoException("a fazer");
 		Cenario cenario = this.cenarios.get(idCenario);
-		return cenario.alterarSeguro(idAposta, seguro);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("a fazer");
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				cenario.alterarSeguro(idAposta, seguro);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.seguroAlterado(idCenario, idAposta, seguro);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+		return idAposta;
 	}
 
 	/**
@@ -357,11 +751,71 @@ public class CenarioController{
 	public int alterarSeguro(int idCenario, int aposta, double taxa) {
 		if (idCenario <= 0)
 			throw new CampoInvalidoException("Erro ao alterar aposta : Cenario invalido");
-		if (!this.cenarios.containsKey(idCenario))
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
 			throw new CenarioNaoCadastradoException("Erro ao alterar aposta: Cenario nao cadastrado");
 
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (cenario) {
+				long contribuicao = this.contribuicao(cenario);
+				cenario.alterarSeguro(aposta, taxa);
+				this.atualizaCaixa(cenario, contribuicao);
+				if (diario != null)
+					diario.seguroAlterado(idCenario, aposta, taxa);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
+		return aposta;
+	}
+
+	/**
+	 * Método responsável por mover as apostas de um cenário para registros em um
+	 * ByteBuffer direto, fora do heap. Serve para cenários com muitas apostas
+	 * @param idCenario : id do cenário
+	 */
+	public void armazenarApostasForaDoHeap(int idCenario) {
+		Cenario cenario = this.getCenarioArmazenamento(idCenario);
+		synchronized (cenario) {
+			if (cenario.getApostaController().isForaDoHeap())
+				return;
+			cenario.getApostaController().armazenarForaDoHeap(new RegistrosApostas(), new RegistrosApostas());
+		}
+	}
+
+	/**
+	 * Método responsável por mover as apostas de um cenário para registros em
+	 * arquivos mapeados em memória. As apostas simples e as asseguradas ficam em
+	 * dois arquivos novos do diretório, com nomes únicos iniciados pelo id do
+	 * cenário, assim controladores diferentes podem usar o mesmo diretório. Não
+	 * faz nada caso as apostas já estejam fora do heap
+	 * @param idCenario : id do cenário
+	 * @param diretorio : diretório onde os arquivos serão criados
+	 */
+	public void armazenarApostasForaDoHeap(int idCenario, Path diretorio) {
+		Cenario cenario = this.getCenarioArmazenamento(idCenario);
+		synchronized (cenario) {
+			if (cenario.getApostaController().isForaDoHeap())
+				return;
+			try {
+				cenario.getApostaController().armazenarForaDoHeap(
+						new RegistrosApostas(Files.createTempFile(diretorio, "cenario-" + idCenario + "-simples-", ".bin")),
+						new RegistrosApostas(
+								Files.createTempFile(diretorio, "cenario-" + idCenario + "-asseguradas-", ".bin")));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private Cenario getCenarioArmazenamento(int idCenario) {
+		if (idCenario <= 0)
+			throw new CampoInvalidoException("Erro ao armazenar apostas: Cenario invalido");
 		Cenario cenario = this.cenarios.get(idCenario);
-		return cenario.alterarSeguro(aposta, taxa);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro ao armazenar apostas: Cenario nao cadastrado");
+		return cenario;
 	}
 
 	/**
@@ -370,7 +824,16 @@ public class CenarioController{
 	 */
 	public void alterarOrdem(String ordem) {
 		if(ordem== null || ordem.trim().isEmpty()) throw new CampoInvalidoException("Erro ao alterar ordem: Ordem nao pode ser vazia ou nula");
-		this.comparaCenario.setOrdem(ordem);		
+		Diario diario = this.iniciaRegistro();
+		try {
+			synchronized (this.comparaCenario) {
+				this.comparaCenario.setOrdem(ordem);
+				if (diario != null)
+					diario.ordemAlterada(ordem);
+			}
+		} finally {
+			terminaRegistro(diario);
+		}
 	}
 
 	/**
@@ -379,11 +842,101 @@ public class CenarioController{
 	 */
 	public String exibirCenarioOrdenado(int cenario) {
 		if(cenario <= 0) throw new CampoInvalidoException("Erro na consulta de cenario ordenado: Cenario invalido");
-		if(cenario > this.cenarios.size()) throw new CampoInvalidoException("Erro na consulta de cenario ordenado: Cenario nao cadastrado");
-		List<Cenario> lista = new ArrayList<>(this.cenarios.values());
-		Collections.sort(lista,this.comparaCenario);
-		return lista.get(cenario-1).toString();
-		
+		if(cenario > this.cenarios.tamanho()) throw new CampoInvalidoException("Erro na consulta de cenario ordenado: Cenario nao cadastrado");
+		String ordem = this.comparaCenario.getOrdem();
+		if (ordem.equals("nome")) {
+			return this.indice.porNome(cenario).toString();
+		} else if (ordem.equals("apostas")) {
+			return this.indice.porApostas(cenario).toString();
+		}
+		return this.cenarios.get(cenario).toString();
+	}
+
+	/**
+	 * Método responsável por recuperar a posição de um cenário quando eles estão
+	 * ordenados pela quantidade de apostas
+	 * @param idCenario : id do cenário
+	 * @return a posição do cenário, começando em 1
+	 */
+	public int posicaoPorApostas(int idCenario) {
+		if (idCenario <= 0)
+			throw new CampoInvalidoException("Erro na consulta de cenario ordenado: Cenario invalido");
+		Cenario cenario = this.cenarios.get(idCenario);
+		if (cenario == null)
+			throw new CenarioNaoCadastradoException("Erro na consulta de cenario ordenado: Cenario nao cadastrado");
+		return this.indice.posicaoPorApostas(cenario);
+	}
+
+	/**
+	 * Método responsável por recuperar o caixa com que o sistema foi inicializado
+	 * @return o caixa inicial
+	 */
+	public int getCaixaInicial() {
+		return this.caixa;
+	}
+
+	/**
+	 * Método responsável por recuperar a taxa cobrada aos caixas dos cenários
+	 * @return a taxa do sistema
+	 */
+	public double getTaxa() {
+		return TaxaFixa.paraDouble(this.taxa);
+	}
+
+	/**
+	 * Método responsável por recuperar a ordem atual dos cenários
+	 * @return a ordem dos cenários
+	 */
+	public String getOrdem() {
+		return this.comparaCenario.getOrdem();
+	}
+
+	/**
+	 * Método responsável por percorrer os cenários cadastrados na ordem dos seus ids
+	 * @return os cenários cadastrados
+	 */
+	public Iterable<Cenario> getCenarios() {
+		return this.cenarios;
+	}
+
+	/**
+	 * Método responsável por iniciar o registro de uma operação no diário atual.
+	 * Chamado antes de qualquer alteração do estado, assim uma operação que não
+	 * pode ser registrada falha sem alterar nada
+	 * @return o diário onde a operação será registrada, ou null caso não haja
+	 */
+	private Diario iniciaRegistro() {
+		Diario diario = this.diario;
+		if (diario != null)
+			diario.iniciar();
+		return diario;
+	}
+
+	/**
+	 * Método responsável por terminar o registro de uma operação iniciada com
+	 * iniciaRegistro
+	 * @param diario : diário devolvido por iniciaRegistro
+	 */
+	private static void terminaRegistro(Diario diario) {
+		if (diario != null)
+			diario.terminar();
+	}
+
+	/**
+	 * Método responsável por passar a registrar as operações do sistema em um
+	 * diário
+	 * @param diario : diário onde as operações serão registradas
+	 */
+	public void setDiario(Diario diario) {
+		this.diario = diario;
+	}
+
+	/**
+	 * Método responsável por recuperar o diário do sistema
+	 * @return o diário, ou null caso o sistema não seja persistido
+	 */
+	public Diario getDiario() {
+		return this.diario;
 	}
 
 }
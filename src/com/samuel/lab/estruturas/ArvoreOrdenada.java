@@ -0,0 +1,250 @@
+package com.samuel.lab.estruturas;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Árvore AVL de chaves long em que cada nó guarda o tamanho da sua subárvore.
+ * Além de inserir e remover, permite descobrir em O(log N) qual chave ocupa uma
+ * posição e qual a posição de uma chave. As chaves ficam na ordem numérica ou em
+ * uma ordem informada na criação, o que permite ordenar ids por um atributo dos
+ * objetos que eles identificam.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ArvoreOrdenada {
+
+	/**
+	 * Ordem das chaves da árvore
+	 */
+	@FunctionalInterface
+	public interface Ordem {
+
+		/**
+		 * Método responsável por comparar duas chaves
+		 * @param chave1 : primeira chave
+		 * @param chave2 : segunda chave
+		 * @return um valor negativo, zero ou positivo caso a primeira chave seja
+		 *         menor, igual ou maior que a segunda
+		 */
+		int compara(long chave1, long chave2);
+	}
+
+	/**
+	 * Nó da árvore
+	 */
+	private static class No {
+
+		/**
+		 * Chave guardada no nó
+		 */
+		private long chave;
+
+		/**
+		 * Altura da subárvore cuja raiz é o nó
+		 */
+		private int altura;
+
+		/**
+		 * Quantidade de chaves da subárvore cuja raiz é o nó
+		 */
+		private int tamanho;
+
+		/**
+		 * Filho com as chaves menores
+		 */
+		private No esquerda;
+
+		/**
+		 * Filho com as chaves maiores
+		 */
+		private No direita;
+
+		private No(long chave) {
+			this.chave = chave;
+			this.altura = 1;
+			this.tamanho = 1;
+		}
+	}
+
+	/**
+	 * Raiz da árvore
+	 */
+	private No raiz;
+
+	/**
+	 * Ordem das chaves
+	 */
+	private final Ordem ordem;
+
+	/**
+	 * Inicializa uma árvore vazia com as chaves em ordem numérica
+	 */
+	public ArvoreOrdenada() {
+		this(Long::compare);
+	}
+
+	/**
+	 * Inicializa uma árvore vazia com as chaves em uma ordem específica. A ordem
+	 * de duas chaves não pode mudar enquanto elas estiverem na árvore
+	 * @param ordem : ordem das chaves
+	 */
+	public ArvoreOrdenada(Ordem ordem) {
+		this.ordem = ordem;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de chaves da árvore
+	 * @return a quantidade de chaves
+	 */
+	public int tamanho() {
+		return tamanho(this.raiz);
+	}
+
+	/**
+	 * Método responsável por inserir uma chave na árvore. Chaves repetidas são ignoradas.
+	 * @param chave : chave que será inserida
+	 */
+	public void inserir(long chave) {
+		this.raiz = this.inserir(this.raiz, chave);
+	}
+
+	/**
+	 * Método responsável por remover uma chave da árvore
+	 * @param chave : chave que será removida
+	 * @return true caso a chave estivesse na árvore
+	 */
+	public boolean remover(long chave) {
+		int antes = this.tamanho();
+		this.raiz = this.remover(this.raiz, chave);
+		return this.tamanho() < antes;
+	}
+
+	/**
+	 * Método responsável por recuperar a chave que ocupa uma posição da árvore
+	 * @param posicao : posição da chave, começando em 0
+	 * @return a chave na posição
+	 */
+	public long selecionar(int posicao) {
+		if (posicao < 0 || posicao >= this.tamanho())
+			throw new NoSuchElementException();
+		No no = this.raiz;
+		while (true) {
+			int esquerda = tamanho(no.esquerda);
+			if (posicao < esquerda) {
+				no = no.esquerda;
+			} else if (posicao > esquerda) {
+				posicao -= esquerda + 1;
+				no = no.direita;
+			} else {
+				return no.chave;
+			}
+		}
+	}
+
+	/**
+	 * Método responsável por recuperar a posição de uma chave na árvore
+	 * @param chave : chave procurada
+	 * @return a posição da chave, começando em 0, ou -1 caso ela não esteja na árvore
+	 */
+	public int posicao(long chave) {
+		int posicao = 0;
+		No no = this.raiz;
+		while (no != null) {
+			int comparacao = this.ordem.compara(chave, no.chave);
+			if (comparacao < 0) {
+				no = no.esquerda;
+			} else if (comparacao > 0) {
+				posicao += tamanho(no.esquerda) + 1;
+				no = no.direita;
+			} else {
+				return posicao + tamanho(no.esquerda);
+			}
+		}
+		return -1;
+	}
+
+	private No inserir(No no, long chave) {
+		if (no == null)
+			return new No(chave);
+		int comparacao = this.ordem.compara(chave, no.chave);
+		if (comparacao < 0) {
+			no.esquerda = this.inserir(no.esquerda, chave);
+		} else if (comparacao > 0) {
+			no.direita = this.inserir(no.direita, chave);
+		} else {
+			return no;
+		}
+		return balancear(no);
+	}
+
+	private No remover(No no, long chave) {
+		if (no == null)
+			return null;
+		int comparacao = this.ordem.compara(chave, no.chave);
+		if (comparacao < 0) {
+			no.esquerda = this.remover(no.esquerda, chave);
+		} else if (comparacao > 0) {
+			no.direita = this.remover(no.direita, chave);
+		} else {
+			if (no.esquerda == null)
+				return no.direita;
+			if (no.direita == null)
+				return no.esquerda;
+			No sucessor = no.direita;
+			while (sucessor.esquerda != null)
+				sucessor = sucessor.esquerda;
+			no.chave = sucessor.chave;
+			no.direita = this.remover(no.direita, sucessor.chave);
+		}
+		return balancear(no);
+	}
+
+	private static No balancear(No no) {
+		atualizar(no);
+		int fator = altura(no.esquerda) - altura(no.direita);
+		if (fator > 1) {
+			if (altura(no.esquerda.esquerda) < altura(no.esquerda.direita))
+				no.esquerda = girarEsquerda(no.esquerda);
+			return girarDireita(no);
+		}
+		if (fator < -1) {
+			if (altura(no.direita.direita) < altura(no.direita.esquerda))
+				no.direita = girarDireita(no.direita);
+			return girarEsquerda(no);
+		}
+		return no;
+	}
+
+	private static No girarDireita(No no) {
+		No esquerda = no.esquerda;
+		no.esquerda = esquerda.direita;
+		esquerda.direita = no;
+		atualizar(no);
+		atualizar(esquerda);
+		return esquerda;
+	}
+
+	private static No girarEsquerda(No no) {
+		No direita = no.direita;
+		no.direita = direita.esquerda;
+		direita.esquerda = no;
+		atualizar(no);
+		atualizar(direita);
+		return direita;
+	}
+
+	private static void atualizar(No no) {
+		no.altura = Math.max(altura(no.esquerda), altura(no.direita)) + 1;
+		no.tamanho = tamanho(no.esquerda) + tamanho(no.direita) + 1;
+	}
+
+	private static int altura(No no) {
+		return no == null ? 0 : no.altura;
+	}
+
+	private static int tamanho(No no) {
+		return no == null ? 0 : no.tamanho;
+	}
+
+}
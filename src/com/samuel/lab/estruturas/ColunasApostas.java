@@ -0,0 +1,152 @@
+package com.samuel.lab.estruturas;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.samuel.lab.model.Aposta;
+
+/**
+ * Armazena apostas simples em colunas de tipos primitivos: um vetor com os
+ * valores, um conjunto de bits com as previsões e um vetor com o id de cada
+ * apostador na TabelaApostadores. Objetos Aposta só são criados quando uma
+ * aposta precisa ser exibida.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ColunasApostas {
+
+	/**
+	 * Capacidade inicial das colunas
+	 */
+	private static final int CAPACIDADE_INICIAL = 8;
+
+	/**
+	 * Valor em centavos de cada aposta
+	 */
+	private int[] valores;
+
+	/**
+	 * Previsão de cada aposta: o bit está ligado quando a aposta prevê que o cenário
+	 * vai acontecer
+	 */
+	private BitSet previsoes;
+
+	/**
+	 * Id do apostador de cada aposta
+	 */
+	private int[] apostadores;
+
+	/**
+	 * Quantidade de apostas armazenadas
+	 */
+	private int tamanho;
+
+	/**
+	 * Inicializa as colunas vazias
+	 */
+	public ColunasApostas() {
+		this.valores = new int[CAPACIDADE_INICIAL];
+		this.apostadores = new int[CAPACIDADE_INICIAL];
+		this.previsoes = new BitSet();
+	}
+
+	/**
+	 * Método responsável por armazenar uma aposta. Os campos devem ter sido
+	 * validados com Aposta.valida
+	 * @param apostador : Nome do apostador
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 */
+	public void adicionar(String apostador, int valor, boolean previsao) {
+		if (this.tamanho == this.valores.length)
+			this.garantirCapacidade(1);
+		this.valores[this.tamanho] = valor;
+		this.apostadores[this.tamanho] = TabelaApostadores.getInstancia().id(apostador);
+		this.previsoes.set(this.tamanho, previsao);
+		this.tamanho++;
+	}
+
+	/**
+	 * Método responsável por garantir espaço para novas apostas, de modo que um
+	 * lote de apostas cresça as colunas uma única vez
+	 * @param adicionais : quantidade de apostas que ainda serão armazenadas
+	 */
+	public void garantirCapacidade(int adicionais) {
+		int necessaria = this.tamanho + adicionais;
+		if (necessaria <= this.valores.length)
+			return;
+		int capacidade = Math.max(necessaria, this.valores.length * 2);
+		this.valores = Arrays.copyOf(this.valores, capacidade);
+		this.apostadores = Arrays.copyOf(this.apostadores, capacidade);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas armazenadas
+	 * @return a quantidade de apostas
+	 */
+	public int tamanho() {
+		return this.tamanho;
+	}
+
+	/**
+	 * Método responsável por recuperar o valor de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return o valor da aposta em centavos
+	 */
+	public int getValor(int posicao) {
+		return this.valores[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar a previsão de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return true caso a aposta preveja que o cenário vai acontecer
+	 */
+	public boolean isAcontece(int posicao) {
+		return this.previsoes.get(posicao);
+	}
+
+	/**
+	 * Método responsável por recuperar o nome do apostador de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return o nome do apostador
+	 */
+	public String getApostador(int posicao) {
+		return TabelaApostadores.getInstancia().nome(this.apostadores[posicao]);
+	}
+
+	/**
+	 * Método responsável por recuperar o id do apostador de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return o id do apostador na tabela de apostadores
+	 */
+	public int getIdApostador(int posicao) {
+		return this.apostadores[posicao];
+	}
+
+	/**
+	 * Método responsável por criar a aposta armazenada em uma posição
+	 * @param posicao : posição da aposta
+	 * @return a aposta
+	 */
+	public Aposta get(int posicao) {
+		return new Aposta(this.getApostador(posicao), this.valores[posicao], this.previsoes.get(posicao));
+	}
+
+	/**
+	 * Método responsável por somar o valor das apostas de uma previsão percorrendo
+	 * as colunas
+	 * @param previsao : previsão das apostas que serão somadas
+	 * @return a soma dos valores
+	 */
+	public long somaValores(boolean previsao) {
+		long soma = 0;
+		for (int i = 0; i < this.tamanho; i++) {
+			if (this.previsoes.get(i) == previsao)
+				soma += this.valores[i];
+		}
+		return soma;
+	}
+
+}
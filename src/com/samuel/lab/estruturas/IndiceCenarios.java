@@ -0,0 +1,176 @@
+package com.samuel.lab.estruturas;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.samuel.lab.comparadores.ComparaCenario;
+import com.samuel.lab.model.Cenario;
+
+/**
+ * Índices que mantêm os cenários ordenados por nome e por quantidade de apostas.
+ *
+ * Quem cadastra cenários ou apostas apenas avisa o índice, sem bloquear: o
+ * cenário entra em uma fila de pendentes. As consultas aplicam os pendentes antes
+ * de responder, de modo que o cadastro de apostas em cenários diferentes nunca
+ * disputa o mesmo lock.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class IndiceCenarios {
+
+	/**
+	 * Comparador utilizado para manter os cenários ordenados por nome
+	 */
+	private final ComparaCenario comparaNome;
+
+	/**
+	 * Ids dos cenários indexados em ordem de nome e, em caso de empate, de id
+	 */
+	private final ArvoreOrdenada ordemNome;
+
+	/**
+	 * Cenários indexados em ordem decrescente de quantidade de apostas e, em caso de
+	 * empate, crescente de id. Cada chave é gerada por chaveApostas
+	 */
+	private final ArvoreOrdenada ordemApostas;
+
+	/**
+	 * Cenários indexados, na posição id - 1
+	 */
+	private Cenario[] cenarios;
+
+	/**
+	 * Quantidade de apostas de cada cenário no momento em que ele foi indexado, na
+	 * posição id - 1. Vale -1 para cenários ainda não indexados
+	 */
+	private int[] apostasIndexadas;
+
+	/**
+	 * Cenários que foram cadastrados ou receberam apostas desde a última consulta
+	 */
+	private final Queue<Cenario> pendentes;
+
+	/**
+	 * Ids dos cenários que estão na fila de pendentes, para que cada um entre nela
+	 * uma única vez
+	 */
+	private final Set<Integer> idsPendentes;
+
+	/**
+	 * Inicializa os índices vazios
+	 */
+	public IndiceCenarios() {
+		this.comparaNome = new ComparaCenario("nome");
+		this.ordemNome = new ArvoreOrdenada((id1, id2) -> this.comparaNome.compare(this.cenarios[(int) id1 - 1],
+				this.cenarios[(int) id2 - 1]));
+		this.ordemApostas = new ArvoreOrdenada();
+		this.cenarios = new Cenario[16];
+		this.apostasIndexadas = new int[16];
+		Arrays.fill(this.apostasIndexadas, -1);
+		this.pendentes = new ConcurrentLinkedQueue<>();
+		this.idsPendentes = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * Método responsável por avisar o índice que um cenário foi cadastrado ou que
+	 * sua quantidade de apostas mudou
+	 * @param cenario : cenário alterado
+	 */
+	public void atualizar(Cenario cenario) {
+		if (this.idsPendentes.add(cenario.getId()))
+			this.pendentes.add(cenario);
+	}
+
+	/**
+	 * Método responsável por recuperar o cenário que ocupa uma posição na ordem de
+	 * nome
+	 * @param posicao : posição do cenário, começando em 1
+	 * @return o cenário na posição
+	 */
+	public synchronized Cenario porNome(int posicao) {
+		this.aplicaPendentes();
+		int id = (int) this.ordemNome.selecionar(posicao - 1);
+		return this.cenarios[id - 1];
+	}
+
+	/**
+	 * Método responsável por recuperar o cenário que ocupa uma posição na ordem de
+	 * quantidade de apostas
+	 * @param posicao : posição do cenário, começando em 1
+	 * @return o cenário na posição
+	 */
+	public synchronized Cenario porApostas(int posicao) {
+		this.aplicaPendentes();
+		int id = (int) this.ordemApostas.selecionar(posicao - 1);
+		return this.cenarios[id - 1];
+	}
+
+	/**
+	 * Método responsável por recuperar a posição de um cenário na ordem de
+	 * quantidade de apostas
+	 * @param cenario : cenário procurado
+	 * @return a posição do cenário, começando em 1
+	 */
+	public synchronized int posicaoPorApostas(Cenario cenario) {
+		this.aplicaPendentes();
+		int id = cenario.getId();
+		return this.ordemApostas.posicao(chaveApostas(this.apostasIndexadas[id - 1], id)) + 1;
+	}
+
+	/**
+	 * Método responsável por aplicar aos índices todos os cenários pendentes. O id
+	 * sai do conjunto de pendentes antes da leitura da quantidade de apostas, assim
+	 * uma aposta feita durante a leitura coloca o cenário de volta na fila
+	 */
+	private void aplicaPendentes() {
+		Cenario cenario;
+		while ((cenario = this.pendentes.poll()) != null) {
+			this.idsPendentes.remove(cenario.getId());
+			this.indexa(cenario, cenario.totalApostas());
+		}
+	}
+
+	/**
+	 * Método responsável por inserir ou reposicionar um cenário nos índices
+	 * @param cenario : cenário que será indexado
+	 * @param apostas : quantidade atual de apostas do cenário
+	 */
+	private void indexa(Cenario cenario, int apostas) {
+		int id = cenario.getId();
+		if (id > this.cenarios.length) {
+			int capacidade = Math.max(id, this.cenarios.length * 2);
+			int tamanhoAnterior = this.apostasIndexadas.length;
+			this.cenarios = Arrays.copyOf(this.cenarios, capacidade);
+			this.apostasIndexadas = Arrays.copyOf(this.apostasIndexadas, capacidade);
+			Arrays.fill(this.apostasIndexadas, tamanhoAnterior, capacidade, -1);
+		}
+		int anteriores = this.apostasIndexadas[id - 1];
+		if (anteriores == apostas)
+			return;
+		if (anteriores < 0) {
+			this.cenarios[id - 1] = cenario;
+			this.ordemNome.inserir(id);
+		} else {
+			this.ordemApostas.remover(chaveApostas(anteriores, id));
+		}
+		this.ordemApostas.inserir(chaveApostas(apostas, id));
+		this.apostasIndexadas[id - 1] = apostas;
+	}
+
+	/**
+	 * Método responsável por gerar a chave de um cenário no índice ordenado por
+	 * apostas. Chaves menores pertencem a cenários com mais apostas e, no empate, a
+	 * cenários com id menor, assim como em ComparaCenario
+	 * @param apostas : quantidade de apostas do cenário
+	 * @param idCenario : id do cenário
+	 * @return a chave do cenário
+	 */
+	private static long chaveApostas(int apostas, int idCenario) {
+		return ((long) (Integer.MAX_VALUE - apostas) << 32) | idCenario;
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.samuel.lab.estruturas;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.samuel.lab.model.Cenario;
+
+/**
+ * Registro dos cenários do sistema guardado em um vetor indexado pelo id. Como os
+ * ids são gerados em sequência a partir de 1, o cenário de id n fica na posição
+ * n - 1 e a busca é um único acesso ao vetor.
+ *
+ * O registro pode ser usado por várias threads sem locks. O vetor é dividido em
+ * blocos que dobram de tamanho, de modo que crescer nunca exige copiar ou mover
+ * cenários já cadastrados. Os ids são reservados com um contador atômico e o
+ * tamanho do registro só avança quando todos os ids anteriores já foram
+ * publicados, assim ele nunca tem buracos.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class RegistroCenarios implements Iterable<Cenario> {
+
+	/**
+	 * Tamanho do primeiro bloco, em bits
+	 */
+	private static final int BITS_PRIMEIRO_BLOCO = 4;
+
+	/**
+	 * Quantidade máxima de blocos, suficiente para qualquer id inteiro positivo
+	 */
+	private static final int QUANTIDADE_BLOCOS = 32 - BITS_PRIMEIRO_BLOCO;
+
+	/**
+	 * Blocos do vetor. O bloco k guarda 2^(k + BITS_PRIMEIRO_BLOCO) cenários e só é
+	 * criado quando é necessário
+	 */
+	private final AtomicReferenceArray<AtomicReferenceArray<Cenario>> blocos;
+
+	/**
+	 * Próximo id que será reservado
+	 */
+	private final AtomicInteger proximoId;
+
+	/**
+	 * Quantidade de cenários publicados sem buracos: todos os ids de 1 até este
+	 * valor já estão no registro
+	 */
+	private final AtomicInteger publicados;
+
+	/**
+	 * Inicializa um registro vazio
+	 */
+	public RegistroCenarios() {
+		this.blocos = new AtomicReferenceArray<>(QUANTIDADE_BLOCOS);
+		this.proximoId = new AtomicInteger(1);
+		this.publicados = new AtomicInteger(0);
+	}
+
+	/**
+	 * Método responsável por reservar o próximo id de cenário. O cenário criado com
+	 * esse id deve ser publicado logo em seguida
+	 * @return o id reservado
+	 */
+	public int reservarId() {
+		return this.proximoId.getAndIncrement();
+	}
+
+	/**
+	 * Método responsável por cadastrar um cenário cujo id é o próximo da sequência
+	 * @param cenario : cenário que será cadastrado
+	 */
+	public void adicionar(Cenario cenario) {
+		int id = cenario.getId();
+		if (!this.proximoId.compareAndSet(id, id + 1))
+			throw new IllegalArgumentException("Id fora de sequencia: " + id);
+		this.publicar(cenario);
+	}
+
+	/**
+	 * Método responsável por publicar um cenário com um id já reservado
+	 * @param cenario : cenário que será publicado
+	 */
+	public void publicar(Cenario cenario) {
+		int posicao = cenario.getId() - 1;
+		this.bloco(indiceBloco(posicao), true).set(deslocamento(posicao), cenario);
+		int quantidade;
+		while ((quantidade = this.publicados.get()) < this.proximoId.get() - 1 && this.getPosicao(quantidade) != null) {
+			this.publicados.compareAndSet(quantidade, quantidade + 1);
+		}
+	}
+
+	/**
+	 * Método responsável por recuperar um cenário pelo seu id
+	 * @param id : id do cenário
+	 * @return o cenário, ou null caso ele não esteja cadastrado
+	 */
+	public Cenario get(int id) {
+		if (id <= 0 || id >= this.proximoId.get())
+			return null;
+		return this.getPosicao(id - 1);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de cenários cadastrados
+	 * @return a quantidade de cenários
+	 */
+	public int tamanho() {
+		return this.publicados.get();
+	}
+
+	/**
+	 * Método responsável por percorrer os cenários na ordem dos seus ids. São
+	 * percorridos os cenários cadastrados no momento em que o iterador é criado
+	 * @return um iterador sobre os cenários
+	 */
+	@Override
+	public Iterator<Cenario> iterator() {
+		final int tamanho = this.tamanho();
+		return new Iterator<Cenario>() {
+
+			private int proximo = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.proximo < tamanho;
+			}
+
+			@Override
+			public Cenario next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				return getPosicao(this.proximo++);
+			}
+		};
+	}
+
+	private Cenario getPosicao(int posicao) {
+		AtomicReferenceArray<Cenario> bloco = this.bloco(indiceBloco(posicao), false);
+		return bloco == null ? null : bloco.get(deslocamento(posicao));
+	}
+
+	private AtomicReferenceArray<Cenario> bloco(int indice, boolean criar) {
+		AtomicReferenceArray<Cenario> bloco = this.blocos.get(indice);
+		if (bloco == null && criar) {
+			this.blocos.compareAndSet(indice, null, new AtomicReferenceArray<>(1 << (indice + BITS_PRIMEIRO_BLOCO)));
+			bloco = this.blocos.get(indice);
+		}
+		return bloco;
+	}
+
+	private static int indiceBloco(int posicao) {
+		int deslocada = posicao + (1 << BITS_PRIMEIRO_BLOCO);
+		return 31 - Integer.numberOfLeadingZeros(deslocada) - BITS_PRIMEIRO_BLOCO;
+	}
+
+	private static int deslocamento(int posicao) {
+		int deslocada = posicao + (1 << BITS_PRIMEIRO_BLOCO);
+		return deslocada - Integer.highestOneBit(deslocada);
+	}
+
+}
@@ -0,0 +1,366 @@
+package com.samuel.lab.estruturas;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.samuel.lab.model.Aposta;
+import com.samuel.lab.model.ApostaSeguroTaxa;
+import com.samuel.lab.model.ApostaSeguroValor;
+import com.samuel.lab.model.TaxaFixa;
+
+/**
+ * Armazena apostas de qualquer tipo em registros de tamanho fixo fora do heap,
+ * em um ByteBuffer direto ou em um arquivo mapeado em memória. Cada registro
+ * guarda o id do apostador na TabelaApostadores, o valor, o custo, o tipo da
+ * aposta, a previsão e o seguro ou a taxa, esta em ponto fixo. O coletor de
+ * lixo só enxerga o buffer, nunca as apostas, e os somatórios são feitos
+ * percorrendo os registros. Objetos Aposta só são criados quando uma aposta
+ * precisa ser exibida.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class RegistrosApostas {
+
+	/**
+	 * Tipo de uma aposta simples
+	 */
+	public static final byte SIMPLES = 0;
+
+	/**
+	 * Tipo de uma aposta assegurada por valor
+	 */
+	public static final byte SEGURO_VALOR = 1;
+
+	/**
+	 * Tipo de uma aposta assegurada por taxa
+	 */
+	public static final byte SEGURO_TAXA = 2;
+
+	private static final int APOSTADOR = 0;
+	private static final int VALOR = 4;
+	private static final int CUSTO = 8;
+	private static final int TIPO = 12;
+	private static final int PREVISAO = 13;
+	private static final int SEGURO = 16;
+
+	/**
+	 * Tamanho em bytes de cada registro
+	 */
+	private static final int TAMANHO_REGISTRO = 24;
+
+	/**
+	 * Maior quantidade de registros que cabe em um único buffer
+	 */
+	private static final int CAPACIDADE_MAXIMA = Integer.MAX_VALUE / TAMANHO_REGISTRO;
+
+	/**
+	 * Capacidade inicial, em registros
+	 */
+	private static final int CAPACIDADE_INICIAL = 1024;
+
+	/**
+	 * Arquivo que guarda os registros, ou null quando eles ficam em um buffer
+	 * direto
+	 */
+	private final Path arquivo;
+
+	/**
+	 * Registros armazenados
+	 */
+	private ByteBuffer registros;
+
+	/**
+	 * Quantidade de registros armazenados
+	 */
+	private int tamanho;
+
+	/**
+	 * Inicializa os registros em um ByteBuffer direto
+	 */
+	public RegistrosApostas() {
+		this.arquivo = null;
+		this.registros = ByteBuffer.allocateDirect(CAPACIDADE_INICIAL * TAMANHO_REGISTRO);
+	}
+
+	/**
+	 * Inicializa os registros em um arquivo mapeado em memória. O arquivo deve
+	 * estar vazio ou ainda não existir, assim um arquivo em uso por outros
+	 * registros nunca é sobrescrito
+	 * @param arquivo : arquivo que guardará os registros
+	 */
+	public RegistrosApostas(Path arquivo) {
+		this.arquivo = arquivo;
+		this.registros = this.mapeia(CAPACIDADE_INICIAL, true);
+	}
+
+	/**
+	 * Método responsável por mapear o arquivo com uma capacidade. O canal é
+	 * fechado logo em seguida, já que o mapeamento continua válido sem ele
+	 * @param capacidade : capacidade em registros
+	 * @param novo : indica se o arquivo deve estar vazio
+	 */
+	private ByteBuffer mapeia(int capacidade, boolean novo) {
+		try (FileChannel canal = novo
+				? FileChannel.open(this.arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE)
+				: FileChannel.open(this.arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			if (novo && canal.size() != 0)
+				throw new FileAlreadyExistsException(this.arquivo.toString());
+			return canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacidade * TAMANHO_REGISTRO);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Método responsável por garantir espaço para novos registros, de modo que um
+	 * lote de apostas cresça o buffer uma única vez
+	 * @param adicionais : quantidade de apostas que ainda serão armazenadas
+	 */
+	public void garantirCapacidade(int adicionais) {
+		long necessaria = (long) this.tamanho + adicionais;
+		int capacidadeAtual = this.registros.capacity() / TAMANHO_REGISTRO;
+		if (necessaria <= capacidadeAtual)
+			return;
+		if (necessaria > CAPACIDADE_MAXIMA)
+			throw new IllegalStateException("Capacidade maxima de apostas atingida");
+		int capacidade = (int) Math.min(CAPACIDADE_MAXIMA, Math.max(necessaria, 2L * capacidadeAtual));
+		if (this.arquivo != null) {
+			this.registros = this.mapeia(capacidade, false);
+		} else {
+			ByteBuffer maior = ByteBuffer.allocateDirect(capacidade * TAMANHO_REGISTRO);
+			ByteBuffer atuais = this.registros.duplicate();
+			atuais.position(0).limit(this.tamanho * TAMANHO_REGISTRO);
+			maior.put(atuais);
+			this.registros = maior;
+		}
+	}
+
+	/**
+	 * Método responsável por reservar o próximo registro
+	 * @return a posição do registro no buffer
+	 */
+	private int proximo(int idApostador, int valor, boolean previsao, int custo, byte tipo) {
+		this.garantirCapacidade(1);
+		int base = this.tamanho++ * TAMANHO_REGISTRO;
+		this.registros.putInt(base + APOSTADOR, idApostador);
+		this.registros.putInt(base + VALOR, valor);
+		this.registros.putInt(base + CUSTO, custo);
+		this.registros.put(base + TIPO, tipo);
+		this.registros.put(base + PREVISAO, (byte) (previsao ? 1 : 0));
+		return base;
+	}
+
+	/**
+	 * Método responsável por armazenar uma aposta simples. Os campos devem ter sido
+	 * validados com Aposta.valida
+	 * @param idApostador : id do apostador na tabela de apostadores
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 */
+	public void adicionar(int idApostador, int valor, boolean previsao) {
+		int base = this.proximo(idApostador, valor, previsao, 0, SIMPLES);
+		this.registros.putLong(base + SEGURO, 0);
+	}
+
+	/**
+	 * Método responsável por armazenar uma aposta assegurada por valor
+	 * @param idApostador : id do apostador na tabela de apostadores
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 * @param seguro : Valor do seguro
+	 * @param custo : Custo da aposta
+	 */
+	public void adicionarSeguroValor(int idApostador, int valor, boolean previsao, int seguro, int custo) {
+		int base = this.proximo(idApostador, valor, previsao, custo, SEGURO_VALOR);
+		this.registros.putLong(base + SEGURO, seguro);
+	}
+
+	/**
+	 * Método responsável por armazenar uma aposta assegurada por taxa
+	 * @param idApostador : id do apostador na tabela de apostadores
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 * @param taxa : Taxa do seguro, em ponto fixo
+	 * @param custo : Custo da aposta
+	 */
+	public void adicionarSeguroTaxa(int idApostador, int valor, boolean previsao, long taxa, int custo) {
+		int base = this.proximo(idApostador, valor, previsao, custo, SEGURO_TAXA);
+		this.registros.putLong(base + SEGURO, taxa);
+	}
+
+	/**
+	 * Método responsável por trocar o seguro de uma aposta assegurada por um seguro
+	 * por valor
+	 * @param posicao : posição da aposta
+	 * @param seguro : novo valor do seguro
+	 */
+	public void alterarSeguroValor(int posicao, int seguro) {
+		int base = posicao * TAMANHO_REGISTRO;
+		this.registros.put(base + TIPO, SEGURO_VALOR);
+		this.registros.putLong(base + SEGURO, seguro);
+	}
+
+	/**
+	 * Método responsável por trocar o seguro de uma aposta assegurada por um seguro
+	 * por taxa
+	 * @param posicao : posição da aposta
+	 * @param taxa : nova taxa do seguro, em ponto fixo
+	 */
+	public void alterarSeguroTaxa(int posicao, long taxa) {
+		int base = posicao * TAMANHO_REGISTRO;
+		this.registros.put(base + TIPO, SEGURO_TAXA);
+		this.registros.putLong(base + SEGURO, taxa);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas armazenadas
+	 * @return a quantidade de apostas
+	 */
+	public int tamanho() {
+		return this.tamanho;
+	}
+
+	/**
+	 * Método responsável por recuperar o id do apostador de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return o id do apostador na tabela de apostadores
+	 */
+	public int getIdApostador(int posicao) {
+		return this.registros.getInt(posicao * TAMANHO_REGISTRO + APOSTADOR);
+	}
+
+	/**
+	 * Método responsável por recuperar o valor de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return o valor da aposta em centavos
+	 */
+	public int getValor(int posicao) {
+		return this.registros.getInt(posicao * TAMANHO_REGISTRO + VALOR);
+	}
+
+	/**
+	 * Método responsável por recuperar a previsão de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return true caso a aposta preveja que o cenário vai acontecer
+	 */
+	public boolean isAcontece(int posicao) {
+		return this.registros.get(posicao * TAMANHO_REGISTRO + PREVISAO) == 1;
+	}
+
+	/**
+	 * Método responsável por recuperar o tipo de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return SIMPLES, SEGURO_VALOR ou SEGURO_TAXA
+	 */
+	public byte getTipo(int posicao) {
+		return this.registros.get(posicao * TAMANHO_REGISTRO + TIPO);
+	}
+
+	/**
+	 * Método responsável por recuperar o custo de uma aposta
+	 * @param posicao : posição da aposta
+	 * @return o custo da aposta, 0 para apostas simples
+	 */
+	public int getCusto(int posicao) {
+		return this.registros.getInt(posicao * TAMANHO_REGISTRO + CUSTO);
+	}
+
+	/**
+	 * Método responsável por recuperar o seguro de uma aposta. Para apostas
+	 * asseguradas por taxa o seguro é o valor da aposta multiplicado pela taxa,
+	 * arredondado para baixo
+	 * @param posicao : posição da aposta
+	 * @return o valor do seguro em centavos, 0 para apostas simples
+	 */
+	public long getSeguro(int posicao) {
+		int base = posicao * TAMANHO_REGISTRO;
+		if (this.registros.get(base + TIPO) == SEGURO_TAXA)
+			return TaxaFixa.aplicar(this.registros.getInt(base + VALOR), this.registros.getLong(base + SEGURO));
+		return this.registros.getLong(base + SEGURO);
+	}
+
+	/**
+	 * Método responsável por recuperar a taxa de uma aposta assegurada por taxa
+	 * @param posicao : posição da aposta
+	 * @return a taxa do seguro, em ponto fixo
+	 */
+	public long getTaxaFixa(int posicao) {
+		return this.registros.getLong(posicao * TAMANHO_REGISTRO + SEGURO);
+	}
+
+	/**
+	 * Método responsável por criar a aposta armazenada em uma posição
+	 * @param posicao : posição da aposta
+	 * @return a aposta, do tipo com que ela foi armazenada
+	 */
+	public Aposta get(int posicao) {
+		int base = posicao * TAMANHO_REGISTRO;
+		String apostador = TabelaApostadores.getInstancia().nome(this.registros.getInt(base + APOSTADOR));
+		int valor = this.registros.getInt(base + VALOR);
+		boolean previsao = this.registros.get(base + PREVISAO) == 1;
+		switch (this.registros.get(base + TIPO)) {
+		case SEGURO_VALOR:
+			return new ApostaSeguroValor(apostador, valor, previsao, (int) this.registros.getLong(base + SEGURO),
+					this.registros.getInt(base + CUSTO));
+		case SEGURO_TAXA:
+			return new ApostaSeguroTaxa(apostador, valor, previsao,
+					TaxaFixa.paraDouble(this.registros.getLong(base + SEGURO)),
+					this.registros.getInt(base + CUSTO));
+		default:
+			return new Aposta(apostador, valor, previsao);
+		}
+	}
+
+	/**
+	 * Método responsável por somar o valor das apostas de uma previsão percorrendo
+	 * os registros
+	 * @param previsao : previsão das apostas que serão somadas
+	 * @return a soma dos valores
+	 */
+	public long somaValores(boolean previsao) {
+		byte procurada = (byte) (previsao ? 1 : 0);
+		long soma = 0;
+		for (int base = 0, fim = this.tamanho * TAMANHO_REGISTRO; base < fim; base += TAMANHO_REGISTRO) {
+			if (this.registros.get(base + PREVISAO) == procurada)
+				soma += this.registros.getInt(base + VALOR);
+		}
+		return soma;
+	}
+
+	/**
+	 * Método responsável por somar o seguro das apostas de uma previsão
+	 * percorrendo os registros
+	 * @param previsao : previsão das apostas que serão somadas
+	 * @return a soma dos seguros
+	 */
+	public long somaSeguros(boolean previsao) {
+		byte procurada = (byte) (previsao ? 1 : 0);
+		long soma = 0;
+		for (int i = 0; i < this.tamanho; i++) {
+			if (this.registros.get(i * TAMANHO_REGISTRO + PREVISAO) == procurada)
+				soma = Math.addExact(soma, this.getSeguro(i));
+		}
+		return soma;
+	}
+
+	/**
+	 * Método responsável por somar o custo de todas as apostas percorrendo os
+	 * registros
+	 * @return a soma dos custos
+	 */
+	public long somaCustos() {
+		long soma = 0;
+		for (int base = 0, fim = this.tamanho * TAMANHO_REGISTRO; base < fim; base += TAMANHO_REGISTRO) {
+			soma += this.registros.getInt(base + CUSTO);
+		}
+		return soma;
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.samuel.lab.estruturas;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela de símbolos compartilhada por todo o sistema que associa cada nome de
+ * apostador a um id inteiro. Cada nome é guardado uma única vez, e as apostas
+ * passam a guardar apenas o id do seu apostador.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public final class TabelaApostadores {
+
+	/**
+	 * Tabela utilizada por todos os controladores de apostas
+	 */
+	private static final TabelaApostadores INSTANCIA = new TabelaApostadores();
+
+	/**
+	 * Id de cada nome cadastrado
+	 */
+	private final Map<String, Integer> ids;
+
+	/**
+	 * Nomes cadastrados, indexados pelo seu id
+	 */
+	private volatile String[] nomes;
+
+	/**
+	 * Quantidade de nomes cadastrados
+	 */
+	private int tamanho;
+
+	private TabelaApostadores() {
+		this.ids = new ConcurrentHashMap<>();
+		this.nomes = new String[64];
+	}
+
+	/**
+	 * Método responsável por recuperar a tabela compartilhada
+	 * @return a tabela de apostadores
+	 */
+	public static TabelaApostadores getInstancia() {
+		return INSTANCIA;
+	}
+
+	/**
+	 * Método responsável por recuperar o id de um apostador, cadastrando o nome
+	 * caso ele ainda não exista
+	 * @param nome : Nome do apostador
+	 * @return o id do apostador
+	 */
+	public int id(String nome) {
+		Integer id = this.ids.get(nome);
+		if (id != null)
+			return id;
+		return this.cadastra(nome);
+	}
+
+	/**
+	 * Método responsável por cadastrar um nome. Os nomes são escritos no vetor antes
+	 * de serem publicados no mapa, assim quem obtém um id sempre enxerga o seu nome
+	 * @param nome : Nome do apostador
+	 * @return o id do apostador
+	 */
+	private synchronized int cadastra(String nome) {
+		Integer id = this.ids.get(nome);
+		if (id != null)
+			return id;
+		String[] nomes = this.nomes;
+		if (this.tamanho == nomes.length) {
+			nomes = Arrays.copyOf(nomes, this.tamanho * 2);
+		}
+		nomes[this.tamanho] = nome;
+		this.nomes = nomes;
+		this.ids.put(nome, this.tamanho);
+		return this.tamanho++;
+	}
+
+	/**
+	 * Método responsável por recuperar o nome de um apostador
+	 * @param id : id do apostador
+	 * @return o nome do apostador
+	 */
+	public String nome(int id) {
+		return this.nomes[id];
+	}
+
+}
@@ -0,0 +1,592 @@
+package com.samuel.lab.importacao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.estruturas.TabelaApostadores;
+import com.samuel.lab.exception.CampoInvalidoException;
+import com.samuel.lab.exception.CenarioNaoCadastradoException;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.ResultadoLote;
+
+/**
+ * Importa apostas de um arquivo texto para um CenarioController. Cada linha do
+ * arquivo é uma aposta, com os campos separados por ';':
+ *
+ * <pre>
+ * S;cenario;apostador;valor;previsao
+ * V;cenario;apostador;valor;previsao;seguro;custo
+ * T;cenario;apostador;valor;previsao;taxa;custo
+ * </pre>
+ *
+ * onde S é uma aposta simples, V uma aposta assegurada por valor e T uma aposta
+ * assegurada por taxa.
+ *
+ * O arquivo é mapeado em memória e dividido em trechos que terminam em fim de
+ * linha, lidos em paralelo. Os campos são lidos direto dos bytes mapeados: os
+ * números são convertidos sem passar por String, as previsões são comparadas
+ * byte a byte e cada nome de apostador só vira String na primeira vez em que
+ * aparece no trecho. As apostas de cada trecho são agrupadas por cenário em
+ * lotes, e os lotes de cenários diferentes são cadastrados em paralelo, sempre
+ * na ordem do arquivo dentro de um mesmo cenário. A validação é a mesma do
+ * cadastro de lotes.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ImportadorApostas {
+
+	/**
+	 * Mensagem das linhas que não seguem o formato do arquivo
+	 */
+	private static final String LINHA_MAL_FORMATADA = "Erro na importacao de apostas: Linha mal formatada";
+
+	/**
+	 * Tamanho mínimo de um trecho, para que arquivos pequenos não sejam divididos
+	 * à toa
+	 */
+	private static final long TAMANHO_MINIMO_TRECHO = 1 << 20;
+
+	/**
+	 * Tamanho máximo de um trecho, abaixo do limite de um MappedByteBuffer
+	 */
+	private static final long TAMANHO_MAXIMO_TRECHO = 1 << 30;
+
+	/**
+	 * Potências de dez exatas em double, usadas na leitura de decimais
+	 */
+	private static final double[] POTENCIAS_DE_DEZ = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15 };
+
+	private static final byte SEPARADOR = ';';
+
+	private static final byte[] ACONTECE = "VAI ACONTECER".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] NAO_ACONTECE = "N VAI ACONTECER".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Controlador onde as apostas serão cadastradas
+	 */
+	private final CenarioController cenarioController;
+
+	/**
+	 * Inicializa um importador
+	 * @param cenarioController : controlador onde as apostas serão cadastradas
+	 */
+	public ImportadorApostas(CenarioController cenarioController) {
+		this.cenarioController = cenarioController;
+	}
+
+	/**
+	 * Método responsável por importar as apostas de um arquivo. Linhas inválidas
+	 * não interrompem a importação: seus erros são informados no resultado
+	 * @param arquivo : caminho do arquivo
+	 * @return o resultado da importação
+	 * @throws IOException caso o arquivo não possa ser lido
+	 */
+	public ResultadoImportacao importar(Path arquivo) throws IOException {
+		List<Trecho> trechos;
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			long[] limites = divide(canal);
+			try {
+				trechos = IntStream.range(0, limites.length - 1).parallel()
+						.mapToObj(i -> le(canal, limites[i], limites[i + 1]))
+						.collect(Collectors.toList());
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		long linhas = 0;
+		long[] primeiraLinha = new long[trechos.size()];
+		TreeSet<Integer> idsCenarios = new TreeSet<>();
+		Queue<Falha> falhas = new ConcurrentLinkedQueue<>();
+		for (int i = 0; i < trechos.size(); i++) {
+			Trecho trecho = trechos.get(i);
+			primeiraLinha[i] = i == 0 ? 0 : primeiraLinha[i - 1] + trechos.get(i - 1).linhas;
+			linhas += trecho.linhasLidas;
+			idsCenarios.addAll(trecho.grupos.keySet());
+			for (int j = 0; j < trecho.linhasMalFormadas.tamanho; j++) {
+				falhas.add(new Falha(primeiraLinha[i] + trecho.linhasMalFormadas.valores[j], LINHA_MAL_FORMATADA));
+			}
+		}
+
+		LongAdder cadastradas = new LongAdder();
+		idsCenarios.parallelStream().forEach(idCenario -> {
+			for (int i = 0; i < trechos.size(); i++) {
+				Grupo grupo = trechos.get(i).grupos.get(idCenario);
+				if (grupo != null)
+					this.cadastra(idCenario, grupo, primeiraLinha[i], cadastradas, falhas);
+			}
+		});
+
+		List<String> erros = falhas.stream().sorted((a, b) -> Long.compare(a.linha, b.linha))
+				.map(falha -> "Linha " + falha.linha + ": " + falha.mensagem).collect(Collectors.toList());
+		return new ResultadoImportacao(linhas, cadastradas.sum(), erros);
+	}
+
+	/**
+	 * Método responsável por cadastrar as apostas de um trecho em um cenário
+	 * @param idCenario : id do cenário
+	 * @param grupo : apostas do trecho para o cenário
+	 * @param primeiraLinha : quantidade de linhas dos trechos anteriores
+	 * @param cadastradas : contador das apostas cadastradas
+	 * @param falhas : destino dos erros encontrados
+	 */
+	private void cadastra(int idCenario, Grupo grupo, long primeiraLinha, LongAdder cadastradas, Queue<Falha> falhas) {
+		try {
+			ResultadoLote resultado = this.cenarioController.cadastrarApostas(idCenario, grupo.lote);
+			cadastradas.add(resultado.getQuantidadeCadastradas());
+			for (int i = 0; i < resultado.tamanho(); i++) {
+				if (!resultado.isCadastrada(i))
+					falhas.add(new Falha(primeiraLinha + grupo.linhas.valores[i], resultado.getErro(i)));
+			}
+		} catch (CampoInvalidoException | CenarioNaoCadastradoException e) {
+			for (int i = 0; i < grupo.linhas.tamanho; i++) {
+				falhas.add(new Falha(primeiraLinha + grupo.linhas.valores[i], e.getMessage()));
+			}
+		}
+	}
+
+	/**
+	 * Método responsável por dividir o arquivo em trechos que começam logo depois
+	 * de um fim de linha
+	 * @param canal : canal do arquivo
+	 * @return as posições de início de cada trecho, seguidas do tamanho do arquivo
+	 * @throws IOException caso o arquivo não possa ser lido
+	 */
+	private static long[] divide(FileChannel canal) throws IOException {
+		long tamanho = canal.size();
+		long partes = Math.min(tamanho / TAMANHO_MINIMO_TRECHO, ForkJoinPool.getCommonPoolParallelism() * 4L);
+		partes = Math.max(partes, (tamanho + TAMANHO_MAXIMO_TRECHO - 1) / TAMANHO_MAXIMO_TRECHO);
+		partes = Math.max(partes, 1);
+		long[] limites = new long[(int) partes + 1];
+		ByteBuffer leitura = ByteBuffer.allocate(4096);
+		for (int i = 1; i < partes; i++) {
+			long posicao = Math.max(tamanho * i / partes, limites[i - 1]);
+			limites[i] = proximaLinha(canal, posicao, leitura);
+		}
+		limites[(int) partes] = tamanho;
+		return limites;
+	}
+
+	private static long proximaLinha(FileChannel canal, long posicao, ByteBuffer leitura) throws IOException {
+		while (true) {
+			leitura.clear();
+			int lidos = canal.read(leitura, posicao);
+			if (lidos <= 0)
+				return canal.size();
+			for (int i = 0; i < lidos; i++) {
+				if (leitura.get(i) == '\n')
+					return posicao + i + 1;
+			}
+			posicao += lidos;
+		}
+	}
+
+	/**
+	 * Método responsável por mapear e ler um trecho do arquivo
+	 * @param canal : canal do arquivo
+	 * @param inicio : posição do primeiro byte do trecho
+	 * @param fim : posição seguinte ao último byte do trecho
+	 * @return as apostas lidas no trecho
+	 */
+	private static Trecho le(FileChannel canal, long inicio, long fim) {
+		try {
+			MappedByteBuffer bytes = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+			Trecho trecho = new Trecho(bytes);
+			trecho.le();
+			return trecho;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Apostas lidas de um trecho do arquivo, agrupadas por cenário
+	 */
+	private static class Trecho {
+
+		private final ByteBuffer bytes;
+
+		/**
+		 * Lotes de apostas por id de cenário, com a linha de cada aposta
+		 */
+		private final Map<Integer, Grupo> grupos = new LinkedHashMap<>();
+
+		/**
+		 * Linhas, relativas ao trecho, que não seguem o formato do arquivo
+		 */
+		private final Linhas linhasMalFormadas = new Linhas();
+
+		/**
+		 * Nomes de apostadores já lidos no trecho
+		 */
+		private final NomesLidos nomes = new NomesLidos();
+
+		/**
+		 * Início e fim de cada campo da linha que está sendo lida
+		 */
+		private final int[] inicios = new int[7];
+
+		private final int[] fins = new int[7];
+
+		/**
+		 * Quantidade de linhas do trecho, inclusive as vazias
+		 */
+		private int linhas;
+
+		/**
+		 * Quantidade de linhas não vazias do trecho
+		 */
+		private int linhasLidas;
+
+		private Trecho(ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+
+		private void le() {
+			int limite = this.bytes.limit();
+			int inicio = 0;
+			while (inicio < limite) {
+				int fim = inicio;
+				while (fim < limite && this.bytes.get(fim) != '\n')
+					fim++;
+				this.linhas++;
+				int fimLinha = fim;
+				if (fimLinha > inicio && this.bytes.get(fimLinha - 1) == '\r')
+					fimLinha--;
+				if (fimLinha > inicio) {
+					this.linhasLidas++;
+					if (!this.leLinha(inicio, fimLinha))
+						this.linhasMalFormadas.adicionar(this.linhas);
+				}
+				inicio = fim + 1;
+			}
+		}
+
+		/**
+		 * Método responsável por ler uma linha e colocar a sua aposta no lote do seu
+		 * cenário
+		 * @return false caso a linha não siga o formato do arquivo
+		 */
+		private boolean leLinha(int inicio, int fim) {
+			int campos = 0;
+			int campo = inicio;
+			for (int i = inicio; i <= fim; i++) {
+				if (i == fim || this.bytes.get(i) == SEPARADOR) {
+					if (campos == this.inicios.length)
+						return false;
+					this.inicios[campos] = campo;
+					this.fins[campos] = i;
+					campos++;
+					campo = i + 1;
+				}
+			}
+			if (this.fins[0] - this.inicios[0] != 1)
+				return false;
+			byte tipo = this.bytes.get(this.inicios[0]);
+			if (campos != (tipo == 'S' ? 5 : 7))
+				return false;
+			long cenario = this.inteiro(1);
+			long valor = this.inteiro(3);
+			if (cenario == Long.MIN_VALUE || valor == Long.MIN_VALUE)
+				return false;
+			String apostador = this.apostador();
+			String previsao = this.previsao();
+			if (tipo == 'S') {
+				this.grupo((int) cenario).adicionar(this.linhas).adicionar(apostador, (int) valor, previsao);
+				return true;
+			}
+			long custo = this.inteiro(6);
+			if (custo == Long.MIN_VALUE)
+				return false;
+			if (tipo == 'V') {
+				long seguro = this.inteiro(5);
+				if (seguro == Long.MIN_VALUE)
+					return false;
+				this.grupo((int) cenario).adicionar(this.linhas).adicionarSeguroValor(apostador, (int) valor, previsao,
+						(int) seguro, (int) custo);
+				return true;
+			}
+			if (tipo == 'T') {
+				double taxa = this.decimal(5);
+				if (Double.isNaN(taxa))
+					return false;
+				this.grupo((int) cenario).adicionar(this.linhas).adicionarSeguroTaxa(apostador, (int) valor, previsao,
+						taxa, (int) custo);
+				return true;
+			}
+			return false;
+		}
+
+		private Grupo grupo(int cenario) {
+			Grupo grupo = this.grupos.get(cenario);
+			if (grupo == null) {
+				grupo = new Grupo();
+				this.grupos.put(cenario, grupo);
+			}
+			return grupo;
+		}
+
+		/**
+		 * Método responsável por ler um campo inteiro, com sinal opcional
+		 * @return o valor do campo, ou Long.MIN_VALUE caso ele não seja um int
+		 */
+		private long inteiro(int campo) {
+			int i = this.inicios[campo];
+			int fim = this.fins[campo];
+			boolean negativo = i < fim && this.bytes.get(i) == '-';
+			if (negativo)
+				i++;
+			if (i == fim)
+				return Long.MIN_VALUE;
+			long valor = 0;
+			for (; i < fim; i++) {
+				int digito = this.bytes.get(i) - '0';
+				if (digito < 0 || digito > 9)
+					return Long.MIN_VALUE;
+				valor = valor * 10 + digito;
+				if (valor > Integer.MAX_VALUE + 1L)
+					return Long.MIN_VALUE;
+			}
+			valor = negativo ? -valor : valor;
+			return valor > Integer.MAX_VALUE ? Long.MIN_VALUE : valor;
+		}
+
+		/**
+		 * Método responsável por ler um campo decimal, separado por ponto ou vírgula.
+		 * Com até 15 dígitos o resultado é o mesmo de Double.parseDouble
+		 * @return o valor do campo, ou NaN caso ele não seja um número
+		 */
+		private double decimal(int campo) {
+			int inicio = this.inicios[campo];
+			int fim = this.fins[campo];
+			boolean negativo = inicio < fim && this.bytes.get(inicio) == '-';
+			int i = negativo ? inicio + 1 : inicio;
+			long mantissa = 0;
+			int digitos = 0;
+			int casas = -1;
+			for (; i < fim; i++) {
+				byte b = this.bytes.get(i);
+				if ((b == '.' || b == ',') && casas < 0) {
+					casas = 0;
+				} else if (b >= '0' && b <= '9') {
+					mantissa = mantissa * 10 + (b - '0');
+					digitos++;
+					if (casas >= 0)
+						casas++;
+				} else {
+					return Double.NaN;
+				}
+			}
+			if (digitos == 0)
+				return Double.NaN;
+			if (digitos > 15)
+				return this.decimalLento(inicio, fim);
+			double valor = casas > 0 ? mantissa / POTENCIAS_DE_DEZ[casas] : mantissa;
+			return negativo ? -valor : valor;
+		}
+
+		private double decimalLento(int inicio, int fim) {
+			byte[] texto = new byte[fim - inicio];
+			for (int i = 0; i < texto.length; i++) {
+				byte b = this.bytes.get(inicio + i);
+				texto[i] = b == ',' ? (byte) '.' : b;
+			}
+			return Double.parseDouble(new String(texto, StandardCharsets.US_ASCII));
+		}
+
+		/**
+		 * Método responsável por ler o nome do apostador. Nomes em branco viram a
+		 * String vazia, que a validação do lote rejeita
+		 */
+		private String apostador() {
+			int inicio = this.inicios[2];
+			int fim = this.fins[2];
+			if (this.emBranco(inicio, fim))
+				return "";
+			return this.nomes.nome(this.bytes, inicio, fim);
+		}
+
+		/**
+		 * Método responsável por ler a previsão. As previsões válidas não criam
+		 * Strings; as inválidas são convertidas para que a validação do lote informe
+		 * o erro
+		 */
+		private String previsao() {
+			int inicio = this.inicios[4];
+			int fim = this.fins[4];
+			if (this.igual(inicio, fim, ACONTECE))
+				return "VAI ACONTECER";
+			if (this.igual(inicio, fim, NAO_ACONTECE))
+				return "N VAI ACONTECER";
+			if (this.emBranco(inicio, fim))
+				return "";
+			return texto(this.bytes, inicio, fim);
+		}
+
+		private boolean igual(int inicio, int fim, byte[] esperado) {
+			if (fim - inicio != esperado.length)
+				return false;
+			for (int i = 0; i < esperado.length; i++) {
+				if (this.bytes.get(inicio + i) != esperado[i])
+					return false;
+			}
+			return true;
+		}
+
+		private boolean emBranco(int inicio, int fim) {
+			for (int i = inicio; i < fim; i++) {
+				if ((this.bytes.get(i) & 0xff) > ' ')
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Apostas de um trecho para um mesmo cenário
+	 */
+	private static class Grupo {
+
+		private final LoteApostas lote = new LoteApostas();
+
+		/**
+		 * Linha, relativa ao trecho, de cada aposta do lote
+		 */
+		private final Linhas linhas = new Linhas();
+
+		private LoteApostas adicionar(int linha) {
+			this.linhas.adicionar(linha);
+			return this.lote;
+		}
+	}
+
+	/**
+	 * Lista de números de linha
+	 */
+	private static class Linhas {
+
+		private int[] valores = new int[16];
+
+		private int tamanho;
+
+		private void adicionar(int linha) {
+			if (this.tamanho == this.valores.length)
+				this.valores = Arrays.copyOf(this.valores, this.tamanho * 2);
+			this.valores[this.tamanho++] = linha;
+		}
+	}
+
+	/**
+	 * Nomes de apostadores já lidos em um trecho, indexados pelos seus bytes. Cada
+	 * nome é convertido para String e procurado na TabelaApostadores uma única vez
+	 * por trecho
+	 */
+	private static class NomesLidos {
+
+		private byte[][] chaves = new byte[64][];
+
+		private int[] hashes = new int[64];
+
+		private String[] nomes = new String[64];
+
+		private int tamanho;
+
+		private String nome(ByteBuffer bytes, int inicio, int fim) {
+			int hash = 1;
+			for (int i = inicio; i < fim; i++)
+				hash = 31 * hash + bytes.get(i);
+			int mascara = this.chaves.length - 1;
+			int posicao = hash & mascara;
+			while (this.chaves[posicao] != null) {
+				if (this.hashes[posicao] == hash && iguais(this.chaves[posicao], bytes, inicio, fim))
+					return this.nomes[posicao];
+				posicao = (posicao + 1) & mascara;
+			}
+			byte[] chave = new byte[fim - inicio];
+			for (int i = 0; i < chave.length; i++)
+				chave[i] = bytes.get(inicio + i);
+			TabelaApostadores tabela = TabelaApostadores.getInstancia();
+			String nome = tabela.nome(tabela.id(new String(chave, StandardCharsets.UTF_8)));
+			this.chaves[posicao] = chave;
+			this.hashes[posicao] = hash;
+			this.nomes[posicao] = nome;
+			if (++this.tamanho * 2 > this.chaves.length)
+				this.cresce();
+			return nome;
+		}
+
+		private void cresce() {
+			byte[][] chaves = this.chaves;
+			int[] hashes = this.hashes;
+			String[] nomes = this.nomes;
+			this.chaves = new byte[chaves.length * 2][];
+			this.hashes = new int[chaves.length * 2];
+			this.nomes = new String[chaves.length * 2];
+			int mascara = this.chaves.length - 1;
+			for (int i = 0; i < chaves.length; i++) {
+				if (chaves[i] == null)
+					continue;
+				int posicao = hashes[i] & mascara;
+				while (this.chaves[posicao] != null)
+					posicao = (posicao + 1) & mascara;
+				this.chaves[posicao] = chaves[i];
+				this.hashes[posicao] = hashes[i];
+				this.nomes[posicao] = nomes[i];
+			}
+		}
+
+		private static boolean iguais(byte[] chave, ByteBuffer bytes, int inicio, int fim) {
+			if (chave.length != fim - inicio)
+				return false;
+			for (int i = 0; i < chave.length; i++) {
+				if (chave[i] != bytes.get(inicio + i))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Erro de uma linha do arquivo
+	 */
+	private static class Falha {
+
+		private final long linha;
+
+		private final String mensagem;
+
+		private Falha(long linha, String mensagem) {
+			this.linha = linha;
+			this.mensagem = mensagem;
+		}
+	}
+
+	private static String texto(ByteBuffer bytes, int inicio, int fim) {
+		byte[] texto = new byte[fim - inicio];
+		for (int i = 0; i < texto.length; i++)
+			texto[i] = bytes.get(inicio + i);
+		return new String(texto, StandardCharsets.UTF_8);
+	}
+
+}
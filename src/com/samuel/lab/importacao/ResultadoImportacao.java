@@ -0,0 +1,67 @@
+package com.samuel.lab.importacao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da importação de um arquivo de apostas: quantas linhas foram lidas,
+ * quantas apostas foram cadastradas e o erro de cada linha que não pôde ser
+ * cadastrada, na ordem do arquivo.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ResultadoImportacao {
+
+	/**
+	 * Quantidade de linhas não vazias lidas do arquivo
+	 */
+	private final long linhas;
+
+	/**
+	 * Quantidade de apostas cadastradas
+	 */
+	private final long cadastradas;
+
+	/**
+	 * Erros das linhas que não foram cadastradas, no formato "Linha n: mensagem"
+	 */
+	private final List<String> erros;
+
+	/**
+	 * Inicializa o resultado de uma importação
+	 * @param linhas : quantidade de linhas não vazias lidas
+	 * @param cadastradas : quantidade de apostas cadastradas
+	 * @param erros : erros das linhas que não foram cadastradas
+	 */
+	public ResultadoImportacao(long linhas, long cadastradas, List<String> erros) {
+		this.linhas = linhas;
+		this.cadastradas = cadastradas;
+		this.erros = Collections.unmodifiableList(erros);
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de linhas lidas
+	 * @return a quantidade de linhas não vazias do arquivo
+	 */
+	public long getLinhas() {
+		return this.linhas;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas cadastradas
+	 * @return a quantidade de apostas cadastradas
+	 */
+	public long getQuantidadeCadastradas() {
+		return this.cadastradas;
+	}
+
+	/**
+	 * Método responsável por recuperar os erros da importação
+	 * @return os erros, um por linha que não foi cadastrada
+	 */
+	public List<String> getErros() {
+		return this.erros;
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.samuel.lab.model;
 
+import com.samuel.lab.estruturas.TabelaApostadores;
 import com.samuel.lab.exception.CampoInvalidoException;
 
 /**
@@ -10,9 +11,9 @@ import com.samuel.lab.exception.CampoInvalidoException;
 public class Aposta {
 	
 	/**
-	 * Representa o nome do apostador 
+	 * Representa o id do apostador na tabela de apostadores
 	 */
-	private String apostador;
+	private int apostador;
 	
 	/**
 	 * Representa o valor em centavos da aposta
@@ -31,13 +32,22 @@ public class Aposta {
 	 * @param previsao : Previsão para a aposta segundo o apostador
 	 */
 	public Aposta(String apostador, int valor, boolean previsao) {
-		if(apostador== null || apostador.trim().isEmpty()) throw new CampoInvalidoException("Erro no cadastro de aposta: Apostador nao pode ser vazio ou nulo");
-		if(valor<=0 ) throw new CampoInvalidoException("Erro no cadastro de aposta: Valor nao pode ser menor ou igual a zero");
-		this.apostador = apostador;
+		valida(apostador, valor);
+		this.apostador = TabelaApostadores.getInstancia().id(apostador);
 		this.valor = valor;
 		this.previsao = previsao;
 	}
 
+	/**
+	 * Método responsável por validar os campos de uma aposta antes dela ser criada
+	 * @param apostador : Nome do apostador
+	 * @param valor : Valor da aposta
+	 */
+	public static void valida(String apostador, int valor) {
+		if(apostador== null || apostador.trim().isEmpty()) throw new CampoInvalidoException("Erro no cadastro de aposta: Apostador nao pode ser vazio ou nulo");
+		if(valor<=0 ) throw new CampoInvalidoException("Erro no cadastro de aposta: Valor nao pode ser menor ou igual a zero");
+	}
+
 	/**
 	 * Método acessível para o valor da aposta
 	 * @return Um valor inteiro representando o valor da aposta em centavos
@@ -60,7 +70,7 @@ public class Aposta {
 	 */
 	@Override
 	public String toString() {
-		return String.format("%s - R$%.2f - %s", this.apostador,(double)this.valor/100,(this.previsao?"VAI ACONTECER":"N VAI ACONTECER"));
+		return String.format("%s - R$%.2f - %s", this.getApostador(),(double)this.valor/100,(this.previsao?"VAI ACONTECER":"N VAI ACONTECER"));
 	}
 
 	/**
@@ -71,7 +81,7 @@ public class Aposta {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((apostador == null) ? 0 : apostador.hashCode());
+		result = prime * result + this.getApostador().hashCode();
 		result = prime * result + (previsao ? 1231 : 1237);
 		result = prime * result + valor;
 		return result;
@@ -90,10 +100,7 @@ public class Aposta {
 		if (getClass() != obj.getClass())
 			return false;
 		Aposta other = (Aposta) obj;
-		if (apostador == null) {
-			if (other.apostador != null)
-				return false;
-		} else if (!apostador.equals(other.apostador))
+		if (apostador != other.apostador)
 			return false;
 		if (previsao != other.previsao)
 			return false;
@@ -107,6 +114,15 @@ public class Aposta {
 	 * @return : O nome do apostador
 	 */
 	public String getApostador() {
+		return TabelaApostadores.getInstancia().nome(this.apostador);
+	}
+
+	/**
+	 * Método resposável por recuperar o id do apostador da aposta, que pode ser
+	 * usado para agrupar as apostas de um mesmo apostador
+	 * @return : O id do apostador
+	 */
+	public int getIdApostador() {
 		return this.apostador;
 	}
 }
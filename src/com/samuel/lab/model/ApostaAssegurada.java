@@ -35,6 +35,10 @@ public abstract class ApostaAssegurada extends Aposta {
 		return this.custo;
 	}
 	
-	public abstract double getSeguro();
+	/**
+	 * Método responsável por recuperar o valor do seguro da aposta
+	 * @return o valor do seguro em centavos
+	 */
+	public abstract long getSeguro();
 	
 }
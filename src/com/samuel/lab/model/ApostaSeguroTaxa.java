@@ -10,9 +10,15 @@ import com.samuel.lab.exception.CampoInvalidoException;
 public class ApostaSeguroTaxa extends ApostaAssegurada{
 	
 	/**
-	 * Representa a taxa que assegura a aposta
+	 * Representa a taxa que assegura a aposta, em ponto fixo
 	 */
-	private double taxa;
+	private long taxa;
+
+	/**
+	 * Representa o valor do seguro da aposta em centavos, calculado uma única vez a
+	 * partir da taxa, já que a taxa e o valor de uma aposta não mudam
+	 */
+	private long seguro;
 
 	/**
 	 * Método responsável por inicializar uma aposta assegurada por uma taxa no sistema
@@ -24,9 +30,9 @@ public class ApostaSeguroTaxa extends ApostaAssegurada{
 	 */
 	public ApostaSeguroTaxa(String apostador, int valor, boolean previsao,double taxa,int custo) {
 		super(apostador, valor, previsao,custo);
-		if(taxa <= 0) throw new CampoInvalidoException("Erro no cadastro de aposta: taxa inválida");
-		this.taxa = taxa;
-		
+		this.taxa = TaxaFixa.converter(taxa);
+		if(this.taxa <= 0) throw new CampoInvalidoException("Erro no cadastro de aposta: taxa inválida");
+		this.seguro = TaxaFixa.aplicar(super.getValor(), this.taxa);
 	}
 	
 	/**
@@ -35,7 +41,7 @@ public class ApostaSeguroTaxa extends ApostaAssegurada{
 	 */
 	@Override
 	public String toString() {
-		String str = super.toString() + String.format(" - ASSEGURADA (TAXA) - R$ %.2f", taxa*100);
+		String str = super.toString() + String.format(" - ASSEGURADA (TAXA) - R$ %.2f", this.getTaxa() * 100);
 		return str;
 	}
 
@@ -48,7 +54,7 @@ public class ApostaSeguroTaxa extends ApostaAssegurada{
 		final int prime = 31;
 		int result = super.hashCode();
 		long temp;
-		temp = Double.doubleToLongBits(taxa);
+		temp = Double.doubleToLongBits(this.getTaxa());
 		result = prime * result + (int) (temp ^ (temp >>> 32));
 		return result;
 	}
@@ -66,7 +72,7 @@ public class ApostaSeguroTaxa extends ApostaAssegurada{
 		if (getClass() != obj.getClass())
 			return false;
 		ApostaSeguroTaxa other = (ApostaSeguroTaxa) obj;
-		if (Double.doubleToLongBits(taxa) != Double.doubleToLongBits(other.taxa))
+		if (taxa != other.taxa)
 			return false;
 		return true;
 	}
@@ -76,11 +82,23 @@ public class ApostaSeguroTaxa extends ApostaAssegurada{
 	 * @return o valor da taxa
 	 */
 	public double getTaxa() {
+		return TaxaFixa.paraDouble(this.taxa);
+	}
+
+	/**
+	 * Método responsável por recuperar a taxa da aposta em ponto fixo
+	 * @return a taxa em milionésimos
+	 */
+	public long getTaxaFixa() {
 		return this.taxa;
 	}
 	
-	public double getSeguro() {
-		return super.getValor() * this.taxa;
+	/**
+	 * Método responsável por recuperar o valor do seguro da aposta
+	 * @return o valor do seguro em centavos, arredondado para baixo
+	 */
+	public long getSeguro() {
+		return this.seguro;
 	}
 
 }
@@ -72,7 +72,7 @@ public class ApostaSeguroValor extends ApostaAssegurada{
 	 * Método responsável por recuperar o valor do seguro da aposta
 	 * @return o valor do seguro da aposta
 	 */
-	public double getSeguro() {
+	public long getSeguro() {
 		return this.seguro;
 	}
 	
@@ -1,11 +1,16 @@
 package com.samuel.lab.model;
 
+import java.io.IOException;
+import java.util.List;
+
 import com.samuel.lab.controller.ApostaController;
 import com.samuel.lab.exception.CampoInvalidoException;
 import com.samuel.lab.exception.CenarioJaEncerradoException;
 
 /**
- * Classe que representa um cenário que será exposto para apostas
+ * Classe que representa um cenário que será exposto para apostas. O monitor do
+ * cenário protege as suas apostas: o CenarioController o utiliza nos cadastros e
+ * alterações, e a exibição das apostas também o utiliza
  * 
  * @author Samuel Pereira de Vasconcelos
  */
@@ -19,12 +24,12 @@ public class Cenario {
 	/**
 	 * Representa se o cenário está finalizado ou não
 	 */
-	private boolean encerrado;
+	private volatile boolean encerrado;
 
 	/**
 	 * Representa se o cenário ocorreu ou não
 	 */
-	private boolean ocorreu;
+	private volatile boolean ocorreu;
 
 	/**
 	 * Representa a descrição do cenário
@@ -41,6 +46,17 @@ public class Cenario {
 	 */
 	private ApostaController apostaController;
 
+	/**
+	 * Método responsável por validar a descrição de um cenário antes dele ser criado
+	 * 
+	 * @param descricao
+	 *            : Descrição do cenário
+	 */
+	public static void valida(String descricao) {
+		if (descricao == null || descricao.trim().isEmpty())
+			throw new CampoInvalidoException("Erro no cadastro de cenario: Descricao nao pode ser vazia");
+	}
+
 	/**
 	 * Método responsável por inicializar um cenário no sistema
 	 * 
@@ -52,8 +68,7 @@ public class Cenario {
 	public Cenario(int id, String descricao) {
 		if (id <= 0)
 			throw new CampoInvalidoException("Erro no cadastro de aposta: Cenario invalido");
-		if (descricao == null || descricao.trim().isEmpty())
-			throw new CampoInvalidoException("Erro no cadastro de cenario: Descricao nao pode ser vazia");
+		valida(descricao);
 		this.id = id;
 		this.descricao = descricao;
 		this.ocorreu = false;
@@ -161,6 +176,17 @@ public class Cenario {
 
 	}
 
+	/**
+	 * Método responsável por cadastrar um lote de apostas no cenário
+	 *
+	 * @param lote
+	 *            : Apostas que serão cadastradas
+	 * @return o resultado do cadastro de cada aposta do lote
+	 */
+	public ResultadoLote apostar(LoteApostas lote) {
+		return this.apostaController.cadastrar(lote);
+	}
+
 	/**
 	 * Método responsável por verificar se o cenário ocorreu ou não
 	 * 
@@ -179,7 +205,19 @@ public class Cenario {
 	 * @return Um valor inteiroi representando o tatal em centavos do valor que será
 	 *         adicionado ao sistema
 	 */
-	public int calculaCaixa(double taxa) {
+	public long calculaCaixa(double taxa) {
+		return this.calculaCaixa(TaxaFixa.converter(taxa));
+	}
+
+	/**
+	 * Método responsável por calcular o valor do caixa do cenário que será
+	 * destinado ao sistema, com a taxa em ponto fixo
+	 * 
+	 * @param taxa
+	 *            : A taxa que o sistema usa para o cálculo, em milionésimos
+	 * @return o valor em centavos que será adicionado ao sistema
+	 */
+	public long calculaCaixa(long taxa) {
 		return this.apostaController.calculaCaixaPerdedoras(this.ocorreu, taxa);
 	}
 
@@ -188,7 +226,7 @@ public class Cenario {
 	 * 
 	 * @return o valor do caixa do cenário
 	 */
-	public int getCaixa() {
+	public long getCaixa() {
 		return this.apostaController.calculaCaixa(this.ocorreu);
 	}
 
@@ -198,7 +236,7 @@ public class Cenario {
 	 * @return um valor inteiro representando o valor total acumulado do cenário em
 	 *         centavos
 	 */
-	public int getValorTotalDeApostas() {
+	public long getValorTotalDeApostas() {
 		return this.apostaController.getValorTotal();
 	}
 
@@ -208,10 +246,36 @@ public class Cenario {
 	 * 
 	 * @return um String representando todas as Strings do cenário
 	 */
-	public String exibiApostas() {
+	public synchronized String exibiApostas() {
 		return this.apostaController.exibir();
 	}
 
+	/**
+	 * Método responsável por recuperar uma página das apostas do cenário
+	 * 
+	 * @param inicio
+	 *            : Posição da primeira aposta da página, começando em 0
+	 * @param quantidade
+	 *            : Quantidade máxima de apostas da página
+	 * @return as apostas da página
+	 */
+	public synchronized List<Aposta> getApostas(int inicio, int quantidade) {
+		return this.apostaController.getApostas(inicio, quantidade);
+	}
+
+	/**
+	 * Método responsável por escrever a representação textual de todas as apostas
+	 * do cenário, uma aposta por linha
+	 * 
+	 * @param saida
+	 *            : Destino onde as apostas serão escritas
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	public synchronized void exibiApostas(Appendable saida) throws IOException {
+		this.apostaController.exibir(saida);
+	}
+
 	/**
 	 * Método responsável por calcular a quantidade de apostas cadastradas no
 	 * cenário
@@ -312,7 +376,7 @@ public class Cenario {
 	 * 
 	 * @return : o valor do seguro das apostas do cenário
 	 */
-	public int calculaSeguro() {
+	public long calculaSeguro() {
 		return this.apostaController.seguroPerdedoras(this.ocorreu);
 	}
 
@@ -321,7 +385,7 @@ public class Cenario {
 	 * 
 	 * @return : o valor do custo das apostas
 	 */
-	public int getCustosApostas() {
+	public long getCustosApostas() {
 		return this.apostaController.getCustos();
 	}
 
@@ -329,4 +393,14 @@ public class Cenario {
 		return this.descricao;
 	}
 
+	/**
+	 * Método responsável por recuperar o controlador das apostas do cenário. As
+	 * apostas só devem ser lidas com o monitor do cenário
+	 * 
+	 * @return o controlador de apostas
+	 */
+	public ApostaController getApostaController() {
+		return this.apostaController;
+	}
+
 }
@@ -0,0 +1,46 @@
+package com.samuel.lab.model;
+
+/**
+ * Interface que recebe os pagamentos de um cenário encerrado à medida que eles
+ * são calculados: o prêmio de cada aposta vencedora e o seguro de cada aposta
+ * assegurada perdedora. As apostas são identificadas pelo seu tipo e pelo seu
+ * id, o mesmo nos dois métodos, sem que objetos Aposta precisem ser criados.
+ * Todos os valores são em centavos.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public interface DestinoPagamentos {
+
+	/**
+	 * Método responsável por receber o prêmio de uma aposta vencedora
+	 * 
+	 * @param assegurada
+	 *            : Indica se a aposta é assegurada
+	 * @param idAposta
+	 *            : id da aposta entre as do seu tipo, começando em 1 na ordem de
+	 *            cadastro. Para as asseguradas é o id devolvido no cadastro
+	 * @param apostador
+	 *            : Nome do apostador
+	 * @param valor
+	 *            : Valor da aposta
+	 * @param premio
+	 *            : Parte do rateio destinada à aposta
+	 */
+	public void premio(boolean assegurada, int idAposta, String apostador, int valor, long premio);
+
+	/**
+	 * Método responsável por receber o seguro de uma aposta assegurada perdedora
+	 * 
+	 * @param idAposta
+	 *            : id da aposta assegurada, o mesmo informado em premio
+	 * @param apostador
+	 *            : Nome do apostador
+	 * @param valor
+	 *            : Valor da aposta
+	 * @param seguro
+	 *            : Valor do seguro devolvido ao apostador
+	 */
+	public void seguro(int idAposta, String apostador, int valor, long seguro);
+
+}
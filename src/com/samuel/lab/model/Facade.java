@@ -1,6 +1,14 @@
  package com.samuel.lab.model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
 import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.importacao.ImportadorApostas;
+import com.samuel.lab.importacao.ResultadoImportacao;
+import com.samuel.lab.persistencia.Diario;
+import com.samuel.lab.persistencia.Instantaneo;
 
 import easyaccept.EasyAccept;
 
@@ -18,24 +26,150 @@ public class Facade implements SistemadeApostas {
 	private CenarioController cenarioController;
 	
 	/**
-	 * Método para inicializar o sistema
+	 * Método para inicializar o sistema. O diário atual, caso haja, é fechado e o
+	 * sistema deixa de ser persistido
 	 * 
 	 * @param centavos
 	 *            : centavos inicial no caixa do sistema
 	 * @param taxa
 	 *            : Taxa que será cobrada aos apostadores
+	 * @throws UncheckedIOException
+	 *             caso o diário atual não possa ser fechado
 	 */
 	@Override
 	public void inicializa(int centavos, double taxa) {
+		try {
+			this.fecharDiario();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 		this.cenarioController = new CenarioController(centavos, taxa);
 	}
 
+	/**
+	 * Método para inicializar o sistema persistido em um diário. Caso o diário já
+	 * exista, o sistema é reconstruído a partir dele e o caixa e a taxa informados
+	 * são ignorados. O diário atual, caso haja, é fechado antes, assim o mesmo
+	 * arquivo pode ser reaberto
+	 * 
+	 * @param centavos
+	 *            : centavos inicial no caixa do sistema
+	 * @param taxa
+	 *            : Taxa que será cobrada aos apostadores
+	 * @param diario
+	 *            : Caminho do arquivo do diário
+	 * @throws IOException
+	 *             caso o diário não possa ser lido ou criado, ou o diário atual
+	 *             não possa ser fechado
+	 */
+	@Override
+	public void inicializa(int centavos, double taxa, String diario) throws IOException {
+		this.fecharDiario();
+		this.cenarioController = Diario.abrir(Paths.get(diario), centavos, taxa);
+	}
+
+	/**
+	 * Método responsável por gravar as operações pendentes no diário e fechá-lo.
+	 * Depois disso o sistema deixa de ser persistido e as operações seguintes não
+	 * são registradas. Não faz nada caso o sistema não seja persistido
+	 * 
+	 * @throws IOException
+	 *             caso a gravação do diário tenha falhado
+	 */
+	@Override
+	public void fecharDiario() throws IOException {
+		if (this.cenarioController == null)
+			return;
+		Diario diario = this.cenarioController.getDiario();
+		if (diario != null) {
+			this.cenarioController.setDiario(null);
+			diario.close();
+		}
+	}
+
+	/**
+	 * Método responsável por esperar que todas as operações feitas até aqui
+	 * estejam gravadas e sincronizadas com o disco. Não faz nada caso o sistema
+	 * não seja persistido
+	 * 
+	 * @throws IOException
+	 *             caso a gravação do diário tenha falhado
+	 */
+	@Override
+	public void sincronizarDiario() throws IOException {
+		if (this.cenarioController == null)
+			return;
+		Diario diario = this.cenarioController.getDiario();
+		if (diario != null)
+			diario.sincronizar();
+	}
+
+	/**
+	 * Método responsável por salvar um instantâneo de todo o estado do sistema
+	 * 
+	 * @param arquivo
+	 *            : Caminho do instantâneo
+	 * @throws IOException
+	 *             caso o instantâneo não possa ser escrito
+	 */
+	@Override
+	public void salvarInstantaneo(String arquivo) throws IOException {
+		Instantaneo.salvar(this.cenarioController, Paths.get(arquivo));
+	}
+
+	/**
+	 * Método responsável por substituir o estado do sistema pelo de um
+	 * instantâneo. O diário atual é fechado e o sistema deixa de ser persistido
+	 * 
+	 * @param arquivo
+	 *            : Caminho do instantâneo
+	 * @throws IOException
+	 *             caso o instantâneo não possa ser lido ou o diário atual não
+	 *             possa ser fechado
+	 */
+	@Override
+	public void carregarInstantaneo(String arquivo) throws IOException {
+		this.fecharDiario();
+		this.cenarioController = Instantaneo.carregar(Paths.get(arquivo));
+	}
+
+	/**
+	 * Método responsável por substituir o estado do sistema pelo de um
+	 * instantâneo e dos registros do diário feitos depois dele. O diário atual é
+	 * fechado, e o sistema passa a ser persistido no diário informado
+	 * 
+	 * @param arquivo
+	 *            : Caminho do instantâneo
+	 * @param diario
+	 *            : Caminho do diário em que o instantâneo foi salvo
+	 * @throws IOException
+	 *             caso os arquivos não possam ser lidos, o instantâneo não tenha
+	 *             sido salvo com um diário ou o diário atual não possa ser fechado
+	 */
+	@Override
+	public void carregarInstantaneo(String arquivo, String diario) throws IOException {
+		this.fecharDiario();
+		this.cenarioController = Instantaneo.carregar(Paths.get(arquivo), Paths.get(diario));
+	}
+
 	/**
 	 * Método responsável por retornar o caixa do sistema
 	 * 
 	 * @return um inteiro com o valor em caixa do sistema
+	 * @throws ArithmeticException
+	 *             caso o caixa não caiba em um int
 	 */
 	public int getCaixa() {
+		return Math.toIntExact(this.cenarioController.getCaixa());
+	}
+
+	/**
+	 * Método responsável por retornar o caixa do sistema, sem o limite de um int
+	 * 
+	 * @return o valor em caixa do sistema em centavos
+	 */
+	@Override
+	public long getCaixaLong() {
 		return this.cenarioController.getCaixa();
 	}
 
@@ -72,6 +206,20 @@ public class Facade implements SistemadeApostas {
 		return cenarioController.exibirCenarios();
 	}
 
+	/**
+	 * Método responsável por escrever todos os cenários cadastrados no sistema, um
+	 * por linha, diretamente em uma saída
+	 * 
+	 * @param saida
+	 *            : Destino onde os cenários serão escritos
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	@Override
+	public void exibirCenarios(Appendable saida) throws IOException {
+		cenarioController.exibirCenarios(saida);
+	}
+
 	/**
 	 * Método responsável por cadastrar uma aposta
 	 * 
@@ -89,6 +237,39 @@ public class Facade implements SistemadeApostas {
 		this.cenarioController.cadastrarAposta(cenario, apostador, valor, previsao);
 	}
 
+	/**
+	 * Método responsável por cadastrar um lote de apostas em um cenário. O lote
+	 * pode misturar apostas simples e asseguradas por valor ou por taxa; as
+	 * apostas inválidas não interrompem o cadastro das demais
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando em qual cenário serão feitas as apostas
+	 * @param lote
+	 *            : As apostas que serão cadastradas
+	 * @return o resultado do cadastro de cada aposta, com o id das apostas
+	 *         asseguradas e o erro das apostas que não foram cadastradas
+	 */
+	@Override
+	public ResultadoLote cadastrarApostas(int cenario, LoteApostas lote) {
+		return this.cenarioController.cadastrarApostas(cenario, lote);
+	}
+
+	/**
+	 * Método responsável por importar as apostas de um arquivo, uma aposta por
+	 * linha. Linhas inválidas não interrompem a importação
+	 * 
+	 * @param arquivo
+	 *            : Caminho do arquivo de apostas
+	 * @return o resultado da importação, com o erro de cada linha que não foi
+	 *         cadastrada
+	 * @throws IOException
+	 *             caso o arquivo não possa ser lido
+	 */
+	@Override
+	public ResultadoImportacao importarApostas(String arquivo) throws IOException {
+		return new ImportadorApostas(this.cenarioController).importar(Paths.get(arquivo));
+	}
+
 	/**
 	 * Método responsável por calcular o valor total arrecardado com as apostas de
 	 * um cenário
@@ -99,6 +280,19 @@ public class Facade implements SistemadeApostas {
 	 */
 	@Override
 	public int valorTotalDeApostas(int cenario) {
+		return Math.toIntExact(this.cenarioController.valorTotalDeApostas(cenario));
+	}
+
+	/**
+	 * Método responsável por calcular o valor total arrecadado com as apostas de
+	 * um cenário, sem o limite de um int
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário que será verificado
+	 * @return o total arrecadado pelo cenário em centavos
+	 */
+	@Override
+	public long valorTotalDeApostasLong(int cenario) {
 		return this.cenarioController.valorTotalDeApostas(cenario);
 	}
 
@@ -126,6 +320,38 @@ public class Facade implements SistemadeApostas {
 		return this.cenarioController.exibirApostas(cenario);
 	}
 
+	/**
+	 * Método responsável por escrever todas as apostas de um cenário, uma por
+	 * linha, diretamente em uma saída
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @param saida
+	 *            : Destino onde as apostas serão escritas
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	@Override
+	public void exibeApostas(int cenario, Appendable saida) throws IOException {
+		this.cenarioController.exibirApostas(cenario, saida);
+	}
+
+	/**
+	 * Método responsável por exibir uma página das apostas de um cenário
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @param inicio
+	 *            : Posição da primeira aposta da página, começando em 0
+	 * @param quantidade
+	 *            : Quantidade máxima de apostas da página
+	 * @return : Uma String com as apostas da página, uma por linha
+	 */
+	@Override
+	public String exibeApostas(int cenario, int inicio, int quantidade) {
+		return this.cenarioController.exibirApostas(cenario, inicio, quantidade);
+	}
+
 	/**
 	 * Método responsável encerrar um cenário
 	 * 
@@ -139,6 +365,21 @@ public class Facade implements SistemadeApostas {
 		this.cenarioController.fecharAposta(cenario, ocorreu);
 	}
 
+	/**
+	 * Método responsável por encerrar vários cenários de uma só vez, retornando o
+	 * caixa, o rateio e os seguros de cada um. Cenários diferentes são encerrados
+	 * em paralelo
+	 * 
+	 * @param lote
+	 *            : Os cenários que serão encerrados e se cada um ocorreu
+	 * @return o resultado do encerramento de cada cenário, com o erro dos cenários
+	 *         que não foram encerrados
+	 */
+	@Override
+	public ResultadoFechamentos fecharApostas(LoteFechamentos lote) {
+		return this.cenarioController.fecharApostas(lote);
+	}
+
 	/**
 	 * Método responsável por retornar o valor total de um cenário encerrado que
 	 * será destinado ao caixa
@@ -149,6 +390,19 @@ public class Facade implements SistemadeApostas {
 	 */
 	@Override
 	public int getCaixaCenario(int cenario) {
+		return Math.toIntExact(this.cenarioController.getCaixaCenario(cenario));
+	}
+
+	/**
+	 * Método responsável por retornar o valor de um cenário encerrado que será
+	 * destinado ao caixa, sem o limite de um int
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @return o caixa do cenário em centavos
+	 */
+	@Override
+	public long getCaixaCenarioLong(int cenario) {
 		return this.cenarioController.getCaixaCenario(cenario);
 	}
 
@@ -162,9 +416,38 @@ public class Facade implements SistemadeApostas {
 	 */
 	@Override
 	public int getTotalRateioCenario(int cenario) {
+		return Math.toIntExact(this.cenarioController.getTotalRateio(cenario));
+	}
+
+	/**
+	 * Método responsável por retornar o valor de um cenário encerrado que será
+	 * distribuído entre as apostas vencedoras, sem o limite de um int
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @return o valor de rateio em centavos
+	 */
+	@Override
+	public long getTotalRateioCenarioLong(int cenario) {
 		return this.cenarioController.getTotalRateio(cenario);
 	}
 
+	/**
+	 * Método responsável por distribuir o rateio de um cenário encerrado, entregando
+	 * ao destino o prêmio de cada aposta vencedora e o seguro de cada aposta
+	 * assegurada perdedora, em centavos
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @param destino
+	 *            : Destino dos pagamentos
+	 * @return o total pago, somando prêmios e seguros
+	 */
+	@Override
+	public long distribuirRateio(int cenario, DestinoPagamentos destino) {
+		return this.cenarioController.distribuirRateio(cenario, destino);
+	}
+
 	
 	/**
 	 * Método responsável por realizar os testes de validação da facade
@@ -0,0 +1,228 @@
+package com.samuel.lab.model;
+
+import java.util.Arrays;
+
+/**
+ * Lote de apostas que serão cadastradas de uma só vez em um cenário. O lote
+ * guarda os campos de cada aposta em colunas, sem validá-los: cada aposta é
+ * validada no cadastro do lote, e as inválidas são informadas no ResultadoLote
+ * sem impedir o cadastro das demais.
+ *
+ * Um lote pode misturar apostas simples, asseguradas por valor e asseguradas
+ * por taxa.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class LoteApostas {
+
+	/**
+	 * Tipo de uma aposta simples
+	 */
+	public static final int SIMPLES = 0;
+
+	/**
+	 * Tipo de uma aposta assegurada por valor
+	 */
+	public static final int SEGURO_VALOR = 1;
+
+	/**
+	 * Tipo de uma aposta assegurada por taxa
+	 */
+	public static final int SEGURO_TAXA = 2;
+
+	/**
+	 * Tipo de cada aposta do lote
+	 */
+	private byte[] tipos;
+
+	/**
+	 * Nome do apostador de cada aposta
+	 */
+	private String[] apostadores;
+
+	/**
+	 * Valor de cada aposta
+	 */
+	private int[] valores;
+
+	/**
+	 * Previsão de cada aposta
+	 */
+	private String[] previsoes;
+
+	/**
+	 * Seguro de cada aposta assegurada por valor
+	 */
+	private int[] seguros;
+
+	/**
+	 * Taxa de cada aposta assegurada por taxa
+	 */
+	private double[] taxas;
+
+	/**
+	 * Custo de cada aposta assegurada
+	 */
+	private int[] custos;
+
+	/**
+	 * Quantidade de apostas do lote
+	 */
+	private int tamanho;
+
+	/**
+	 * Inicializa um lote vazio
+	 */
+	public LoteApostas() {
+		this(16);
+	}
+
+	/**
+	 * Inicializa um lote vazio com espaço para uma quantidade de apostas
+	 * @param capacidade : Quantidade de apostas esperada
+	 */
+	public LoteApostas(int capacidade) {
+		capacidade = Math.max(capacidade, 1);
+		this.tipos = new byte[capacidade];
+		this.apostadores = new String[capacidade];
+		this.valores = new int[capacidade];
+		this.previsoes = new String[capacidade];
+		this.seguros = new int[capacidade];
+		this.taxas = new double[capacidade];
+		this.custos = new int[capacidade];
+	}
+
+	/**
+	 * Método responsável por adicionar uma aposta simples ao lote
+	 * @param apostador : Nome do apostador
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 * @return o próprio lote
+	 */
+	public LoteApostas adicionar(String apostador, int valor, String previsao) {
+		this.adiciona(SIMPLES, apostador, valor, previsao, 0, 0, 0);
+		return this;
+	}
+
+	/**
+	 * Método responsável por adicionar uma aposta assegurada por valor ao lote
+	 * @param apostador : Nome do apostador
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 * @param seguro : Valor do seguro da aposta
+	 * @param custo : Custo da aposta para o cenário
+	 * @return o próprio lote
+	 */
+	public LoteApostas adicionarSeguroValor(String apostador, int valor, String previsao, int seguro, int custo) {
+		this.adiciona(SEGURO_VALOR, apostador, valor, previsao, seguro, 0, custo);
+		return this;
+	}
+
+	/**
+	 * Método responsável por adicionar uma aposta assegurada por taxa ao lote
+	 * @param apostador : Nome do apostador
+	 * @param valor : Valor da aposta
+	 * @param previsao : Previsão da aposta
+	 * @param taxa : Taxa que assegura a aposta
+	 * @param custo : Custo da aposta para o cenário
+	 * @return o próprio lote
+	 */
+	public LoteApostas adicionarSeguroTaxa(String apostador, int valor, String previsao, double taxa, int custo) {
+		this.adiciona(SEGURO_TAXA, apostador, valor, previsao, 0, taxa, custo);
+		return this;
+	}
+
+	private void adiciona(int tipo, String apostador, int valor, String previsao, int seguro, double taxa, int custo) {
+		if (this.tamanho == this.tipos.length) {
+			int capacidade = this.tamanho * 2;
+			this.tipos = Arrays.copyOf(this.tipos, capacidade);
+			this.apostadores = Arrays.copyOf(this.apostadores, capacidade);
+			this.valores = Arrays.copyOf(this.valores, capacidade);
+			this.previsoes = Arrays.copyOf(this.previsoes, capacidade);
+			this.seguros = Arrays.copyOf(this.seguros, capacidade);
+			this.taxas = Arrays.copyOf(this.taxas, capacidade);
+			this.custos = Arrays.copyOf(this.custos, capacidade);
+		}
+		this.tipos[this.tamanho] = (byte) tipo;
+		this.apostadores[this.tamanho] = apostador;
+		this.valores[this.tamanho] = valor;
+		this.previsoes[this.tamanho] = previsao;
+		this.seguros[this.tamanho] = seguro;
+		this.taxas[this.tamanho] = taxa;
+		this.custos[this.tamanho] = custo;
+		this.tamanho++;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas do lote
+	 * @return a quantidade de apostas
+	 */
+	public int tamanho() {
+		return this.tamanho;
+	}
+
+	/**
+	 * Método responsável por recuperar o tipo de uma aposta do lote
+	 * @param posicao : posição da aposta no lote
+	 * @return SIMPLES, SEGURO_VALOR ou SEGURO_TAXA
+	 */
+	public int getTipo(int posicao) {
+		return this.tipos[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o nome do apostador de uma aposta do lote
+	 * @param posicao : posição da aposta no lote
+	 * @return o nome do apostador
+	 */
+	public String getApostador(int posicao) {
+		return this.apostadores[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o valor de uma aposta do lote
+	 * @param posicao : posição da aposta no lote
+	 * @return o valor da aposta
+	 */
+	public int getValor(int posicao) {
+		return this.valores[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar a previsão de uma aposta do lote
+	 * @param posicao : posição da aposta no lote
+	 * @return a previsão da aposta
+	 */
+	public String getPrevisao(int posicao) {
+		return this.previsoes[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o seguro de uma aposta assegurada por valor
+	 * @param posicao : posição da aposta no lote
+	 * @return o valor do seguro
+	 */
+	public int getSeguro(int posicao) {
+		return this.seguros[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar a taxa de uma aposta assegurada por taxa
+	 * @param posicao : posição da aposta no lote
+	 * @return a taxa do seguro
+	 */
+	public double getTaxa(int posicao) {
+		return this.taxas[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o custo de uma aposta assegurada
+	 * @param posicao : posição da aposta no lote
+	 * @return o custo da aposta
+	 */
+	public int getCusto(int posicao) {
+		return this.custos[posicao];
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.samuel.lab.model;
+
+import java.util.Arrays;
+
+/**
+ * Lote de cenários que serão fechados de uma só vez, cada um com a indicação de
+ * se ocorreu ou não. Os pares não são validados ao serem adicionados: cada
+ * fechamento é validado quando o lote é fechado, e os que falharem são
+ * informados no ResultadoFechamentos sem impedir o fechamento dos demais.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class LoteFechamentos {
+
+	/**
+	 * Id de cada cenário do lote
+	 */
+	private int[] cenarios;
+
+	/**
+	 * Indica se cada cenário ocorreu
+	 */
+	private boolean[] ocorreram;
+
+	/**
+	 * Quantidade de cenários do lote
+	 */
+	private int tamanho;
+
+	/**
+	 * Inicializa um lote vazio
+	 */
+	public LoteFechamentos() {
+		this(16);
+	}
+
+	/**
+	 * Inicializa um lote vazio com espaço para uma quantidade de cenários
+	 * @param capacidade : quantidade de cenários esperada
+	 */
+	public LoteFechamentos(int capacidade) {
+		this.cenarios = new int[Math.max(capacidade, 1)];
+		this.ocorreram = new boolean[this.cenarios.length];
+	}
+
+	/**
+	 * Método responsável por adicionar um cenário ao lote
+	 * @param idCenario : id do cenário que será fechado
+	 * @param ocorreu : indica se o cenário ocorreu
+	 * @return o próprio lote
+	 */
+	public LoteFechamentos adicionar(int idCenario, boolean ocorreu) {
+		if (this.tamanho == this.cenarios.length) {
+			this.cenarios = Arrays.copyOf(this.cenarios, this.tamanho * 2);
+			this.ocorreram = Arrays.copyOf(this.ocorreram, this.tamanho * 2);
+		}
+		this.cenarios[this.tamanho] = idCenario;
+		this.ocorreram[this.tamanho] = ocorreu;
+		this.tamanho++;
+		return this;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de cenários do lote
+	 * @return a quantidade de cenários
+	 */
+	public int tamanho() {
+		return this.tamanho;
+	}
+
+	/**
+	 * Método responsável por recuperar o id de um cenário do lote
+	 * @param posicao : posição do cenário no lote
+	 * @return o id do cenário
+	 */
+	public int getCenario(int posicao) {
+		return this.cenarios[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar se um cenário do lote ocorreu
+	 * @param posicao : posição do cenário no lote
+	 * @return true caso o cenário tenha ocorrido
+	 */
+	public boolean isOcorreu(int posicao) {
+		return this.ocorreram[posicao];
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.samuel.lab.model;
+
+/**
+ * Resultado do fechamento de um LoteFechamentos. Para cada posição do lote
+ * guarda o caixa destinado ao sistema, o total de rateio e o total de seguros
+ * pagos pelo cenário fechado, ou a mensagem de erro do cenário que não pôde ser
+ * fechado.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ResultadoFechamentos {
+
+	/**
+	 * Caixa de cada cenário destinado ao sistema
+	 */
+	private long[] caixas;
+
+	/**
+	 * Total de rateio de cada cenário
+	 */
+	private long[] rateios;
+
+	/**
+	 * Total dos seguros pagos por cada cenário
+	 */
+	private long[] seguros;
+
+	/**
+	 * Mensagem de erro de cada cenário que não foi fechado, ou null
+	 */
+	private String[] erros;
+
+	/**
+	 * Inicializa o resultado de um lote
+	 * @param tamanho : quantidade de cenários do lote
+	 */
+	public ResultadoFechamentos(int tamanho) {
+		this.caixas = new long[tamanho];
+		this.rateios = new long[tamanho];
+		this.seguros = new long[tamanho];
+		this.erros = new String[tamanho];
+	}
+
+	/**
+	 * Método responsável por registrar a liquidação de um cenário fechado
+	 * @param posicao : posição do cenário no lote
+	 * @param caixa : caixa do cenário destinado ao sistema
+	 * @param rateio : total de rateio do cenário
+	 * @param seguro : total dos seguros pagos pelo cenário
+	 */
+	public void registrar(int posicao, long caixa, long rateio, long seguro) {
+		this.caixas[posicao] = caixa;
+		this.rateios[posicao] = rateio;
+		this.seguros[posicao] = seguro;
+	}
+
+	/**
+	 * Método responsável por registrar que um cenário do lote não foi fechado
+	 * @param posicao : posição do cenário no lote
+	 * @param erro : mensagem do erro encontrado
+	 */
+	public void registrarErro(int posicao, String erro) {
+		this.erros[posicao] = erro;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de cenários do lote
+	 * @return a quantidade de cenários
+	 */
+	public int tamanho() {
+		return this.erros.length;
+	}
+
+	/**
+	 * Método responsável por verificar se um cenário do lote foi fechado
+	 * @param posicao : posição do cenário no lote
+	 * @return true caso o cenário tenha sido fechado
+	 */
+	public boolean isFechado(int posicao) {
+		return this.erros[posicao] == null;
+	}
+
+	/**
+	 * Método responsável por recuperar o erro de um cenário que não foi fechado
+	 * @param posicao : posição do cenário no lote
+	 * @return a mensagem do erro, ou null caso o cenário tenha sido fechado
+	 */
+	public String getErro(int posicao) {
+		return this.erros[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o caixa de um cenário destinado ao sistema
+	 * @param posicao : posição do cenário no lote
+	 * @return o caixa em centavos, 0 caso o cenário não tenha sido fechado
+	 */
+	public long getCaixa(int posicao) {
+		return this.caixas[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o total de rateio de um cenário
+	 * @param posicao : posição do cenário no lote
+	 * @return o total de rateio em centavos, 0 caso o cenário não tenha sido
+	 *         fechado
+	 */
+	public long getRateio(int posicao) {
+		return this.rateios[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o total dos seguros pagos por um cenário
+	 * @param posicao : posição do cenário no lote
+	 * @return o total dos seguros em centavos, 0 caso o cenário não tenha sido
+	 *         fechado
+	 */
+	public long getSeguro(int posicao) {
+		return this.seguros[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de cenários que não foram
+	 * fechados
+	 * @return a quantidade de falhas
+	 */
+	public int getQuantidadeFalhas() {
+		int falhas = 0;
+		for (String erro : this.erros) {
+			if (erro != null)
+				falhas++;
+		}
+		return falhas;
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.samuel.lab.model;
+
+/**
+ * Resultado do cadastro de um LoteApostas. Para cada posição do lote guarda o
+ * id da aposta assegurada cadastrada ou a mensagem de erro da aposta que não
+ * pôde ser cadastrada.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ResultadoLote {
+
+	/**
+	 * Id de cada aposta assegurada cadastrada. Vale 0 para apostas simples e para
+	 * apostas que não foram cadastradas
+	 */
+	private int[] ids;
+
+	/**
+	 * Mensagem de erro de cada aposta que não foi cadastrada, ou null
+	 */
+	private String[] erros;
+
+	/**
+	 * Quantidade de apostas que não foram cadastradas
+	 */
+	private int falhas;
+
+	/**
+	 * Inicializa o resultado de um lote
+	 * @param tamanho : quantidade de apostas do lote
+	 */
+	public ResultadoLote(int tamanho) {
+		this.ids = new int[tamanho];
+		this.erros = new String[tamanho];
+	}
+
+	/**
+	 * Método responsável por registrar o id de uma aposta assegurada cadastrada
+	 * @param posicao : posição da aposta no lote
+	 * @param idAposta : id da aposta no cenário
+	 */
+	public void registrarId(int posicao, int idAposta) {
+		this.ids[posicao] = idAposta;
+	}
+
+	/**
+	 * Método responsável por registrar que uma aposta do lote não foi cadastrada
+	 * @param posicao : posição da aposta no lote
+	 * @param erro : mensagem do erro encontrado
+	 */
+	public void registrarErro(int posicao, String erro) {
+		if (this.erros[posicao] == null)
+			this.falhas++;
+		this.erros[posicao] = erro;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas do lote
+	 * @return a quantidade de apostas
+	 */
+	public int tamanho() {
+		return this.ids.length;
+	}
+
+	/**
+	 * Método responsável por verificar se uma aposta do lote foi cadastrada
+	 * @param posicao : posição da aposta no lote
+	 * @return true caso a aposta tenha sido cadastrada
+	 */
+	public boolean isCadastrada(int posicao) {
+		return this.erros[posicao] == null;
+	}
+
+	/**
+	 * Método responsável por recuperar o erro de uma aposta do lote
+	 * @param posicao : posição da aposta no lote
+	 * @return a mensagem de erro, ou null caso a aposta tenha sido cadastrada
+	 */
+	public String getErro(int posicao) {
+		return this.erros[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar o id de uma aposta assegurada do lote
+	 * @param posicao : posição da aposta no lote
+	 * @return o id da aposta, ou 0 para apostas simples e não cadastradas
+	 */
+	public int getIdAposta(int posicao) {
+		return this.ids[posicao];
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas cadastradas
+	 * @return a quantidade de apostas cadastradas
+	 */
+	public int getQuantidadeCadastradas() {
+		return this.ids.length - this.falhas;
+	}
+
+	/**
+	 * Método responsável por recuperar a quantidade de apostas que não foram
+	 * cadastradas
+	 * @return a quantidade de falhas
+	 */
+	public int getQuantidadeFalhas() {
+		return this.falhas;
+	}
+
+}
@@ -1,5 +1,10 @@
 package com.samuel.lab.model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.samuel.lab.importacao.ResultadoImportacao;
+
 /**
  * Interface responsável por posuir todos os métodos do sistema
  * 
@@ -9,15 +14,93 @@ package com.samuel.lab.model;
 public interface SistemadeApostas {
 
 	/**
-	 * Método para inicializar o sistema
+	 * Método para inicializar o sistema. O diário atual, caso haja, é fechado e o
+	 * sistema deixa de ser persistido
 	 * 
 	 * @param centavos
 	 *            : centavos inicial no caixa do sistema
 	 * @param taxa
 	 *            : Taxa que será cobrada aos apostadores
+	 * @throws UncheckedIOException
+	 *             caso o diário atual não possa ser fechado
 	 */
 	public void inicializa(int centavos, double taxa);
 
+	/**
+	 * Método para inicializar o sistema persistido em um diário. Caso o diário já
+	 * exista, o sistema é reconstruído a partir dele e o caixa e a taxa informados
+	 * são ignorados. O diário atual, caso haja, é fechado antes, assim o mesmo
+	 * arquivo pode ser reaberto
+	 * 
+	 * @param centavos
+	 *            : centavos inicial no caixa do sistema
+	 * @param taxa
+	 *            : Taxa que será cobrada aos apostadores
+	 * @param diario
+	 *            : Caminho do arquivo do diário
+	 * @throws IOException
+	 *             caso o diário não possa ser lido ou criado, ou o diário atual
+	 *             não possa ser fechado
+	 */
+	public void inicializa(int centavos, double taxa, String diario) throws IOException;
+
+	/**
+	 * Método responsável por gravar as operações pendentes no diário e fechá-lo.
+	 * Depois disso o sistema deixa de ser persistido e as operações seguintes não
+	 * são registradas. Não faz nada caso o sistema não seja persistido
+	 * 
+	 * @throws IOException
+	 *             caso a gravação do diário tenha falhado
+	 */
+	public void fecharDiario() throws IOException;
+
+	/**
+	 * Método responsável por esperar que todas as operações feitas até aqui
+	 * estejam gravadas e sincronizadas com o disco. Não faz nada caso o sistema
+	 * não seja persistido
+	 * 
+	 * @throws IOException
+	 *             caso a gravação do diário tenha falhado
+	 */
+	public void sincronizarDiario() throws IOException;
+
+	/**
+	 * Método responsável por salvar um instantâneo de todo o estado do sistema
+	 * 
+	 * @param arquivo
+	 *            : Caminho do instantâneo
+	 * @throws IOException
+	 *             caso o instantâneo não possa ser escrito
+	 */
+	public void salvarInstantaneo(String arquivo) throws IOException;
+
+	/**
+	 * Método responsável por substituir o estado do sistema pelo de um
+	 * instantâneo. O diário atual é fechado e o sistema deixa de ser persistido
+	 * 
+	 * @param arquivo
+	 *            : Caminho do instantâneo
+	 * @throws IOException
+	 *             caso o instantâneo não possa ser lido ou o diário atual não
+	 *             possa ser fechado
+	 */
+	public void carregarInstantaneo(String arquivo) throws IOException;
+
+	/**
+	 * Método responsável por substituir o estado do sistema pelo de um
+	 * instantâneo e dos registros do diário feitos depois dele. O diário atual é
+	 * fechado, e o sistema passa a ser persistido no diário informado
+	 * 
+	 * @param arquivo
+	 *            : Caminho do instantâneo
+	 * @param diario
+	 *            : Caminho do diário em que o instantâneo foi salvo
+	 * @throws IOException
+	 *             caso os arquivos não possam ser lidos, o instantâneo não tenha
+	 *             sido salvo com um diário ou o diário atual não possa ser fechado
+	 */
+	public void carregarInstantaneo(String arquivo, String diario) throws IOException;
+
 	/**
 	 * Método responsável por cadastrar um cenário
 	 * 
@@ -42,6 +125,17 @@ public interface SistemadeApostas {
 	 */
 	public String exibirCenarios();
 
+	/**
+	 * Método responsável por escrever todos os cenários cadastrados no sistema, um
+	 * por linha, diretamente em uma saída
+	 * 
+	 * @param saida
+	 *            : Destino onde os cenários serão escritos
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	public void exibirCenarios(Appendable saida) throws IOException;
+
 	/**
 	 * Método responsável por cadastrar uma aposta
 	 * 
@@ -56,6 +150,33 @@ public interface SistemadeApostas {
 	 */
 	public void cadastrarAposta(int cenario, String apostador, int valor, String previsao);
 
+	/**
+	 * Método responsável por cadastrar um lote de apostas em um cenário. O lote
+	 * pode misturar apostas simples e asseguradas por valor ou por taxa; as
+	 * apostas inválidas não interrompem o cadastro das demais
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando em qual cenário serão feitas as apostas
+	 * @param lote
+	 *            : As apostas que serão cadastradas
+	 * @return o resultado do cadastro de cada aposta, com o id das apostas
+	 *         asseguradas e o erro das apostas que não foram cadastradas
+	 */
+	public ResultadoLote cadastrarApostas(int cenario, LoteApostas lote);
+
+	/**
+	 * Método responsável por importar as apostas de um arquivo, uma aposta por
+	 * linha. Linhas inválidas não interrompem a importação
+	 * 
+	 * @param arquivo
+	 *            : Caminho do arquivo de apostas
+	 * @return o resultado da importação, com o erro de cada linha que não foi
+	 *         cadastrada
+	 * @throws IOException
+	 *             caso o arquivo não possa ser lido
+	 */
+	public ResultadoImportacao importarApostas(String arquivo) throws IOException;
+
 	/**
 	 * Método responsável por calcular o valor total arrecardado com as apostas de
 	 * um cenário
@@ -66,6 +187,16 @@ public interface SistemadeApostas {
 	 */
 	public int valorTotalDeApostas(int cenario);
 
+	/**
+	 * Método responsável por calcular o valor total arrecadado com as apostas de
+	 * um cenário, sem o limite de um int
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário que será verificado
+	 * @return o total arrecadado pelo cenário em centavos
+	 */
+	public long valorTotalDeApostasLong(int cenario);
+
 	/**
 	 * Método responsável por calcular o total de apostas de um cenário
 	 * 
@@ -84,6 +215,32 @@ public interface SistemadeApostas {
 	 */
 	public String exibeApostas(int cenario);
 
+	/**
+	 * Método responsável por escrever todas as apostas de um cenário, uma por
+	 * linha, diretamente em uma saída
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @param saida
+	 *            : Destino onde as apostas serão escritas
+	 * @throws IOException
+	 *             caso a saída não possa ser escrita
+	 */
+	public void exibeApostas(int cenario, Appendable saida) throws IOException;
+
+	/**
+	 * Método responsável por exibir uma página das apostas de um cenário
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @param inicio
+	 *            : Posição da primeira aposta da página, começando em 0
+	 * @param quantidade
+	 *            : Quantidade máxima de apostas da página
+	 * @return : Uma String com as apostas da página, uma por linha
+	 */
+	public String exibeApostas(int cenario, int inicio, int quantidade);
+
 	/**
 	 * Método responsável encerrar um cenário
 	 * 
@@ -94,6 +251,18 @@ public interface SistemadeApostas {
 	 */
 	public void fecharAposta(int cenario, boolean ocorreu);
 
+	/**
+	 * Método responsável por encerrar vários cenários de uma só vez, retornando o
+	 * caixa, o rateio e os seguros de cada um. Cenários diferentes são encerrados
+	 * em paralelo
+	 * 
+	 * @param lote
+	 *            : Os cenários que serão encerrados e se cada um ocorreu
+	 * @return o resultado do encerramento de cada cenário, com o erro dos cenários
+	 *         que não foram encerrados
+	 */
+	public ResultadoFechamentos fecharApostas(LoteFechamentos lote);
+
 	/**
 	 * Método responsável por retornar o valor total de um cenário encerrado que
 	 * será destinado ao caixa
@@ -104,6 +273,16 @@ public interface SistemadeApostas {
 	 */
 	public int getCaixaCenario(int cenario);
 
+	/**
+	 * Método responsável por retornar o valor de um cenário encerrado que será
+	 * destinado ao caixa, sem o limite de um int
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @return o caixa do cenário em centavos
+	 */
+	public long getCaixaCenarioLong(int cenario);
+
 	/**
 	 * Método responsável por retornar o valor total de um cenário encerrado que
 	 * será destinado a distribuição entre as apostas vencedoras
@@ -113,6 +292,36 @@ public interface SistemadeApostas {
 	 * @return Um inteiro com o valor de rateio
 	 */
 	public int getTotalRateioCenario(int cenario);
+
+	/**
+	 * Método responsável por retornar o valor de um cenário encerrado que será
+	 * distribuído entre as apostas vencedoras, sem o limite de um int
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @return o valor de rateio em centavos
+	 */
+	public long getTotalRateioCenarioLong(int cenario);
+
+	/**
+	 * Método responsável por retornar o caixa do sistema, sem o limite de um int
+	 * 
+	 * @return o valor em caixa do sistema em centavos
+	 */
+	public long getCaixaLong();
+
+	/**
+	 * Método responsável por distribuir o rateio de um cenário encerrado, entregando
+	 * ao destino o prêmio de cada aposta vencedora e o seguro de cada aposta
+	 * assegurada perdedora, em centavos
+	 * 
+	 * @param cenario
+	 *            : Um inteiro representando o id do cenário
+	 * @param destino
+	 *            : Destino dos pagamentos
+	 * @return o total pago, somando prêmios e seguros
+	 */
+	public long distribuirRateio(int cenario, DestinoPagamentos destino);
 	
 	/**
 	 * Método responsável por cadastrar um cenário que possui bônus
@@ -0,0 +1,64 @@
+package com.samuel.lab.model;
+
+import java.math.BigInteger;
+
+/**
+ * Aritmética de taxas em ponto fixo. Uma taxa é guardada como um long em
+ * milionésimos, de modo que 0.02 vale 20000, e aplicar uma taxa a um valor em
+ * centavos é uma multiplicação e uma divisão inteiras, arredondadas para baixo.
+ * Os cálculos do caixa e dos seguros não passam por ponto flutuante e geram o
+ * mesmo resultado independentemente da ordem em que são somados.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public final class TaxaFixa {
+
+	/**
+	 * Quantidade de unidades da taxa fixa em uma taxa de 1.0
+	 */
+	public static final long ESCALA = 1_000_000L;
+
+	private TaxaFixa() {
+	}
+
+	/**
+	 * Método responsável por converter uma taxa para ponto fixo, arredondando para
+	 * o milionésimo mais próximo. Uma taxa positiva menor que meio milionésimo vale
+	 * 0, por isso as validações devem ser feitas sobre a taxa convertida
+	 * @param taxa : taxa em ponto flutuante
+	 * @return a taxa em milionésimos
+	 */
+	public static long converter(double taxa) {
+		return Math.round(taxa * ESCALA);
+	}
+
+	/**
+	 * Método responsável por converter uma taxa em ponto fixo para ponto flutuante,
+	 * para exibição
+	 * @param taxa : taxa em milionésimos
+	 * @return a taxa em ponto flutuante
+	 */
+	public static double paraDouble(long taxa) {
+		return (double) taxa / ESCALA;
+	}
+
+	/**
+	 * Método responsável por aplicar uma taxa a um valor, arredondando o resultado
+	 * para baixo
+	 * @param valor : valor em centavos
+	 * @param taxa : taxa em milionésimos
+	 * @return floor(valor * taxa / ESCALA)
+	 */
+	public static long aplicar(long valor, long taxa) {
+		if (valor == 0 || taxa == 0)
+			return 0;
+		if (Math.abs(valor) <= Long.MAX_VALUE / Math.abs(taxa))
+			return Math.floorDiv(valor * taxa, ESCALA);
+		BigInteger[] divisao = BigInteger.valueOf(valor).multiply(BigInteger.valueOf(taxa))
+				.divideAndRemainder(BigInteger.valueOf(ESCALA));
+		long quociente = divisao[0].longValueExact();
+		return divisao[1].signum() < 0 ? quociente - 1 : quociente;
+	}
+
+}
@@ -0,0 +1,763 @@
+package com.samuel.lab.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.model.LoteApostas;
+
+/**
+ * Diário das operações que alteram o estado de um CenarioController. Cada
+ * operação bem sucedida é acrescentada ao fim de um arquivo binário, e ao abrir
+ * o diário as operações são reproduzidas em ordem, reconstruindo o mesmo estado,
+ * inclusive os ids de cenários e apostas.
+ *
+ * Quem faz a operação apenas coloca o registro em uma fila. Uma única thread
+ * escritora grava na mesma escrita todos os registros que encontrar na fila e
+ * só força a gravação no disco depois de uma quantidade de registros ou de um
+ * intervalo de tempo, ambos configuráveis. Uma queda do processo pode perder os
+ * registros ainda não forçados, mas nunca deixa o diário inconsistente: cada
+ * registro tem o seu tamanho e um CRC32, e um registro incompleto no fim do
+ * arquivo é descartado na abertura.
+ *
+ * O CenarioController registra cada operação com o mesmo lock que a ordena, de
+ * modo que a ordem do diário é a ordem em que as operações foram aplicadas em
+ * cada cenário. Antes de alterar o seu estado, o controlador chama iniciar, que
+ * falha caso o diário não aceite mais registros, e ao final chama terminar. O
+ * diário não é fechado enquanto houver operações entre as duas chamadas, assim
+ * uma operação que já alterou o estado sempre consegue ser registrada.
+ *
+ * Um Instantaneo salvo de um controlador com diário guarda a posição do diário
+ * que corresponde ao seu estado. Ao carregá-lo junto com o diário, apenas os
+ * registros seguintes a essa posição são reproduzidos.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class Diario implements Closeable {
+
+	/**
+	 * Quantidade padrão de registros gravados entre duas sincronizações com o disco
+	 */
+	public static final int REGISTROS_POR_SINCRONIZACAO = 256;
+
+	/**
+	 * Intervalo padrão máximo, em milissegundos, entre a gravação de um registro e
+	 * a sua sincronização com o disco
+	 */
+	public static final long INTERVALO_SINCRONIZACAO = 20;
+
+	/**
+	 * Tamanho máximo de um registro, usado para reconhecer um tamanho corrompido
+	 */
+	private static final int TAMANHO_MAXIMO_REGISTRO = 1 << 26;
+
+	private static final byte INICIO = 1;
+	private static final byte CENARIO = 2;
+	private static final byte APOSTA = 3;
+	private static final byte APOSTA_SEGURO_VALOR = 4;
+	private static final byte APOSTA_SEGURO_TAXA = 5;
+	private static final byte LOTE = 6;
+	private static final byte ALTERA_SEGURO_VALOR = 7;
+	private static final byte ALTERA_SEGURO_TAXA = 8;
+	private static final byte FECHA_APOSTA = 9;
+	private static final byte ORDEM = 10;
+
+	/**
+	 * Marca colocada na fila para encerrar a thread escritora
+	 */
+	private static final byte[] FIM = new byte[0];
+
+	/**
+	 * Canal do arquivo, posicionado no fim do último registro válido
+	 */
+	private final FileChannel canal;
+
+	/**
+	 * Registros que aguardam a thread escritora
+	 */
+	private final BlockingQueue<byte[]> fila;
+
+	/**
+	 * Quantidade de registros colocados na fila
+	 */
+	private final AtomicLong registrados;
+
+	/**
+	 * Posição no arquivo do fim do último registro colocado na fila
+	 */
+	private final AtomicLong fimRegistrados;
+
+	/**
+	 * Quantidade de registros já sincronizados com o disco, protegida pelo monitor
+	 * do diário
+	 */
+	private long sincronizados;
+
+	private final int registrosPorSincronizacao;
+
+	private final long intervaloSincronizacao;
+
+	private final Thread escritor;
+
+	/**
+	 * Erro que interrompeu a thread escritora
+	 */
+	private volatile IOException erro;
+
+	private volatile boolean fechado;
+
+	/**
+	 * Lock das operações em andamento: cada operação segura a leitura entre
+	 * iniciar e terminar, e o fechamento segura a escrita
+	 */
+	private final ReentrantReadWriteLock operacoes = new ReentrantReadWriteLock();
+
+	private Diario(FileChannel canal, int registrosPorSincronizacao, long intervaloSincronizacao) throws IOException {
+		this.canal = canal;
+		this.fila = new LinkedBlockingQueue<>();
+		this.registrados = new AtomicLong();
+		this.fimRegistrados = new AtomicLong(canal.position());
+		this.registrosPorSincronizacao = registrosPorSincronizacao;
+		this.intervaloSincronizacao = TimeUnit.MILLISECONDS.toNanos(intervaloSincronizacao);
+		this.escritor = new Thread(this::escreve, "diario-escritor");
+		this.escritor.setDaemon(true);
+		this.escritor.start();
+	}
+
+	/**
+	 * Método responsável por abrir um diário com a sincronização padrão
+	 * @param arquivo : caminho do diário
+	 * @param caixa : caixa inicial, usado apenas quando o diário ainda não existe
+	 * @param taxa : taxa do sistema, usada apenas quando o diário ainda não existe
+	 * @return o controlador com o estado reconstruído, já registrando suas
+	 *         operações no diário
+	 * @throws IOException caso o diário não possa ser lido ou escrito
+	 */
+	public static CenarioController abrir(Path arquivo, int caixa, double taxa) throws IOException {
+		return abrir(arquivo, caixa, taxa, REGISTROS_POR_SINCRONIZACAO, INTERVALO_SINCRONIZACAO);
+	}
+
+	/**
+	 * Método responsável por abrir um diário. Caso o arquivo já tenha registros,
+	 * o controlador é reconstruído a partir deles e o caixa e a taxa informados são
+	 * ignorados; caso contrário um diário novo é criado
+	 * @param arquivo : caminho do diário
+	 * @param caixa : caixa inicial, usado apenas quando o diário ainda não existe
+	 * @param taxa : taxa do sistema, usada apenas quando o diário ainda não existe
+	 * @param registrosPorSincronizacao : quantidade máxima de registros gravados
+	 *            entre duas sincronizações com o disco
+	 * @param intervaloSincronizacao : tempo máximo, em milissegundos, entre a
+	 *            gravação de um registro e a sua sincronização com o disco
+	 * @return o controlador com o estado reconstruído, já registrando suas
+	 *         operações no diário
+	 * @throws IOException caso o diário não possa ser lido ou escrito
+	 */
+	public static CenarioController abrir(Path arquivo, int caixa, double taxa, int registrosPorSincronizacao,
+			long intervaloSincronizacao) throws IOException {
+		if (registrosPorSincronizacao <= 0)
+			throw new IllegalArgumentException("Quantidade de registros por sincronizacao deve ser maior que zero");
+		if (intervaloSincronizacao < 0)
+			throw new IllegalArgumentException("Intervalo de sincronizacao nao pode ser negativo");
+		FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			CenarioController controller = reproduz(canal, null, 0);
+			if (controller == null) {
+				controller = new CenarioController(caixa, taxa);
+				canal.truncate(0);
+				ByteBuffer inicio = ByteBuffer.wrap(new Registro(INICIO).inteiro(caixa).decimal(taxa).fecha());
+				while (inicio.hasRemaining())
+					canal.write(inicio);
+				canal.force(true);
+			}
+			controller.setDiario(new Diario(canal, registrosPorSincronizacao, intervaloSincronizacao));
+			return controller;
+		} catch (IOException | RuntimeException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Método responsável por continuar um diário a partir do estado de um
+	 * instantâneo. Apenas os registros a partir da posição em que o instantâneo foi
+	 * salvo são reproduzidos, e o diário passa a registrar as operações do
+	 * controlador
+	 * @param arquivo : caminho do diário, que já deve existir
+	 * @param controller : controlador carregado do instantâneo, sem diário
+	 * @param posicao : posição do diário no momento em que o instantâneo foi salvo
+	 * @return o controlador com os registros seguintes ao instantâneo reproduzidos
+	 * @throws IOException caso o diário não possa ser lido ou escrito, ou seja
+	 *             menor que a posição do instantâneo
+	 */
+	static CenarioController continuar(Path arquivo, CenarioController controller, long posicao) throws IOException {
+		FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (posicao <= 0 || posicao > canal.size())
+				throw new IOException("Diario nao corresponde ao instantaneo: " + arquivo);
+			reproduz(canal, controller, posicao);
+			controller.setDiario(new Diario(canal, REGISTROS_POR_SINCRONIZACAO, INTERVALO_SINCRONIZACAO));
+			return controller;
+		} catch (IOException | RuntimeException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Método responsável por reproduzir os registros válidos do diário e descartar
+	 * um registro incompleto no seu fim. Um registro inválido só é considerado
+	 * incompleto quando termina no fim do arquivo, ou quando dele em diante o
+	 * arquivo só tem zeros; qualquer outro registro inválido é uma corrupção, e o
+	 * diário não é alterado, para não descartar os registros válidos seguintes
+	 * @param canal : canal do diário
+	 * @param controller : controlador onde os registros serão aplicados, ou null
+	 *            para criá-lo a partir do registro de início do sistema
+	 * @param inicio : posição do primeiro registro que será reproduzido
+	 * @return o controlador reconstruído, ou null caso o diário esteja vazio
+	 * @throws IOException caso o diário não possa ser lido ou esteja corrompido
+	 */
+	private static CenarioController reproduz(FileChannel canal, CenarioController controller, long inicio)
+			throws IOException {
+		canal.position(inicio);
+		DataInputStream entrada = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal), 1 << 16));
+		long tamanhoArquivo = canal.size();
+		CRC32 crc = new CRC32();
+		long valido = inicio;
+		while (true) {
+			byte[] conteudo;
+			try {
+				int tamanho = entrada.readInt();
+				if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_REGISTRO) {
+					if (!zerado(canal, valido, tamanhoArquivo))
+						throw new IOException("Diario corrompido na posicao " + valido);
+					break;
+				}
+				long fim = valido + tamanho + 8;
+				if (fim > tamanhoArquivo)
+					break;
+				conteudo = new byte[tamanho];
+				entrada.readFully(conteudo);
+				int verificador = entrada.readInt();
+				crc.reset();
+				crc.update(conteudo, 0, tamanho);
+				if (verificador != (int) crc.getValue()) {
+					if (fim < tamanhoArquivo)
+						throw new IOException("Diario corrompido na posicao " + valido);
+					break;
+				}
+			} catch (EOFException e) {
+				break;
+			}
+			Leitura leitura = new Leitura(conteudo);
+			if (controller == null) {
+				if (leitura.tipo != INICIO)
+					throw new IOException("Diario invalido: o primeiro registro deve ser o inicio do sistema");
+				controller = new CenarioController(leitura.inteiro(), leitura.decimal());
+			} else {
+				aplica(controller, leitura);
+			}
+			valido += conteudo.length + 8;
+		}
+		canal.truncate(valido);
+		canal.position(valido);
+		return controller;
+	}
+
+	/**
+	 * Método responsável por verificar se o arquivo só tem zeros a partir de uma
+	 * posição, como acontece quando o sistema cai depois de o arquivo crescer e
+	 * antes de os dados serem gravados
+	 * @param canal : canal do diário
+	 * @param inicio : posição inicial
+	 * @param fim : tamanho do arquivo
+	 * @return true caso todos os bytes entre as posições sejam zero
+	 */
+	private static boolean zerado(FileChannel canal, long inicio, long fim) throws IOException {
+		ByteBuffer bloco = ByteBuffer.allocate(1 << 16);
+		long posicao = inicio;
+		while (posicao < fim) {
+			bloco.clear();
+			int lidos = canal.read(bloco, posicao);
+			if (lidos < 0)
+				break;
+			for (int i = 0; i < lidos; i++) {
+				if (bloco.get(i) != 0)
+					return false;
+			}
+			posicao += lidos;
+		}
+		return true;
+	}
+
+	/**
+	 * Método responsável por aplicar um registro ao controlador
+	 * @param controller : controlador que está sendo reconstruído
+	 * @param registro : registro lido do diário
+	 * @throws IOException caso o registro não possa ser reproduzido
+	 */
+	private static void aplica(CenarioController controller, Leitura registro) throws IOException {
+		switch (registro.tipo) {
+		case CENARIO:
+			int id = registro.inteiro();
+			String descricao = registro.texto();
+			int bonus = registro.inteiro();
+			int reproduzido = bonus > 0 ? controller.cadastrarCenario(descricao, bonus)
+					: controller.cadastrarCenario(descricao);
+			if (reproduzido != id)
+				throw new IOException("Diario invalido: cenario " + id + " reproduzido com o id " + reproduzido);
+			break;
+		case APOSTA:
+			controller.cadastrarAposta(registro.inteiro(), registro.texto(), registro.inteiro(), registro.texto());
+			break;
+		case APOSTA_SEGURO_VALOR:
+			controller.cadastrarAposta(registro.inteiro(), registro.texto(), registro.inteiro(), registro.texto(),
+					registro.inteiro(), registro.inteiro());
+			break;
+		case APOSTA_SEGURO_TAXA:
+			controller.cadastrarAposta(registro.inteiro(), registro.texto(), registro.inteiro(), registro.texto(),
+					registro.decimal(), registro.inteiro());
+			break;
+		case LOTE:
+			int cenario = registro.inteiro();
+			int tamanho = registro.inteiro();
+			LoteApostas lote = new LoteApostas(tamanho);
+			for (int i = 0; i < tamanho; i++) {
+				int tipo = registro.inteiro();
+				String apostador = registro.texto();
+				int valor = registro.inteiro();
+				String previsao = registro.texto();
+				int seguro = registro.inteiro();
+				double taxa = registro.decimal();
+				int custo = registro.inteiro();
+				if (tipo == LoteApostas.SIMPLES) {
+					lote.adicionar(apostador, valor, previsao);
+				} else if (tipo == LoteApostas.SEGURO_VALOR) {
+					lote.adicionarSeguroValor(apostador, valor, previsao, seguro, custo);
+				} else {
+					lote.adicionarSeguroTaxa(apostador, valor, previsao, taxa, custo);
+				}
+			}
+			controller.cadastrarApostas(cenario, lote);
+			break;
+		case ALTERA_SEGURO_VALOR:
+			controller.alterarSeguro(registro.inteiro(), registro.inteiro(), registro.inteiro());
+			break;
+		case ALTERA_SEGURO_TAXA:
+			controller.alterarSeguro(registro.inteiro(), registro.inteiro(), registro.decimal());
+			break;
+		case FECHA_APOSTA:
+			controller.fecharAposta(registro.inteiro(), registro.logico());
+			break;
+		case ORDEM:
+			controller.alterarOrdem(registro.texto());
+			break;
+		default:
+			throw new IOException("Diario invalido: registro desconhecido " + registro.tipo);
+		}
+	}
+
+	/**
+	 * Método responsável por registrar o cadastro de um cenário
+	 * @param id : id do cenário
+	 * @param descricao : descrição do cenário
+	 * @param bonus : bonus do cenário, ou 0
+	 */
+	public void cenarioCadastrado(int id, String descricao, int bonus) {
+		this.registra(new Registro(CENARIO).inteiro(id).texto(descricao).inteiro(bonus));
+	}
+
+	/**
+	 * Método responsável por registrar o cadastro de uma aposta simples
+	 * @param cenario : id do cenário
+	 * @param apostador : nome do apostador
+	 * @param valor : valor da aposta
+	 * @param previsao : previsão da aposta
+	 */
+	public void apostaCadastrada(int cenario, String apostador, int valor, String previsao) {
+		this.registra(new Registro(APOSTA).inteiro(cenario).texto(apostador).inteiro(valor).texto(previsao));
+	}
+
+	/**
+	 * Método responsável por registrar o cadastro de uma aposta assegurada por valor
+	 * @param cenario : id do cenário
+	 * @param apostador : nome do apostador
+	 * @param valor : valor da aposta
+	 * @param previsao : previsão da aposta
+	 * @param seguro : valor do seguro
+	 * @param custo : custo da aposta
+	 */
+	public void apostaCadastrada(int cenario, String apostador, int valor, String previsao, int seguro,
+			int custo) {
+		this.registra(new Registro(APOSTA_SEGURO_VALOR).inteiro(cenario).texto(apostador).inteiro(valor)
+				.texto(previsao).inteiro(seguro).inteiro(custo));
+	}
+
+	/**
+	 * Método responsável por registrar o cadastro de uma aposta assegurada por taxa
+	 * @param cenario : id do cenário
+	 * @param apostador : nome do apostador
+	 * @param valor : valor da aposta
+	 * @param previsao : previsão da aposta
+	 * @param taxa : taxa do seguro
+	 * @param custo : custo da aposta
+	 */
+	public void apostaCadastrada(int cenario, String apostador, int valor, String previsao, double taxa,
+			int custo) {
+		this.registra(new Registro(APOSTA_SEGURO_TAXA).inteiro(cenario).texto(apostador).inteiro(valor)
+				.texto(previsao).decimal(taxa).inteiro(custo));
+	}
+
+	/**
+	 * Método responsável por registrar o cadastro de um lote de apostas. O lote é
+	 * registrado inteiro, já que a sua validação é determinística
+	 * @param cenario : id do cenário
+	 * @param lote : apostas do lote
+	 */
+	public void loteCadastrado(int cenario, LoteApostas lote) {
+		Registro registro = new Registro(LOTE).inteiro(cenario).inteiro(lote.tamanho());
+		for (int i = 0; i < lote.tamanho(); i++) {
+			registro.inteiro(lote.getTipo(i)).texto(lote.getApostador(i)).inteiro(lote.getValor(i))
+					.texto(lote.getPrevisao(i)).inteiro(lote.getSeguro(i)).decimal(lote.getTaxa(i))
+					.inteiro(lote.getCusto(i));
+		}
+		this.registra(registro);
+	}
+
+	/**
+	 * Método responsável por registrar a alteração do seguro de uma aposta
+	 * @param cenario : id do cenário
+	 * @param aposta : id da aposta
+	 * @param seguro : novo valor do seguro
+	 */
+	public void seguroAlterado(int cenario, int aposta, int seguro) {
+		this.registra(new Registro(ALTERA_SEGURO_VALOR).inteiro(cenario).inteiro(aposta).inteiro(seguro));
+	}
+
+	/**
+	 * Método responsável por registrar a alteração da taxa de seguro de uma aposta
+	 * @param cenario : id do cenário
+	 * @param aposta : id da aposta
+	 * @param taxa : nova taxa do seguro
+	 */
+	public void seguroAlterado(int cenario, int aposta, double taxa) {
+		this.registra(new Registro(ALTERA_SEGURO_TAXA).inteiro(cenario).inteiro(aposta).decimal(taxa));
+	}
+
+	/**
+	 * Método responsável por registrar o fechamento de um cenário
+	 * @param cenario : id do cenário
+	 * @param ocorreu : indica se o cenário ocorreu
+	 */
+	public void apostaFechada(int cenario, boolean ocorreu) {
+		this.registra(new Registro(FECHA_APOSTA).inteiro(cenario).logico(ocorreu));
+	}
+
+	/**
+	 * Método responsável por registrar a alteração da ordem dos cenários
+	 * @param ordem : nova ordem
+	 */
+	public void ordemAlterada(String ordem) {
+		this.registra(new Registro(ORDEM).texto(ordem));
+	}
+
+	/**
+	 * Método responsável por iniciar uma operação que será registrada no diário.
+	 * Deve ser chamado antes de qualquer alteração do estado, e cada chamada bem
+	 * sucedida deve ser seguida de terminar. Até lá o diário não é fechado
+	 * @throws IllegalStateException caso o diário esteja fechado
+	 * @throws UncheckedIOException caso a gravação do diário tenha falhado
+	 */
+	public void iniciar() {
+		this.operacoes.readLock().lock();
+		if (this.fechado) {
+			this.operacoes.readLock().unlock();
+			throw new IllegalStateException("Diario fechado");
+		}
+		IOException erro = this.erro;
+		if (erro != null) {
+			this.operacoes.readLock().unlock();
+			throw new UncheckedIOException(erro);
+		}
+	}
+
+	/**
+	 * Método responsável por terminar uma operação iniciada com iniciar
+	 */
+	public void terminar() {
+		this.operacoes.readLock().unlock();
+	}
+
+	/**
+	 * Método responsável por colocar um registro na fila. Não falha por um erro
+	 * da thread escritora, já que a operação registrada já foi aplicada: esse erro
+	 * é informado por sincronizar, por close e pela próxima chamada de iniciar
+	 */
+	private void registra(Registro registro) {
+		if (this.fechado)
+			throw new IllegalStateException("Diario fechado");
+		byte[] bytes = registro.fecha();
+		this.fimRegistrados.addAndGet(bytes.length);
+		this.fila.add(bytes);
+		this.registrados.incrementAndGet();
+	}
+
+	/**
+	 * Método responsável por suspender as operações, esperando as que estão em
+	 * andamento terminarem. Cada chamada deve ser seguida de retomar
+	 * @return a posição do diário que corresponde ao estado atual do controlador
+	 */
+	long suspender() {
+		this.operacoes.writeLock().lock();
+		return this.fimRegistrados.get();
+	}
+
+	/**
+	 * Método responsável por retomar as operações suspensas com suspender
+	 */
+	void retomar() {
+		this.operacoes.writeLock().unlock();
+	}
+
+	/**
+	 * Método responsável por aguardar até que todos os registros feitos antes da
+	 * chamada estejam sincronizados com o disco
+	 * @throws IOException caso a gravação do diário tenha falhado
+	 */
+	public void sincronizar() throws IOException {
+		long alvo = this.registrados.get();
+		synchronized (this) {
+			while (this.sincronizados < alvo && this.erro == null && this.escritor.isAlive()) {
+				try {
+					this.wait(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Sincronizacao do diario interrompida", e);
+				}
+			}
+		}
+		if (this.erro != null)
+			throw this.erro;
+	}
+
+	/**
+	 * Método responsável por gravar os registros pendentes, sincronizá-los com o
+	 * disco e fechar o diário. Espera as operações já iniciadas terminarem, e as
+	 * iniciadas depois dele falham sem alterar o estado
+	 * @throws IOException caso a gravação do diário tenha falhado
+	 */
+	@Override
+	public void close() throws IOException {
+		this.operacoes.writeLock().lock();
+		try {
+			if (this.fechado)
+				return;
+			this.fechado = true;
+		} finally {
+			this.operacoes.writeLock().unlock();
+		}
+		this.fila.add(FIM);
+		boolean interrompida = false;
+		while (this.escritor.isAlive()) {
+			try {
+				this.escritor.join();
+			} catch (InterruptedException e) {
+				interrompida = true;
+			}
+		}
+		if (interrompida)
+			Thread.currentThread().interrupt();
+		this.canal.close();
+		if (this.erro != null)
+			throw this.erro;
+	}
+
+	/**
+	 * Laço da thread escritora. Cada volta grava de uma só vez todos os registros
+	 * que estão na fila e sincroniza com o disco quando a quantidade de registros
+	 * ou o intervalo configurados forem atingidos
+	 */
+	private void escreve() {
+		List<byte[]> grupo = new ArrayList<>();
+		long escritos = 0;
+		long pendentes = 0;
+		long ultimaSincronizacao = System.nanoTime();
+		boolean fim = false;
+		try {
+			while (!fim) {
+				byte[] primeiro;
+				if (pendentes == 0) {
+					primeiro = this.fila.take();
+				} else {
+					long espera = this.intervaloSincronizacao - (System.nanoTime() - ultimaSincronizacao);
+					primeiro = this.fila.poll(Math.max(espera, 0), TimeUnit.NANOSECONDS);
+				}
+				if (primeiro != null) {
+					grupo.add(primeiro);
+					this.fila.drainTo(grupo);
+				}
+				ByteBuffer[] buffers = new ByteBuffer[grupo.size()];
+				int quantidade = 0;
+				for (byte[] registro : grupo) {
+					if (registro == FIM) {
+						fim = true;
+					} else {
+						buffers[quantidade++] = ByteBuffer.wrap(registro);
+					}
+				}
+				grupo.clear();
+				if (quantidade > 0) {
+					this.gravaTudo(buffers, quantidade);
+					escritos += quantidade;
+					pendentes += quantidade;
+				}
+				long agora = System.nanoTime();
+				if (pendentes > 0 && (fim || pendentes >= this.registrosPorSincronizacao
+						|| agora - ultimaSincronizacao >= this.intervaloSincronizacao)) {
+					this.canal.force(false);
+					pendentes = 0;
+					ultimaSincronizacao = agora;
+					synchronized (this) {
+						this.sincronizados = escritos;
+						this.notifyAll();
+					}
+				} else if (pendentes == 0) {
+					ultimaSincronizacao = agora;
+				}
+			}
+		} catch (IOException e) {
+			this.erro = e;
+		} catch (InterruptedException e) {
+			this.erro = new IOException("Escrita do diario interrompida", e);
+		} finally {
+			synchronized (this) {
+				this.notifyAll();
+			}
+		}
+	}
+
+	private void gravaTudo(ByteBuffer[] buffers, int quantidade) throws IOException {
+		int primeiro = 0;
+		while (primeiro < quantidade) {
+			this.canal.write(buffers, primeiro, quantidade - primeiro);
+			while (primeiro < quantidade && !buffers[primeiro].hasRemaining())
+				primeiro++;
+		}
+	}
+
+	/**
+	 * Registro em construção: tamanho, tipo, campos e CRC32 do tipo e dos campos
+	 */
+	private static final class Registro {
+
+		private ByteBuffer bytes = ByteBuffer.allocate(64);
+
+		private Registro(byte tipo) {
+			this.bytes.putInt(0);
+			this.bytes.put(tipo);
+		}
+
+		private Registro inteiro(int valor) {
+			this.garante(4);
+			this.bytes.putInt(valor);
+			return this;
+		}
+
+		private Registro decimal(double valor) {
+			this.garante(8);
+			this.bytes.putDouble(valor);
+			return this;
+		}
+
+		private Registro logico(boolean valor) {
+			this.garante(1);
+			this.bytes.put((byte) (valor ? 1 : 0));
+			return this;
+		}
+
+		private Registro texto(String valor) {
+			if (valor == null)
+				return this.inteiro(-1);
+			byte[] texto = valor.getBytes(StandardCharsets.UTF_8);
+			this.inteiro(texto.length);
+			this.garante(texto.length);
+			this.bytes.put(texto);
+			return this;
+		}
+
+		private void garante(int quantidade) {
+			if (this.bytes.remaining() >= quantidade)
+				return;
+			ByteBuffer maior = ByteBuffer.allocate(Math.max(this.bytes.capacity() * 2, this.bytes.position() + quantidade));
+			this.bytes.flip();
+			maior.put(this.bytes);
+			this.bytes = maior;
+		}
+
+		private byte[] fecha() {
+			int tamanho = this.bytes.position() - 4;
+			this.bytes.putInt(0, tamanho);
+			CRC32 crc = new CRC32();
+			crc.update(this.bytes.array(), 4, tamanho);
+			this.inteiro((int) crc.getValue());
+			return Arrays.copyOf(this.bytes.array(), this.bytes.position());
+		}
+	}
+
+	/**
+	 * Leitura dos campos de um registro, na ordem em que foram escritos
+	 */
+	private static final class Leitura {
+
+		private final ByteBuffer bytes;
+
+		private final byte tipo;
+
+		private Leitura(byte[] conteudo) {
+			this.bytes = ByteBuffer.wrap(conteudo);
+			this.tipo = this.bytes.get();
+		}
+
+		private int inteiro() {
+			return this.bytes.getInt();
+		}
+
+		private double decimal() {
+			return this.bytes.getDouble();
+		}
+
+		private boolean logico() {
+			return this.bytes.get() != 0;
+		}
+
+		private String texto() {
+			int tamanho = this.bytes.getInt();
+			if (tamanho < 0)
+				return null;
+			String texto = new String(this.bytes.array(), this.bytes.position(), tamanho, StandardCharsets.UTF_8);
+			this.bytes.position(this.bytes.position() + tamanho);
+			return texto;
+		}
+	}
+
+}
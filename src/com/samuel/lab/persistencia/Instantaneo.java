@@ -0,0 +1,449 @@
+package com.samuel.lab.persistencia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.samuel.lab.controller.ApostaController;
+import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.estruturas.TabelaApostadores;
+import com.samuel.lab.model.ApostaAssegurada;
+import com.samuel.lab.model.ApostaSeguroTaxa;
+import com.samuel.lab.model.ApostaSeguroValor;
+import com.samuel.lab.model.Cenario;
+import com.samuel.lab.model.LoteApostas;
+
+/**
+ * Instantâneo binário de todo o estado de um CenarioController: caixa inicial,
+ * taxa, ordem dos cenários e cada cenário com as suas apostas simples e
+ * asseguradas.
+ *
+ * O arquivo começa com um cabeçalho versionado, seguido de um bloco por cenário
+ * e de um diretório com a posição de cada bloco. Os inteiros são gravados com
+ * tamanho variável e cada bloco tem a sua própria tabela de nomes de
+ * apostadores, de modo que cada apostador aparece uma vez por cenário e os
+ * blocos podem ser lidos de forma independente. Na carga, os cenários são
+ * criados na ordem dos seus ids, lendo apenas o início de cada bloco, e depois o
+ * restante dos blocos é lido e as apostas cadastradas em paralelo, um cenário
+ * por tarefa. Os blocos são lidos com leituras posicionais para buffers no heap,
+ * sem mapear o arquivo, de modo que a quantidade de cenários não é limitada pela
+ * quantidade de mapeamentos do processo.
+ *
+ * O instantâneo de cada cenário é feito com o seu monitor; para um instantâneo
+ * coerente de todo o sistema ele deve ser salvo sem operações em andamento.
+ * Quando o controlador tem um diário, as operações ficam suspensas enquanto o
+ * instantâneo é salvo, e o cabeçalho guarda a posição do diário correspondente,
+ * assim o instantâneo pode ser carregado junto com o diário reproduzindo apenas
+ * os registros seguintes.
+ *
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public final class Instantaneo {
+
+	/**
+	 * Identifica um arquivo de instantâneo
+	 */
+	private static final int MAGICO = 0x4C414235;
+
+	/**
+	 * Versão do formato gravada no cabeçalho
+	 */
+	private static final int VERSAO = 2;
+
+	/**
+	 * Versão anterior do formato, sem a posição do diário, que ainda é carregada
+	 */
+	private static final int VERSAO_SEM_DIARIO = 1;
+
+	private static final int ABERTO = 0;
+	private static final int OCORREU = 1;
+	private static final int NAO_OCORREU = 2;
+
+	private static final int SEGURO_VALOR = 1;
+	private static final int SEGURO_TAXA = 2;
+
+	/**
+	 * Tamanho do buffer de escrita
+	 */
+	private static final int TAMANHO_BUFFER = 1 << 20;
+
+	/**
+	 * Quantidade de bytes lidos do início de cada bloco para obter a descrição e o
+	 * bonus do cenário. Um bloco com uma descrição maior é lido inteiro
+	 */
+	private static final int TAMANHO_INICIO_BLOCO = 1 << 12;
+
+	private Instantaneo() {
+	}
+
+	/**
+	 * Método responsável por salvar o estado de um controlador. O instantâneo é
+	 * escrito em um arquivo temporário que depois substitui o destino, assim um
+	 * instantâneo anterior nunca fica pela metade. Caso o controlador tenha um
+	 * diário, as operações ficam suspensas até o instantâneo ser escrito, e o
+	 * diário é sincronizado antes, assim a posição guardada sempre existe no disco
+	 * @param controller : controlador que será salvo
+	 * @param arquivo : caminho do instantâneo
+	 * @throws IOException caso o arquivo não possa ser escrito
+	 */
+	public static void salvar(CenarioController controller, Path arquivo) throws IOException {
+		Diario diario = controller.getDiario();
+		if (diario == null) {
+			salva(controller, arquivo, -1);
+			return;
+		}
+		long posicao = diario.suspender();
+		try {
+			diario.sincronizar();
+			salva(controller, arquivo, posicao);
+		} finally {
+			diario.retomar();
+		}
+	}
+
+	private static void salva(CenarioController controller, Path arquivo, long posicaoDiario) throws IOException {
+		Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+		try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Saida saida = new Saida(canal);
+			saida.inteiroFixo(MAGICO);
+			saida.inteiroFixo(VERSAO);
+			saida.longoFixo(posicaoDiario);
+			saida.inteiroFixo(controller.getCaixaInicial());
+			saida.decimal(controller.getTaxa());
+			saida.texto(controller.getOrdem());
+
+			long[] posicoes = new long[16];
+			int quantidade = 0;
+			for (Cenario cenario : controller.getCenarios()) {
+				if (quantidade + 1 == posicoes.length)
+					posicoes = Arrays.copyOf(posicoes, posicoes.length * 2);
+				posicoes[quantidade++] = saida.posicao();
+				synchronized (cenario) {
+					escreveCenario(saida, cenario);
+				}
+			}
+			posicoes[quantidade] = saida.posicao();
+
+			long diretorio = saida.posicao();
+			saida.inteiroFixo(quantidade);
+			for (int i = 0; i <= quantidade; i++)
+				saida.longoFixo(posicoes[i]);
+			saida.longoFixo(diretorio);
+			saida.inteiroFixo(MAGICO);
+			saida.esvazia();
+			canal.force(true);
+		}
+		Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void escreveCenario(Saida saida, Cenario cenario) throws IOException {
+		saida.texto(cenario.getNome());
+		saida.inteiro(cenario.getBonus());
+		saida.inteiro(!cenario.isEncerrado() ? ABERTO : cenario.isOcorreu() ? OCORREU : NAO_OCORREU);
+
+		ApostaController apostas = cenario.getApostaController();
+		int simples = apostas.getQuantidadeSimples();
+		int asseguradas = apostas.getQuantidadeAsseguradas();
+		TabelaApostadores tabela = TabelaApostadores.getInstancia();
+
+		int[] locais = new int[64];
+		int[] nomes = new int[16];
+		int quantidadeNomes = 0;
+		int[] apostadores = new int[simples + asseguradas];
+		for (int i = 0; i < apostadores.length; i++) {
+			int global = i < simples ? apostas.getIdApostadorSimples(i)
+					: apostas.getApostaAssegurada(i - simples + 1).getIdApostador();
+			if (global >= locais.length)
+				locais = Arrays.copyOf(locais, Math.max(global + 1, locais.length * 2));
+			if (locais[global] == 0) {
+				if (quantidadeNomes == nomes.length)
+					nomes = Arrays.copyOf(nomes, nomes.length * 2);
+				nomes[quantidadeNomes++] = global;
+				locais[global] = quantidadeNomes;
+			}
+			apostadores[i] = locais[global] - 1;
+		}
+		saida.inteiro(quantidadeNomes);
+		for (int i = 0; i < quantidadeNomes; i++)
+			saida.texto(tabela.nome(nomes[i]));
+
+		saida.inteiro(simples);
+		for (int i = 0; i < simples; i++) {
+			saida.inteiro(apostadores[i]);
+			saida.longo(((long) apostas.getValorSimples(i) << 1) | (apostas.isAconteceSimples(i) ? 1 : 0));
+		}
+		saida.inteiro(asseguradas);
+		for (int id = 1; id <= asseguradas; id++) {
+			ApostaAssegurada aposta = apostas.getApostaAssegurada(id);
+			saida.inteiro(apostadores[simples + id - 1]);
+			saida.longo(((long) aposta.getValor() << 1) | (aposta.isAcontece() ? 1 : 0));
+			saida.inteiro(aposta.getCusto());
+			if (aposta instanceof ApostaSeguroTaxa) {
+				saida.inteiro(SEGURO_TAXA);
+				saida.decimal(((ApostaSeguroTaxa) aposta).getTaxa());
+			} else {
+				saida.inteiro(SEGURO_VALOR);
+				saida.inteiro((int) ((ApostaSeguroValor) aposta).getSeguro());
+			}
+		}
+	}
+
+	/**
+	 * Método responsável por reconstruir um controlador a partir de um instantâneo
+	 * e do diário em que ele foi salvo. Apenas os registros do diário seguintes ao
+	 * instantâneo são reproduzidos, e o controlador passa a registrar as suas
+	 * operações no diário
+	 * @param arquivo : caminho do instantâneo
+	 * @param diario : caminho do diário do controlador salvo no instantâneo
+	 * @return o controlador reconstruído, já registrando suas operações no diário
+	 * @throws IOException caso os arquivos não possam ser lidos, o instantâneo não
+	 *             tenha sido salvo com um diário ou o diário não corresponda a ele
+	 */
+	public static CenarioController carregar(Path arquivo, Path diario) throws IOException {
+		long posicao;
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			ByteBuffer cabecalho = le(canal, 0, 16);
+			posicao = cabecalho.getInt(4) == VERSAO ? cabecalho.getLong(8) : -1;
+		}
+		if (posicao < 0)
+			throw new IOException("Instantaneo nao foi salvo com um diario: " + arquivo);
+		return Diario.continuar(diario, carregar(arquivo), posicao);
+	}
+
+	/**
+	 * Método responsável por reconstruir um controlador a partir de um instantâneo
+	 * @param arquivo : caminho do instantâneo
+	 * @return o controlador reconstruído, sem diário
+	 * @throws IOException caso o arquivo não possa ser lido ou não seja um
+	 *             instantâneo válido
+	 */
+	public static CenarioController carregar(Path arquivo) throws IOException {
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			long tamanho = canal.size();
+			ByteBuffer rodape = le(canal, tamanho - 12, 12);
+			long diretorio = rodape.getLong();
+			if (rodape.getInt() != MAGICO || diretorio < 0 || diretorio > tamanho - 12)
+				throw new IOException("Instantaneo invalido: " + arquivo);
+			ByteBuffer cabecalho = le(canal, 0, (int) Math.min(diretorio, 1 << 16));
+			if (cabecalho.getInt() != MAGICO)
+				throw new IOException("Instantaneo invalido: " + arquivo);
+			int versao = cabecalho.getInt();
+			if (versao != VERSAO && versao != VERSAO_SEM_DIARIO)
+				throw new IOException("Versao de instantaneo nao suportada: " + versao);
+			if (versao == VERSAO)
+				cabecalho.getLong();
+			CenarioController controller = new CenarioController(cabecalho.getInt(), cabecalho.getDouble());
+			String ordem = texto(cabecalho);
+
+			ByteBuffer indice = le(canal, diretorio, (int) (tamanho - 12 - diretorio));
+			int quantidade = indice.getInt();
+			long[] posicoes = new long[quantidade + 1];
+			for (int i = 0; i <= quantidade; i++)
+				posicoes[i] = indice.getLong();
+
+			long[] apostas = new long[quantidade];
+			for (int i = 0; i < quantidade; i++) {
+				long tamanhoBloco = posicoes[i + 1] - posicoes[i];
+				if (tamanhoBloco < 0 || tamanhoBloco > Integer.MAX_VALUE || posicoes[i + 1] > diretorio)
+					throw new IOException("Instantaneo invalido: " + arquivo);
+				ByteBuffer inicio = le(canal, posicoes[i], (int) Math.min(tamanhoBloco, TAMANHO_INICIO_BLOCO));
+				String descricao;
+				int bonus;
+				try {
+					descricao = texto(inicio);
+					bonus = inteiro(inicio);
+				} catch (BufferUnderflowException e) {
+					if (inicio.capacity() == tamanhoBloco)
+						throw e;
+					inicio = le(canal, posicoes[i], (int) tamanhoBloco);
+					descricao = texto(inicio);
+					bonus = inteiro(inicio);
+				}
+				apostas[i] = posicoes[i] + inicio.position();
+				int id = bonus > 0 ? controller.cadastrarCenario(descricao, bonus) : controller.cadastrarCenario(descricao);
+				if (id != i + 1)
+					throw new IOException("Instantaneo invalido: cenario " + (i + 1) + " carregado com o id " + id);
+			}
+			try {
+				IntStream.range(0, quantidade).parallel().forEach(i -> {
+					try {
+						carregaApostas(controller, i + 1, le(canal, apostas[i], (int) (posicoes[i + 1] - apostas[i])));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			controller.alterarOrdem(ordem);
+			return controller;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Instantaneo corrompido: " + arquivo, e);
+		}
+	}
+
+	/**
+	 * Método responsável por ler as apostas do bloco de um cenário e cadastrá-las
+	 * como um único lote
+	 * @param controller : controlador que está sendo reconstruído
+	 * @param idCenario : id do cenário
+	 * @param bloco : restante do bloco do cenário, depois da descrição e do bonus
+	 */
+	private static void carregaApostas(CenarioController controller, int idCenario, ByteBuffer bloco) {
+		int estado = inteiro(bloco);
+		String[] nomes = new String[inteiro(bloco)];
+		for (int i = 0; i < nomes.length; i++)
+			nomes[i] = texto(bloco);
+
+		int simples = inteiro(bloco);
+		LoteApostas lote = new LoteApostas(simples);
+		for (int i = 0; i < simples; i++) {
+			String apostador = nomes[inteiro(bloco)];
+			long valor = longo(bloco);
+			lote.adicionar(apostador, (int) (valor >>> 1), previsao(valor));
+		}
+		int asseguradas = inteiro(bloco);
+		for (int i = 0; i < asseguradas; i++) {
+			String apostador = nomes[inteiro(bloco)];
+			long valor = longo(bloco);
+			int custo = inteiro(bloco);
+			if (inteiro(bloco) == SEGURO_TAXA) {
+				lote.adicionarSeguroTaxa(apostador, (int) (valor >>> 1), previsao(valor), bloco.getDouble(), custo);
+			} else {
+				lote.adicionarSeguroValor(apostador, (int) (valor >>> 1), previsao(valor), inteiro(bloco), custo);
+			}
+		}
+		if (lote.tamanho() > 0 && controller.cadastrarApostas(idCenario, lote).getQuantidadeFalhas() > 0)
+			throw new UncheckedIOException(new IOException("Instantaneo invalido: aposta rejeitada no cenario " + idCenario));
+		if (estado != ABERTO)
+			controller.fecharAposta(idCenario, estado == OCORREU);
+	}
+
+	private static String previsao(long valor) {
+		return (valor & 1) == 1 ? "VAI ACONTECER" : "N VAI ACONTECER";
+	}
+
+	private static ByteBuffer le(FileChannel canal, long posicao, int tamanho) throws IOException {
+		if (posicao < 0 || tamanho < 0)
+			throw new IOException("Instantaneo invalido");
+		ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+		while (buffer.hasRemaining()) {
+			if (canal.read(buffer, posicao + buffer.position()) < 0)
+				throw new IOException("Instantaneo truncado");
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static int inteiro(ByteBuffer bytes) {
+		return (int) longo(bytes);
+	}
+
+	private static long longo(ByteBuffer bytes) {
+		long valor = 0;
+		for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+			byte b = bytes.get();
+			valor |= (long) (b & 0x7F) << deslocamento;
+			if (b >= 0)
+				return valor;
+		}
+		throw new IllegalArgumentException("Inteiro mal formado");
+	}
+
+	private static String texto(ByteBuffer bytes) {
+		byte[] texto = new byte[inteiro(bytes)];
+		bytes.get(texto);
+		return new String(texto, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Escrita bufferizada em um canal, com inteiros de tamanho variável
+	 */
+	private static final class Saida {
+
+		private final FileChannel canal;
+
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+
+		/**
+		 * Quantidade de bytes já gravados no canal
+		 */
+		private long gravados;
+
+		private Saida(FileChannel canal) {
+			this.canal = canal;
+		}
+
+		private long posicao() {
+			return this.gravados + this.buffer.position();
+		}
+
+		private void garante(int quantidade) throws IOException {
+			if (this.buffer.remaining() < quantidade)
+				this.esvazia();
+		}
+
+		private void esvazia() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining())
+				this.gravados += this.canal.write(this.buffer);
+			this.buffer.clear();
+		}
+
+		private void inteiroFixo(int valor) throws IOException {
+			this.garante(4);
+			this.buffer.putInt(valor);
+		}
+
+		private void longoFixo(long valor) throws IOException {
+			this.garante(8);
+			this.buffer.putLong(valor);
+		}
+
+		private void decimal(double valor) throws IOException {
+			this.garante(8);
+			this.buffer.putDouble(valor);
+		}
+
+		/**
+		 * Escreve um inteiro não negativo com 7 bits por byte
+		 */
+		private void inteiro(int valor) throws IOException {
+			this.longo(valor & 0xFFFFFFFFL);
+		}
+
+		private void longo(long valor) throws IOException {
+			this.garante(10);
+			while ((valor & ~0x7FL) != 0) {
+				this.buffer.put((byte) ((valor & 0x7F) | 0x80));
+				valor >>>= 7;
+			}
+			this.buffer.put((byte) valor);
+		}
+
+		private void texto(String valor) throws IOException {
+			byte[] texto = valor.getBytes(StandardCharsets.UTF_8);
+			this.inteiro(texto.length);
+			int escritos = 0;
+			while (escritos < texto.length) {
+				if (!this.buffer.hasRemaining())
+					this.esvazia();
+				int parte = Math.min(this.buffer.remaining(), texto.length - escritos);
+				this.buffer.put(texto, escritos, parte);
+				escritos += parte;
+			}
+		}
+	}
+
+}
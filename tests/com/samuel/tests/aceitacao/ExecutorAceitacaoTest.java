@@ -0,0 +1,117 @@
+package com.samuel.tests.aceitacao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.samuel.lab.aceitacao.ExecutorAceitacao;
+import com.samuel.lab.aceitacao.ResultadoAceitacao;
+
+/**
+ * Classe responsável por testar o executor de scripts de aceitação
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ExecutorAceitacaoTest {
+
+	/**
+	 * Scripts temporários criados pelos testes
+	 */
+	private List<Path> temporarios = new ArrayList<>();
+
+	/**
+	 * Apaga os scripts temporários
+	 */
+	@After
+	public void finaliza() throws IOException {
+		for (Path arquivo : this.temporarios) {
+			Files.deleteIfExists(arquivo);
+		}
+	}
+
+	/**
+	 * Cria um script temporário com as linhas informadas
+	 */
+	private Path script(String... linhas) throws IOException {
+		Path arquivo = Files.createTempFile("script", ".txt");
+		this.temporarios.add(arquivo);
+		Files.write(arquivo, Arrays.asList(linhas), StandardCharsets.UTF_8);
+		return arquivo;
+	}
+
+	/**
+	 * Testa se os scripts do laboratório passam quando executados em uma única
+	 * sessão, como no EasyAccept
+	 */
+	@Test
+	public void testScriptsLaboratorio() throws IOException {
+		List<Path> scripts = new ArrayList<>();
+		for (int i = 1; i <= 7; i++) {
+			scripts.add(Paths.get("easy_accept/us" + i + "_test.txt"));
+		}
+		ResultadoAceitacao resultado = ExecutorAceitacao.executar(Collections.singletonList(scripts));
+		assertEquals(Collections.emptyList(), resultado.getFalhas());
+		assertEquals(154, resultado.getInstrucoes());
+		assertEquals(24, resultado.getExecucoes("cadastrarAposta"));
+		assertEquals(9, resultado.getExecucoes("cadastrarCenario"));
+		assertTrue(resultado.getTempo("cadastrarAposta") > 0);
+	}
+
+	/**
+	 * Testa as variáveis e as falhas registradas em cada linha
+	 */
+	@Test
+	public void testFalhas() throws IOException {
+		Path arquivo = this.script("inicializa caixa=1000 taxa=0.1",
+				"id=cadastrarCenario descricao=\"Vai \\\"chover\\\"\"",
+				"expect \"${id} - Vai \\\"chover\\\" - Nao finalizado\" exibirCenario cenario=${id}",
+				"expect 10 getCaixa",
+				"expectError \"Erro qualquer\" getCaixa",
+				"expectError \"Erro no cadastro de cenario: Descricao nao pode ser vazia\" cadastrarCenario descricao=\"\"",
+				"",
+				"# comentario",
+				"comandoInexistente valor=1",
+				"exibirCenario cenario=${inexistente}",
+				"cadastrarAposta cenario=1 apostador=\"Maria\" valor=dez previsao=\"VAI ACONTECER\"",
+				"expect 1 totalDeApostas cenario=1");
+		String nome = arquivo.getFileName().toString();
+		ResultadoAceitacao resultado = ExecutorAceitacao.executarIndependentes(Collections.singletonList(arquivo));
+		assertEquals(Arrays.asList(nome + ":4: Era esperado <10>, mas foi obtido <1000>",
+				nome + ":5: Era esperado o erro <Erro qualquer>, mas o comando retornou <1000>",
+				nome + ":9: Comando desconhecido: comandoInexistente/1",
+				nome + ":10: Variavel nao definida: inexistente",
+				nome + ":11: Erro inesperado: java.lang.NumberFormatException: For input string: \"dez\"",
+				nome + ":12: Era esperado <1>, mas foi obtido <0>"), resultado.getFalhas());
+		assertEquals(10, resultado.getInstrucoes());
+	}
+
+	/**
+	 * Testa que sessões diferentes usam Facades diferentes e que os scripts de uma
+	 * mesma sessão compartilham a Facade
+	 */
+	@Test
+	public void testSessoes() throws IOException {
+		Path primeiro = this.script("inicializa caixa=0 taxa=0.01", "expect 1 cadastrarCenario descricao=\"Primeiro\"");
+		Path segundo = this.script("inicializa caixa=0 taxa=0.01", "expect 1 cadastrarCenario descricao=\"Segundo\"");
+		ResultadoAceitacao independentes = ExecutorAceitacao.executarIndependentes(Arrays.asList(primeiro, segundo, primeiro));
+		assertEquals(Collections.emptyList(), independentes.getFalhas());
+		assertEquals(6, independentes.getInstrucoes());
+
+		Path continuacao = this.script("expect 2 cadastrarCenario descricao=\"Segundo\"");
+		ResultadoAceitacao sessao = ExecutorAceitacao.executar(Collections.singletonList(Arrays.asList(primeiro, continuacao)));
+		assertEquals(Collections.emptyList(), sessao.getFalhas());
+	}
+
+}
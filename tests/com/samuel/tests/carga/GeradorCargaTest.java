@@ -0,0 +1,139 @@
+package com.samuel.tests.carga;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import com.samuel.lab.carga.DistribuicaoZipf;
+import com.samuel.lab.carga.GeradorCarga;
+import com.samuel.lab.carga.Operacao;
+import com.samuel.lab.carga.PerfilCarga;
+import com.samuel.lab.carga.Roteiro;
+import com.samuel.lab.exception.CampoInvalidoException;
+
+/**
+ * Classe responsável por testar a geração de cargas sintéticas
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class GeradorCargaTest {
+
+	/**
+	 * Gera uma representação de todas as operações de um roteiro
+	 */
+	private static String descricao(Roteiro roteiro) {
+		StringBuilder descricao = new StringBuilder();
+		for (int i = 0; i < roteiro.getTamanho(); i++) {
+			descricao.append(roteiro.getOperacao(i)).append(' ').append(roteiro.getCenario(i)).append(' ')
+					.append(roteiro.getApostador(i)).append(' ').append(roteiro.getValor(i)).append(' ')
+					.append(roteiro.getArgumento(i)).append(' ').append(roteiro.getCusto(i)).append(' ')
+					.append(roteiro.isAcontece(i)).append('\n');
+		}
+		return descricao.toString();
+	}
+
+	/**
+	 * Testa se a mesma semente gera o mesmo roteiro e sementes diferentes geram
+	 * roteiros diferentes
+	 */
+	@Test
+	public void testDeterminismo() {
+		PerfilCarga perfil = new PerfilCarga().setOperacoes(5000).setCenariosIniciais(20);
+		String roteiro = descricao(new GeradorCarga(perfil, 42).gerar());
+		assertEquals(roteiro, descricao(new GeradorCarga(perfil, 42).gerar()));
+		GeradorCarga gerador = new GeradorCarga(perfil, 42);
+		gerador.gerar();
+		assertEquals(roteiro, descricao(gerador.gerar()));
+		assertFalse(roteiro.equals(descricao(new GeradorCarga(perfil, 43).gerar())));
+	}
+
+	/**
+	 * Testa se as operações geradas são válidas quando o roteiro é seguido em
+	 * ordem
+	 */
+	@Test
+	public void testOperacoesValidas() {
+		PerfilCarga perfil = new PerfilCarga().setOperacoes(20000).setCenariosIniciais(10).setPeso(Operacao.FECHAR_CENARIO, 5);
+		Roteiro roteiro = new GeradorCarga(perfil, 7).gerar();
+		assertEquals(20010, roteiro.getTamanho());
+		assertEquals(10, roteiro.getPreparacao());
+		int cenarios = 0;
+		Set<Integer> fechados = new HashSet<>();
+		int[] asseguradas = new int[20011];
+		for (int i = 0; i < roteiro.getTamanho(); i++) {
+			Operacao operacao = roteiro.getOperacao(i);
+			int cenario = roteiro.getCenario(i);
+			switch (operacao) {
+			case CADASTRAR_CENARIO:
+			case CADASTRAR_CENARIO_BONUS:
+				assertEquals(++cenarios, cenario);
+				assertEquals(operacao == Operacao.CADASTRAR_CENARIO_BONUS, roteiro.getValor(i) > 0);
+				break;
+			case APOSTAR:
+			case APOSTAR_SEGURO_VALOR:
+			case APOSTAR_SEGURO_TAXA:
+				assertTrue(cenario >= 1 && cenario <= cenarios);
+				assertFalse(fechados.contains(cenario));
+				assertTrue(roteiro.getValor(i) > 0);
+				if (operacao != Operacao.APOSTAR) {
+					assertTrue(roteiro.getArgumento(i) > 0 && roteiro.getCusto(i) > 0);
+					asseguradas[cenario]++;
+				}
+				break;
+			case ALTERAR_SEGURO_VALOR:
+			case ALTERAR_SEGURO_TAXA:
+				assertTrue(roteiro.getArgumento(i) >= 1 && roteiro.getArgumento(i) <= asseguradas[cenario]);
+				break;
+			case FECHAR_CENARIO:
+				assertTrue(cenario >= 1 && cenario <= cenarios);
+				assertTrue(fechados.add(cenario));
+				break;
+			case CONSULTAR_CAIXA:
+				assertTrue(fechados.contains(cenario));
+				break;
+			default:
+				assertTrue(cenario >= 1 && cenario <= cenarios);
+			}
+		}
+		assertFalse(fechados.isEmpty());
+	}
+
+	/**
+	 * Testa um perfil sem nenhuma operação com peso
+	 */
+	@Test(expected = CampoInvalidoException.class)
+	public void testPerfilSemPesos() {
+		PerfilCarga perfil = new PerfilCarga();
+		for (Operacao operacao : Operacao.values()) {
+			perfil.setPeso(operacao, 0);
+		}
+		new GeradorCarga(perfil, 1).gerar();
+	}
+
+	/**
+	 * Testa se a distribuição de Zipf fica no intervalo e concentra as amostras
+	 * nas primeiras posições
+	 */
+	@Test
+	public void testDistribuicaoZipf() {
+		DistribuicaoZipf zipf = new DistribuicaoZipf(1.0);
+		SplittableRandom aleatorio = new SplittableRandom(3);
+		int[] contagens = new int[101];
+		for (int i = 0; i < 100000; i++) {
+			int posicao = zipf.amostra(100, aleatorio);
+			assertTrue(posicao >= 1 && posicao <= 100);
+			contagens[posicao]++;
+		}
+		assertTrue(contagens[1] > contagens[2] && contagens[2] > contagens[10] && contagens[10] > contagens[100]);
+		// com s = 1 e n = 100, a primeira posição recebe 1/H(100), cerca de 19,3%
+		assertEquals(0.193, contagens[1] / 100000.0, 0.01);
+		assertEquals(1, zipf.amostra(1, aleatorio));
+	}
+
+}
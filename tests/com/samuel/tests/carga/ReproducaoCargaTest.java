@@ -0,0 +1,98 @@
+package com.samuel.tests.carga;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.samuel.lab.carga.GeradorCarga;
+import com.samuel.lab.carga.Operacao;
+import com.samuel.lab.carga.PerfilCarga;
+import com.samuel.lab.carga.RelatorioCarga;
+import com.samuel.lab.carga.ReproducaoCarga;
+import com.samuel.lab.carga.Roteiro;
+import com.samuel.lab.exception.CampoInvalidoException;
+import com.samuel.lab.model.Facade;
+
+/**
+ * Classe responsável por testar a reprodução de cargas sintéticas
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ReproducaoCargaTest {
+
+	/**
+	 * Cria uma Facade recém inicializada
+	 */
+	private static Facade sistema() {
+		Facade facade = new Facade();
+		facade.inicializa(0, 0.01);
+		return facade;
+	}
+
+	/**
+	 * Testa se a reprodução em ciclo fechado com uma thread não tem erros e
+	 * chega sempre ao mesmo estado
+	 */
+	@Test
+	public void testCicloFechado() throws InterruptedException {
+		PerfilCarga perfil = new PerfilCarga().setOperacoes(20000).setCenariosIniciais(50);
+		Roteiro roteiro = new GeradorCarga(perfil, 11).gerar();
+		Facade primeiro = sistema();
+		RelatorioCarga relatorio = new ReproducaoCarga(primeiro, roteiro).executarCicloFechado(1, 0);
+		assertEquals(20000, relatorio.getOperacoes());
+		assertEquals(0, relatorio.getErros());
+		int soma = 0;
+		for (Operacao operacao : Operacao.values()) {
+			soma += relatorio.getOperacoes(operacao);
+		}
+		assertEquals(20000, soma);
+		assertTrue(relatorio.getPercentil(50) <= relatorio.getPercentil(99));
+		assertTrue(relatorio.getPercentil(99) <= relatorio.getPercentil(100));
+		assertTrue(relatorio.getVazao() > 0);
+
+		Facade segundo = sistema();
+		new ReproducaoCarga(segundo, new GeradorCarga(perfil, 11).gerar()).executarCicloFechado(1, 0);
+		assertEquals(primeiro.exibirCenarios(), segundo.exibirCenarios());
+		assertEquals(primeiro.getCaixaLong(), segundo.getCaixaLong());
+	}
+
+	/**
+	 * Testa a reprodução em ciclo aberto a uma taxa alvo
+	 */
+	@Test
+	public void testCicloAberto() throws InterruptedException {
+		PerfilCarga perfil = new PerfilCarga().setOperacoes(2000).setCenariosIniciais(20);
+		RelatorioCarga relatorio = new ReproducaoCarga(sistema(), new GeradorCarga(perfil, 5).gerar())
+				.executarCicloAberto(2, 20000);
+		assertEquals(2000, relatorio.getOperacoes());
+		// as 2000 operações são agendadas ao longo de 100ms
+		assertTrue(relatorio.getDuracao() >= 99000000L);
+		assertTrue(relatorio.getVazao() <= 20500);
+	}
+
+	/**
+	 * Testa a reprodução de um roteiro por várias threads, sem taxa alvo
+	 */
+	@Test
+	public void testCicloFechadoConcorrente() throws InterruptedException {
+		PerfilCarga perfil = new PerfilCarga().setOperacoes(20000).setCenariosIniciais(50);
+		Facade facade = sistema();
+		RelatorioCarga relatorio = new ReproducaoCarga(facade, new GeradorCarga(perfil, 13).gerar())
+				.executarCicloFechado(4, 0);
+		assertEquals(20000, relatorio.getOperacoes());
+		assertTrue(relatorio.getErros() < relatorio.getOperacoes() / 100);
+	}
+
+	/**
+	 * Testa que um roteiro não é reproduzido duas vezes no mesmo sistema
+	 */
+	@Test(expected = CampoInvalidoException.class)
+	public void testReproduzirDuasVezes() throws InterruptedException {
+		ReproducaoCarga reproducao = new ReproducaoCarga(sistema(),
+				new GeradorCarga(new PerfilCarga().setOperacoes(10).setCenariosIniciais(1), 1).gerar());
+		reproducao.executarCicloFechado(1, 0);
+		reproducao.executarCicloFechado(1, 0);
+	}
+
+}
@@ -2,12 +2,21 @@ package com.samuel.tests.controller;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import com.samuel.lab.controller.ApostaController;
+import com.samuel.lab.estruturas.RegistrosApostas;
 import com.samuel.lab.exception.ApostaNaoCadastradaException;
 import com.samuel.lab.exception.CampoInvalidoException;
+import com.samuel.lab.model.Aposta;
+import com.samuel.lab.model.DestinoPagamentos;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.ResultadoLote;
 /**
  * Classe responsável por testar o controller de apostas
  * @author Samuel pereira de vasconcelos
@@ -99,6 +108,35 @@ public class ApostaControllerTest {
 		assertEquals(3200,this.apostaController.calculaCaixa(false));
 	}
 
+	/**
+	 * Testa o calculo do caixa quando o cenário ocorre e após a alteração dos seguros
+	 */
+	@Test
+	public void testCalculaCaixaOcorreuAposAlterar() {
+		this.apostaController.cadastrar("Maria", 1000, "N VAI ACONTECER");
+		this.apostaController.cadastrar("Samuel", 2000, "VAI ACONTECER");
+		this.apostaController.cadastrar("Samuel", 100, "N VAI ACONTECER", 0.4, 200);
+		this.apostaController.cadastrar("Samuel", 300, "N VAI ACONTECER", 500, 200);
+		this.apostaController.alterar(1, 50);
+		this.apostaController.alterar(2, 0.5);
+		assertEquals(1400, this.apostaController.calculaCaixa(true));
+		assertEquals(2000, this.apostaController.calculaCaixa(false));
+		assertEquals(140, this.apostaController.calculaCaixaPerdedoras(true, 0.1));
+	}
+
+	/**
+	 * Testa se o caixa recalculado percorrendo as apostas confere com o caixa mantido a cada cadastro
+	 */
+	@Test
+	public void testRecalculaCaixa() {
+		for (int i = 1; i <= 50; i++) {
+			this.apostaController.cadastrar("Apostador " + (i % 7), i * 10, i % 3 == 0 ? "VAI ACONTECER" : "N VAI ACONTECER");
+		}
+		this.apostaController.cadastrar("Samuel", 100, "VAI ACONTECER", 0.4, 200);
+		assertEquals(this.apostaController.calculaCaixa(false), this.apostaController.recalculaCaixa(false));
+		assertEquals(this.apostaController.calculaCaixa(true), this.apostaController.recalculaCaixa(true));
+	}
+
 	/**
 	 * Testa o metodo que recupera o vaor total das apostas
 	 */
@@ -126,6 +164,42 @@ public class ApostaControllerTest {
 		
 	}
 
+	/**
+	 * Testa a escrita de todas as apostas em uma saída
+	 */
+	@Test
+	public void testExibirEmSaida() throws IOException {
+		this.apostaController.cadastrar("Maria", 1000, "VAI ACONTECER");
+		this.apostaController.cadastrar("Samuel", 100, "N VAI ACONTECER", 500, 200);
+		StringWriter saida = new StringWriter();
+		this.apostaController.exibir(saida);
+		assertEquals(this.apostaController.exibir(), saida.toString());
+	}
+
+	/**
+	 * Testa a recuperação das apostas página por página
+	 */
+	@Test
+	public void testGetApostasPaginadas() {
+		this.apostaController.cadastrar("Maria", 1000, "VAI ACONTECER");
+		this.apostaController.cadastrar("Samuel", 100, "N VAI ACONTECER", 500, 200);
+		this.apostaController.cadastrar("Joao", 2000, "N VAI ACONTECER");
+		List<Aposta> pagina = this.apostaController.getApostas(1, 2);
+		assertEquals(2, pagina.size());
+		assertEquals("Joao - R$20,00 - N VAI ACONTECER", pagina.get(0).toString());
+		assertEquals("Samuel - R$1,00 - N VAI ACONTECER - ASSEGURADA (VALOR) - R$ 500,00", pagina.get(1).toString());
+		assertEquals(1, this.apostaController.getApostas(2, 10).size());
+		assertTrue(this.apostaController.getApostas(3, 10).isEmpty());
+	}
+
+	/**
+	 * Testa a recuperação de uma página com início negativo
+	 */
+	@Test(expected = CampoInvalidoException.class)
+	public void testGetApostasInicioNegativo() {
+		this.apostaController.getApostas(-1, 10);
+	}
+
 	/**
 	 * Testa o método que recupera a quantidade de apostas cadastradas
 	 */
@@ -196,6 +270,22 @@ public class ApostaControllerTest {
 		assertEquals(540,this.apostaController.seguroPerdedoras(false));
 	}
 
+	/**
+	 * Testa o calculo do seguro das apostas perdedoras após trocar o tipo de seguro das apostas
+	 */
+	@Test
+	public void testSeguroPerdedorasAposAlterar() {
+		this.apostaController.cadastrar("Samuel", 100, "VAI ACONTECER", 0.4, 200);
+		this.apostaController.cadastrar("Samuel", 100, "VAI ACONTECER", 500, 200);
+		this.apostaController.cadastrar("Samuel", 100, "N VAI ACONTECER", 500, 200);
+		this.apostaController.alterar(1, 30);
+		this.apostaController.alterar(2, 0.5);
+		this.apostaController.alterar(3, 0.2);
+		assertEquals(80, this.apostaController.seguroPerdedoras(false));
+		assertEquals(20, this.apostaController.seguroPerdedoras(true));
+		assertEquals(600, this.apostaController.getCustos());
+	}
+
 	/**
 	 * Testa o método de recuperação dos custos de todas as apostas asseguradas
 	 */
@@ -209,4 +299,113 @@ public class ApostaControllerTest {
 		assertEquals(600,this.apostaController.getCustos());
 	}
 
+	/**
+	 * Testa o cadastro de um lote de apostas com apostas inválidas no meio
+	 */
+	@Test
+	public void testCadastrarLote() {
+		LoteApostas lote = new LoteApostas(2)
+				.adicionar("Maria", 1000, "VAI ACONTECER")
+				.adicionar("", 1000, "VAI ACONTECER")
+				.adicionarSeguroValor("Samuel", 100, "VAI ACONTECER", 500, 200)
+				.adicionarSeguroTaxa("Samuel", 100, "TALVEZ", 0.4, 200)
+				.adicionarSeguroTaxa("Samuel", 100, "N VAI ACONTECER", 0.4, 200)
+				.adicionar("Samuel", 2000, "N VAI ACONTECER")
+				.adicionarSeguroValor("Samuel", 100, "VAI ACONTECER", 500, 0)
+				.adicionarSeguroTaxa("Samuel", 100, "N VAI ACONTECER", 4e-7, 200);
+		ResultadoLote resultado = this.apostaController.cadastrar(lote);
+		assertEquals(4, resultado.getQuantidadeCadastradas());
+		assertEquals(4, resultado.getQuantidadeFalhas());
+		assertEquals("Erro no cadastro de aposta: Apostador nao pode ser vazio ou nulo", resultado.getErro(1));
+		assertEquals("Erro no cadastro de aposta assegurada por taxa: Previsao invalida", resultado.getErro(3));
+		assertEquals("Erro no cadastro de aposta: Custo inválido", resultado.getErro(6));
+		assertEquals("Erro no cadastro de aposta: taxa inválida", resultado.getErro(7));
+		assertEquals(1, resultado.getIdAposta(2));
+		assertEquals(2, resultado.getIdAposta(4));
+		assertEquals(4, this.apostaController.getQuantidade());
+		assertEquals(3200, this.apostaController.getValorTotal());
+		assertEquals(this.apostaController.recalculaCaixa(true), this.apostaController.calculaCaixa(true));
+		assertEquals(this.apostaController.recalculaCaixa(false), this.apostaController.calculaCaixa(false));
+		assertEquals(500, this.apostaController.seguroPerdedoras(false));
+		assertEquals(40, this.apostaController.seguroPerdedoras(true));
+		assertEquals(400, this.apostaController.getCustos());
+		assertEquals(3, this.apostaController.cadastrar("Samuel", 100, "VAI ACONTECER", 500, 200));
+	}
+
+	/**
+	 * Testa se as apostas movidas para fora do heap mantêm a exibição, os totais e
+	 * os ids das apostas asseguradas
+	 */
+	@Test
+	public void testArmazenarForaDoHeap() {
+		this.apostaController.cadastrar("Maria", 1000, "VAI ACONTECER");
+		this.apostaController.cadastrar("Samuel", 100, "N VAI ACONTECER", 500, 200);
+		this.apostaController.cadastrar("Samuel", 100, "VAI ACONTECER", 0.4, 200);
+		String esperado = this.apostaController.exibir();
+		this.apostaController.armazenarForaDoHeap(new RegistrosApostas(), new RegistrosApostas());
+		assertTrue(this.apostaController.isForaDoHeap());
+		assertEquals(esperado, this.apostaController.exibir());
+
+		this.apostaController.cadastrar("João", 300, "N VAI ACONTECER");
+		this.apostaController.cadastrar(new LoteApostas().adicionar("Ana", 50, "VAI ACONTECER")
+				.adicionarSeguroValor("Ana", 70, "N VAI ACONTECER", 10, 5));
+		assertEquals(3, this.apostaController.alterar(3, 0.5));
+		assertEquals(1, this.apostaController.alterar(1, 20));
+		assertEquals(1620, this.apostaController.getValorTotal());
+		assertEquals(3, this.apostaController.getQuantidadeSimples());
+		assertEquals("João - R$3,00 - N VAI ACONTECER", this.apostaController.getApostas(1, 1).get(0).toString());
+		assertEquals(this.apostaController.recalculaCaixa(true), this.apostaController.calculaCaixa(true));
+		assertEquals(this.apostaController.recalculaCaixa(false), this.apostaController.calculaCaixa(false));
+		assertEquals(this.apostaController.recalculaSeguro(true), this.apostaController.seguroPerdedoras(true));
+		assertEquals(this.apostaController.recalculaSeguro(false), this.apostaController.seguroPerdedoras(false));
+		assertEquals(this.apostaController.recalculaCustos(), this.apostaController.getCustos());
+		assertEquals(35.0, this.apostaController.getApostaAssegurada(3).getSeguro(), 0.0);
+	}
+
+	/**
+	 * Testa a distribuição do rateio, com a sobra da divisão indo para a última
+	 * aposta vencedora e o seguro das asseguradas perdedoras, antes e depois de
+	 * mover as apostas para fora do heap
+	 */
+	@Test
+	public void testDistribuir() {
+		this.apostaController.cadastrar("Ana", 100, "VAI ACONTECER");
+		this.apostaController.cadastrar("Bia", 100, "VAI ACONTECER");
+		this.apostaController.cadastrar("Caio", 500, "N VAI ACONTECER");
+		this.apostaController.cadastrar("Davi", 100, "VAI ACONTECER");
+		this.apostaController.cadastrar("Eva", 50, "N VAI ACONTECER", 20, 1);
+		this.apostaController.cadastrar("Fabio", 100, "VAI ACONTECER", 0.5, 1);
+		String esperado = "premio simples 1 Ana 100 25;premio simples 2 Bia 100 25;premio simples 4 Davi 100 25;"
+				+ "seguro 1 Eva 50 20;premio assegurada 2 Fabio 100 26;";
+		StringBuilder pagamentos = new StringBuilder();
+		assertEquals(121, this.apostaController.distribuir(true, 101, new DestinoPagamentos() {
+			@Override
+			public void premio(boolean assegurada, int idAposta, String apostador, int valor, long premio) {
+				pagamentos.append("premio " + (assegurada ? "assegurada " : "simples ") + idAposta + " " + apostador
+						+ " " + valor + " " + premio + ";");
+			}
+
+			@Override
+			public void seguro(int idAposta, String apostador, int valor, long seguro) {
+				pagamentos.append("seguro " + idAposta + " " + apostador + " " + valor + " " + seguro + ";");
+			}
+		}));
+		assertEquals(esperado, pagamentos.toString());
+
+		this.apostaController.armazenarForaDoHeap(new RegistrosApostas(), new RegistrosApostas());
+		long[] soma = new long[1];
+		assertEquals(0, this.apostaController.distribuir(false, 0, new DestinoPagamentos() {
+			@Override
+			public void premio(boolean assegurada, int idAposta, String apostador, int valor, long premio) {
+				soma[0] += premio;
+			}
+
+			@Override
+			public void seguro(int idAposta, String apostador, int valor, long seguro) {
+				soma[0] += seguro;
+			}
+		}) - soma[0]);
+		assertEquals(50, soma[0]);
+	}
+
 }
@@ -1,6 +1,12 @@
 package com.samuel.tests.controller;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -11,6 +17,11 @@ import com.samuel.lab.exception.CenarioJaEncerradoException;
 import com.samuel.lab.exception.CenarioNaoCadastradoException;
 import com.samuel.lab.exception.CenarioNaoEncerradoException;
 import com.samuel.lab.exception.CenarioSemApostasException;
+import com.samuel.lab.model.DestinoPagamentos;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.LoteFechamentos;
+import com.samuel.lab.model.ResultadoFechamentos;
+import com.samuel.lab.model.ResultadoLote;
 
 /**
  * Classe responsável por testar a classe CenarioController 
@@ -342,5 +353,315 @@ public class CenarioControllerTest {
 		assertEquals(100, this.cenarioController.getCaixa());
 	}
 
+	/**
+	 * Testa se o caixa do sistema mantido a cada operação confere com o caixa recalculado
+	 */
+	@Test
+	public void testGetCaixaConfereComRecalculo() {
+		this.cenarioController.cadastrarCenario("Brasil Hexa", 500);
+		this.cenarioController.cadastrarCenario("Palmeiras Sem Mundial");
+		this.cenarioController.cadastrarAposta(1, "Samuel", 2000, "VAI ACONTECER");
+		this.cenarioController.cadastrarAposta(1, "Maria", 3000, "N VAI ACONTECER", 400, 100);
+		this.cenarioController.cadastrarAposta(2, "Samuel", 1000, "VAI ACONTECER", 0.5, 50);
+		this.cenarioController.fecharAposta(1, true);
+		this.cenarioController.alterarSeguro(1, 1, 0.2);
+		this.cenarioController.cadastrarAposta(1, "Joao", 1000, "N VAI ACONTECER");
+		assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+		assertEquals(-450, this.cenarioController.getCaixa());
+	}
+
+	/**
+	 * Testa a exibição dos cenários ordenados enquanto as apostas são cadastradas
+	 */
+	@Test
+	public void testExibirCenarioOrdenado() {
+		this.cenarioController.cadastrarCenario("Palmeiras Sem Mundial");
+		this.cenarioController.cadastrarCenario("Brasil Hexa");
+		this.cenarioController.cadastrarCenario("Corinthians Campeao");
+		this.cenarioController.alterarOrdem("nome");
+		assertEquals("2 - Brasil Hexa - Nao finalizado", this.cenarioController.exibirCenarioOrdenado(1));
+		assertEquals("1 - Palmeiras Sem Mundial - Nao finalizado", this.cenarioController.exibirCenarioOrdenado(3));
+		this.cenarioController.alterarOrdem("apostas");
+		this.cenarioController.cadastrarAposta(3, "Samuel", 100, "VAI ACONTECER");
+		this.cenarioController.cadastrarAposta(2, "Samuel", 100, "VAI ACONTECER", 0.3, 10);
+		this.cenarioController.cadastrarAposta(2, "Samuel", 100, "VAI ACONTECER", 30, 10);
+		assertEquals("2 - Brasil Hexa - Nao finalizado", this.cenarioController.exibirCenarioOrdenado(1));
+		assertEquals("3 - Corinthians Campeao - Nao finalizado", this.cenarioController.exibirCenarioOrdenado(2));
+		assertEquals("1 - Palmeiras Sem Mundial - Nao finalizado", this.cenarioController.exibirCenarioOrdenado(3));
+		assertEquals(2, this.cenarioController.posicaoPorApostas(3));
+		this.cenarioController.alterarOrdem("cadastro");
+		assertEquals("2 - Brasil Hexa - Nao finalizado", this.cenarioController.exibirCenarioOrdenado(2));
+	}
+
+	/**
+	 * Testa o cadastro de apostas feito por várias threads ao mesmo tempo em vários cenários
+	 */
+	@Test
+	public void testCadastrarApostaConcorrente() throws InterruptedException {
+		for (int i = 1; i <= 4; i++) {
+			this.cenarioController.cadastrarCenario("Cenario " + i);
+		}
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int idCenario = t % 4 + 1;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					this.cenarioController.cadastrarAposta(idCenario, "Samuel", 100, "VAI ACONTECER");
+					this.cenarioController.cadastrarAposta(idCenario, "Maria", 100, "N VAI ACONTECER", 50, 10);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		this.cenarioController.fecharAposta(1, true);
+		for (int i = 1; i <= 4; i++) {
+			assertEquals(4000, this.cenarioController.totalDeApostas(i));
+			assertEquals(400000, this.cenarioController.valorTotalDeApostas(i));
+		}
+		assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+		this.cenarioController.alterarOrdem("apostas");
+		assertEquals("1 - Cenario 1 - Finalizado (ocorreu)", this.cenarioController.exibirCenarioOrdenado(1));
+	}
+
+	/**
+	 * Testa o cadastro de cenários feito por várias threads ao mesmo tempo
+	 */
+	@Test
+	public void testCadastrarCenarioConcorrente() throws InterruptedException {
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final boolean comBonus = t % 2 == 0;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 500; i++) {
+					if (comBonus) {
+						this.cenarioController.cadastrarCenario("Cenario com bonus", 10);
+					} else {
+						this.cenarioController.cadastrarCenario("Cenario");
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int id = 1; id <= 4000; id++) {
+			assertEquals(id + " - ", this.cenarioController.exibirCenario(id).substring(0, String.valueOf(id).length() + 3));
+		}
+		assertEquals(100 - 4 * 500 * 10, this.cenarioController.getCaixa());
+		this.cenarioController.alterarOrdem("nome");
+		assertTrue(this.cenarioController.exibirCenarioOrdenado(2000).endsWith(" - Cenario - Nao finalizado"));
+		assertTrue(this.cenarioController.exibirCenarioOrdenado(4000).endsWith(" - Cenario com bonus - Nao finalizado - R$ 0,10"));
+	}
+
+	/**
+	 * Testa o cadastro de um lote de apostas e a atualização do caixa do sistema
+	 */
+	@Test
+	public void testCadastrarApostas() {
+		this.cenarioController.cadastrarCenario("Cenario", 50);
+		this.cenarioController.cadastrarCenario("Outro cenario");
+		LoteApostas lote = new LoteApostas();
+		for (int i = 0; i < 100; i++) {
+			lote.adicionar("Apostador " + i, 100, i % 2 == 0 ? "VAI ACONTECER" : "N VAI ACONTECER");
+		}
+		lote.adicionarSeguroValor("Samuel", 100, "VAI ACONTECER", 50, 30);
+		lote.adicionar("Samuel", -1, "VAI ACONTECER");
+		ResultadoLote resultado = this.cenarioController.cadastrarApostas(1, lote);
+		assertEquals(101, resultado.getQuantidadeCadastradas());
+		assertEquals("Erro no cadastro de aposta: Valor nao pode ser menor ou igual a zero", resultado.getErro(101));
+		assertEquals(1, resultado.getIdAposta(100));
+		assertEquals(101, this.cenarioController.totalDeApostas(1));
+		assertEquals(10100, this.cenarioController.valorTotalDeApostas(1));
+		assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+		this.cenarioController.cadastrarAposta(2, "Maria", 10, "VAI ACONTECER");
+		assertEquals("1 - Cenario - Nao finalizado - R$ 0,50", this.cenarioController.exibirCenarioOrdenado(1));
+		this.cenarioController.alterarOrdem("apostas");
+		assertTrue(this.cenarioController.exibirCenarioOrdenado(1).startsWith("1 - Cenario"));
+	}
+
+	/**
+	 * Testa o cadastro de um lote de apostas em um cenário que não existe
+	 */
+	@Test(expected = CenarioNaoCadastradoException.class)
+	public void testCadastrarApostasCenarioNaoCadastrado() {
+		this.cenarioController.cadastrarApostas(1, new LoteApostas().adicionar("Maria", 10, "VAI ACONTECER"));
+	}
+
+	/**
+	 * Testa um cenário com as apostas em arquivos mapeados em memória, fechado
+	 * depois de receber mais apostas
+	 */
+	@Test
+	public void testArmazenarApostasForaDoHeap() throws IOException {
+		Path diretorio = Files.createTempDirectory("apostas");
+		try {
+			this.cenarioController.cadastrarCenario("Cenario");
+			this.cenarioController.cadastrarAposta(1, "Maria", 1000, "VAI ACONTECER");
+			this.cenarioController.armazenarApostasForaDoHeap(1, diretorio);
+			this.cenarioController.cadastrarAposta(1, "Samuel", 500, "N VAI ACONTECER", 200, 30);
+			this.cenarioController.cadastrarAposta(1, "João", 300, "N VAI ACONTECER");
+			this.cenarioController.armazenarApostasForaDoHeap(1, diretorio);
+			assertEquals(3, this.cenarioController.totalDeApostas(1));
+			assertEquals("Samuel - R$5,00 - N VAI ACONTECER - ASSEGURADA (VALOR) - R$ 200,00",
+					this.cenarioController.getApostas(1, 2, 1).get(0).toString());
+			this.cenarioController.fecharAposta(1, true);
+			assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+			assertEquals(100 + 80 + 30 - 200, this.cenarioController.getCaixa());
+		} finally {
+			try (Stream<Path> arquivos = Files.list(diretorio)) {
+				for (Path arquivo : (Iterable<Path>) arquivos::iterator)
+					Files.delete(arquivo);
+			}
+			Files.delete(diretorio);
+		}
+	}
+
+	/**
+	 * Testa dois controladores guardando no mesmo diretório as apostas de cenários
+	 * com o mesmo id, sem que um sobrescreva os arquivos do outro
+	 */
+	@Test
+	public void testArmazenarApostasForaDoHeapMesmoDiretorio() throws IOException {
+		Path diretorio = Files.createTempDirectory("apostas");
+		try {
+			CenarioController outro = new CenarioController(100, 0.01);
+			this.cenarioController.cadastrarCenario("Cenario");
+			this.cenarioController.cadastrarAposta(1, "Maria", 1000, "VAI ACONTECER");
+			this.cenarioController.armazenarApostasForaDoHeap(1, diretorio);
+			outro.cadastrarCenario("Outro cenario");
+			outro.armazenarApostasForaDoHeap(1, diretorio);
+			outro.cadastrarAposta(1, "João", 300, "N VAI ACONTECER");
+			assertEquals(1000, this.cenarioController.valorTotalDeApostas(1));
+			assertEquals(300, outro.valorTotalDeApostas(1));
+			try (Stream<Path> arquivos = Files.list(diretorio)) {
+				assertEquals(4, arquivos.count());
+			}
+		} finally {
+			try (Stream<Path> arquivos = Files.list(diretorio)) {
+				for (Path arquivo : (Iterable<Path>) arquivos::iterator)
+					Files.delete(arquivo);
+			}
+			Files.delete(diretorio);
+		}
+	}
+
+	/**
+	 * Testa mover para fora do heap as apostas de um cenário que não existe
+	 */
+	@Test(expected = CenarioNaoCadastradoException.class)
+	public void testArmazenarApostasForaDoHeapCenarioNaoCadastrado() {
+		this.cenarioController.armazenarApostasForaDoHeap(1);
+	}
+
+	/**
+	 * Testa o fechamento de vários cenários de uma só vez, comparando com o
+	 * fechamento feito um a um
+	 */
+	@Test
+	public void testFecharApostas() {
+		CenarioController individual = new CenarioController(100, 0.10);
+		LoteFechamentos lote = new LoteFechamentos();
+		for (int c = 1; c <= 200; c++) {
+			for (CenarioController controller : new CenarioController[] { this.cenarioController, individual }) {
+				if (c % 4 == 0) {
+					controller.cadastrarCenario("Cenario " + c, c);
+				} else {
+					controller.cadastrarCenario("Cenario " + c);
+				}
+				controller.cadastrarAposta(c, "Maria", 100 * c, "VAI ACONTECER");
+				controller.cadastrarAposta(c, "João", 50 + c, "N VAI ACONTECER");
+				controller.cadastrarAposta(c, "Samuel", 70, c % 2 == 0 ? "VAI ACONTECER" : "N VAI ACONTECER", 0.5, 3);
+			}
+			lote.adicionar(c, c % 3 == 0);
+		}
+		lote.adicionar(0, true).adicionar(201, true).adicionar(7, false).adicionar(Integer.MAX_VALUE, true)
+				.adicionar(0, false);
+		this.cenarioController.fecharAposta(5, true);
+
+		ResultadoFechamentos resultado = this.cenarioController.fecharApostas(lote);
+		assertEquals(6, resultado.getQuantidadeFalhas());
+		assertEquals("Erro ao fechar aposta: Cenario ja esta fechado", resultado.getErro(4));
+		assertEquals("Erro ao fechar aposta: Cenario invalido", resultado.getErro(200));
+		assertEquals("Erro ao fechar aposta: Cenario nao cadastrado", resultado.getErro(201));
+		assertEquals("Erro ao fechar aposta: Cenario ja esta fechado", resultado.getErro(202));
+		assertEquals("Erro ao fechar aposta: Cenario nao cadastrado", resultado.getErro(203));
+		assertEquals("Erro ao fechar aposta: Cenario invalido", resultado.getErro(204));
+		individual.fecharAposta(5, true);
+		for (int c = 1; c <= 200; c++) {
+			if (c != 5) {
+				individual.fecharAposta(c, c % 3 == 0);
+				assertEquals(individual.getCaixaCenario(c), resultado.getCaixa(c - 1));
+				assertEquals(individual.getTotalRateio(c), resultado.getRateio(c - 1));
+			}
+		}
+		assertEquals(0, resultado.getSeguro(0));
+		assertEquals(35, resultado.getSeguro(1));
+		assertEquals(individual.getCaixa(), this.cenarioController.getCaixa());
+		assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+	}
+
+	/**
+	 * Testa se os prêmios distribuídos somam o total de rateio do cenário
+	 */
+	@Test
+	public void testDistribuirRateio() {
+		this.cenarioController.cadastrarCenario("Cenario", 333);
+		for (int i = 1; i <= 97; i++) {
+			this.cenarioController.cadastrarAposta(1, "Apostador " + i, 7 * i,
+					i % 3 == 0 ? "N VAI ACONTECER" : "VAI ACONTECER");
+		}
+		this.cenarioController.cadastrarAposta(1, "Samuel", 100, "N VAI ACONTECER", 0.3, 10);
+		this.cenarioController.fecharAposta(1, true);
+		long[] totais = new long[2];
+		long pago = this.cenarioController.distribuirRateio(1, new DestinoPagamentos() {
+			@Override
+			public void premio(boolean assegurada, int idAposta, String apostador, int valor, long premio) {
+				totais[0] += premio;
+			}
+
+			@Override
+			public void seguro(int idAposta, String apostador, int valor, long seguro) {
+				totais[1] += seguro;
+			}
+		});
+		assertEquals(this.cenarioController.getTotalRateio(1), totais[0]);
+		assertEquals(30, totais[1]);
+		assertEquals(totais[0] + totais[1], pago);
+	}
+
+	/**
+	 * Testa a distribuição do rateio de um cenário aberto
+	 */
+	@Test(expected = CenarioNaoEncerradoException.class)
+	public void testDistribuirRateioCenarioAberto() {
+		this.cenarioController.cadastrarCenario("Cenario");
+		this.cenarioController.distribuirRateio(1, null);
+	}
+
+	/**
+	 * Testa totais que não cabem em um int
+	 */
+	@Test
+	public void testTotaisAlemDeInt() {
+		this.cenarioController.cadastrarCenario("Final do campeonato");
+		LoteApostas lote = new LoteApostas();
+		for (int i = 0; i < 3; i++) {
+			lote.adicionar("Maria", Integer.MAX_VALUE, "VAI ACONTECER");
+			lote.adicionar("João", Integer.MAX_VALUE, "N VAI ACONTECER");
+		}
+		lote.adicionarSeguroTaxa("Samuel", Integer.MAX_VALUE, "VAI ACONTECER", 2.0, Integer.MAX_VALUE);
+		this.cenarioController.cadastrarApostas(1, lote);
+		assertEquals(7L * Integer.MAX_VALUE, this.cenarioController.valorTotalDeApostas(1));
+		this.cenarioController.fecharAposta(1, false);
+		long perdedoras = 4L * Integer.MAX_VALUE;
+		assertEquals(perdedoras / 10, this.cenarioController.getCaixaCenario(1));
+		assertEquals(perdedoras - perdedoras / 10, this.cenarioController.getTotalRateio(1));
+		long caixa = 100L + Integer.MAX_VALUE + perdedoras / 10 - 2L * Integer.MAX_VALUE;
+		assertEquals(caixa, this.cenarioController.getCaixa());
+		assertEquals(caixa, this.cenarioController.recalcularCaixa());
+	}
 
 }
@@ -0,0 +1,93 @@
+package com.samuel.tests.estruturas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.samuel.lab.estruturas.ArvoreOrdenada;
+
+/**
+ * Classe responsável por testar a árvore ordenada
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ArvoreOrdenadaTest {
+
+	/**
+	 * Árvore utilizada como base para os testes
+	 */
+	private ArvoreOrdenada arvore;
+
+	/**
+	 * Inicializa a árvore base
+	 */
+	@Before
+	public void testArvoreOrdenada() {
+		this.arvore = new ArvoreOrdenada();
+	}
+
+	/**
+	 * Testa a seleção das chaves por posição após inserções fora de ordem
+	 */
+	@Test
+	public void testSelecionar() {
+		for (int i = 100; i > 0; i--) {
+			this.arvore.inserir(i * 10L);
+		}
+		assertEquals(100, this.arvore.tamanho());
+		assertEquals(10L, this.arvore.selecionar(0));
+		assertEquals(510L, this.arvore.selecionar(50));
+		assertEquals(1000L, this.arvore.selecionar(99));
+	}
+
+	/**
+	 * Testa a posição das chaves após remoções
+	 */
+	@Test
+	public void testPosicaoAposRemover() {
+		for (int i = 1; i <= 10; i++) {
+			this.arvore.inserir(i);
+		}
+		assertTrue(this.arvore.remover(3));
+		assertFalse(this.arvore.remover(3));
+		assertEquals(2, this.arvore.posicao(4));
+		assertEquals(8, this.arvore.posicao(10));
+		assertEquals(-1, this.arvore.posicao(3));
+	}
+
+	/**
+	 * Testa uma árvore de ids ordenados pelos nomes que eles identificam
+	 */
+	@Test
+	public void testOrdemInformada() {
+		String[] nomes = { "Carlos", "Ana", "Bruno", "Ana" };
+		ArvoreOrdenada porNome = new ArvoreOrdenada((id1, id2) -> {
+			int comparacao = nomes[(int) id1].compareTo(nomes[(int) id2]);
+			return comparacao != 0 ? comparacao : Long.compare(id1, id2);
+		});
+		for (int id = 0; id < nomes.length; id++) {
+			porNome.inserir(id);
+		}
+		assertEquals(1L, porNome.selecionar(0));
+		assertEquals(3L, porNome.selecionar(1));
+		assertEquals(2L, porNome.selecionar(2));
+		assertEquals(3, porNome.posicao(0));
+		assertTrue(porNome.remover(3));
+		assertEquals(2, porNome.posicao(0));
+	}
+
+	/**
+	 * Testa a seleção de uma posição inexistente
+	 */
+	@Test(expected = NoSuchElementException.class)
+	public void testSelecionarPosicaoInvalida() {
+		this.arvore.inserir(1);
+		this.arvore.selecionar(1);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.samuel.tests.estruturas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.samuel.lab.estruturas.RegistroCenarios;
+import com.samuel.lab.model.Cenario;
+
+/**
+ * Classe responsável por testar o registro de cenários
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class RegistroCenariosTest {
+
+	/**
+	 * Registro utilizado como base para os testes
+	 */
+	private RegistroCenarios registro;
+
+	/**
+	 * Inicializa o registro base com alguns cenários
+	 */
+	@Before
+	public void testRegistroCenarios() {
+		this.registro = new RegistroCenarios();
+		for (int i = 1; i <= 40; i++) {
+			this.registro.adicionar(new Cenario(i, "Cenario " + i));
+		}
+	}
+
+	/**
+	 * Testa a busca de cenários cadastrados e não cadastrados
+	 */
+	@Test
+	public void testGet() {
+		assertEquals(40, this.registro.tamanho());
+		assertEquals(1, this.registro.get(1).getId());
+		assertEquals(40, this.registro.get(40).getId());
+		assertNull(this.registro.get(0));
+		assertNull(this.registro.get(41));
+	}
+
+	/**
+	 * Testa se os cenários são percorridos na ordem dos ids
+	 */
+	@Test
+	public void testIterator() {
+		int id = 1;
+		for (Cenario cenario : this.registro) {
+			assertEquals(id++, cenario.getId());
+		}
+		assertEquals(41, id);
+	}
+
+	/**
+	 * Testa o cadastro de um cenário com id fora de sequência
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdicionarForaDeSequencia() {
+		this.registro.adicionar(new Cenario(50, "Cenario 50"));
+	}
+
+}
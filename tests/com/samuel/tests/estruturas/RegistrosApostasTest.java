@@ -0,0 +1,134 @@
+package com.samuel.tests.estruturas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import com.samuel.lab.estruturas.RegistrosApostas;
+import com.samuel.lab.estruturas.TabelaApostadores;
+import com.samuel.lab.model.ApostaSeguroTaxa;
+import com.samuel.lab.model.TaxaFixa;
+
+/**
+ * Classe responsável por testar os registros de apostas fora do heap
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class RegistrosApostasTest {
+
+	/**
+	 * Preenche os registros com apostas dos três tipos, o bastante para que o
+	 * buffer cresça algumas vezes
+	 */
+	private static void preenche(RegistrosApostas registros) {
+		int apostador = TabelaApostadores.getInstancia().id("Samuel");
+		for (int i = 1; i <= 5000; i++) {
+			if (i % 3 == 0) {
+				registros.adicionarSeguroValor(apostador, i, true, 10, 2);
+			} else if (i % 3 == 1) {
+				registros.adicionarSeguroTaxa(apostador, i, false, TaxaFixa.converter(0.5), 1);
+			} else {
+				registros.adicionar(apostador, i, i % 2 == 0);
+			}
+		}
+	}
+
+	/**
+	 * Verifica os registros preenchidos e os somatórios feitos sobre eles
+	 */
+	private static void verifica(RegistrosApostas registros) {
+		assertEquals(5000, registros.tamanho());
+		long acontece = 0;
+		long naoAcontece = 0;
+		long seguros = 0;
+		for (int i = 1; i <= 5000; i++) {
+			boolean previsao = i % 3 == 0 || (i % 3 == 2 && i % 2 == 0);
+			if (previsao) {
+				acontece += i;
+			} else {
+				naoAcontece += i;
+			}
+			if (i % 3 == 1)
+				seguros += (int) (i * 0.5);
+			assertEquals(i, registros.getValor(i - 1));
+			assertEquals(previsao, registros.isAcontece(i - 1));
+		}
+		assertEquals(acontece, registros.somaValores(true));
+		assertEquals(naoAcontece, registros.somaValores(false));
+		assertEquals(seguros, registros.somaSeguros(false));
+		assertEquals(1666 * 10, registros.somaSeguros(true));
+		assertEquals(1666 * 2 + 1667, registros.somaCustos());
+		assertEquals("Samuel", registros.get(0).getApostador());
+		assertEquals(0.5, ((ApostaSeguroTaxa) registros.get(0)).getTaxa(), 0.0);
+	}
+
+	/**
+	 * Testa os registros em um ByteBuffer direto
+	 */
+	@Test
+	public void testBufferDireto() {
+		RegistrosApostas registros = new RegistrosApostas();
+		preenche(registros);
+		verifica(registros);
+	}
+
+	/**
+	 * Testa os registros em um arquivo mapeado em memória
+	 */
+	@Test
+	public void testArquivoMapeado() throws IOException {
+		Path arquivo = Files.createTempFile("registros", ".bin");
+		try {
+			RegistrosApostas registros = new RegistrosApostas(arquivo);
+			preenche(registros);
+			verifica(registros);
+		} finally {
+			Files.deleteIfExists(arquivo);
+		}
+	}
+
+	/**
+	 * Testa que um arquivo com conteúdo não é reaproveitado nem truncado
+	 */
+	@Test
+	public void testArquivoExistente() throws IOException {
+		Path arquivo = Files.createTempFile("registros", ".bin");
+		try {
+			Files.write(arquivo, new byte[] { 1, 2, 3 });
+			try {
+				new RegistrosApostas(arquivo);
+				fail("Era esperado que o arquivo existente fosse recusado");
+			} catch (UncheckedIOException e) {
+				assertTrue(e.getCause() instanceof FileAlreadyExistsException);
+			}
+			assertEquals(3, Files.size(arquivo));
+		} finally {
+			Files.deleteIfExists(arquivo);
+		}
+	}
+
+	/**
+	 * Testa a troca do seguro de uma aposta assegurada
+	 */
+	@Test
+	public void testAlterarSeguro() {
+		RegistrosApostas registros = new RegistrosApostas();
+		registros.adicionarSeguroValor(TabelaApostadores.getInstancia().id("Maria"), 200, true, 10, 5);
+		registros.alterarSeguroTaxa(0, TaxaFixa.converter(0.25));
+		assertEquals(RegistrosApostas.SEGURO_TAXA, registros.getTipo(0));
+		assertEquals(50.0, registros.getSeguro(0), 0.0);
+		registros.alterarSeguroValor(0, 30);
+		assertEquals(RegistrosApostas.SEGURO_VALOR, registros.getTipo(0));
+		assertEquals(30, registros.somaSeguros(true));
+		assertEquals(5, registros.getCusto(0));
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.samuel.tests.estruturas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import com.samuel.lab.estruturas.TabelaApostadores;
+import com.samuel.lab.model.Aposta;
+
+/**
+ * Classe responsável por testar a tabela de apostadores
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class TabelaApostadoresTest {
+
+	/**
+	 * Testa se um mesmo nome recebe sempre o mesmo id
+	 */
+	@Test
+	public void testId() {
+		TabelaApostadores tabela = TabelaApostadores.getInstancia();
+		int id = tabela.id("Samuel");
+		assertEquals(id, tabela.id(new String("Samuel")));
+		assertNotEquals(id, tabela.id("Maria"));
+		assertEquals("Samuel", tabela.nome(id));
+	}
+
+	/**
+	 * Testa se apostas de um mesmo apostador compartilham o id
+	 */
+	@Test
+	public void testIdApostadorDasApostas() {
+		Aposta aposta1 = new Aposta("Joao", 100, true);
+		Aposta aposta2 = new Aposta(new String("Joao"), 200, false);
+		assertEquals(aposta1.getIdApostador(), aposta2.getIdApostador());
+		assertEquals("Joao", aposta2.getApostador());
+	}
+
+}
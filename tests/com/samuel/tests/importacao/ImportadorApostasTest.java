@@ -0,0 +1,119 @@
+package com.samuel.tests.importacao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.importacao.ImportadorApostas;
+import com.samuel.lab.importacao.ResultadoImportacao;
+import com.samuel.lab.model.Aposta;
+import com.samuel.lab.model.ApostaAssegurada;
+
+/**
+ * Classe responsável por testar a importação de arquivos de apostas
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class ImportadorApostasTest {
+
+	/**
+	 * Controlador que recebe as apostas importadas
+	 */
+	private CenarioController cenarioController;
+
+	/**
+	 * Arquivo de apostas utilizado nos testes
+	 */
+	private Path arquivo;
+
+	/**
+	 * Inicializa o controlador com dois cenários e cria o arquivo
+	 */
+	@Before
+	public void inicializa() throws IOException {
+		this.cenarioController = new CenarioController(100, 0.10);
+		this.cenarioController.cadastrarCenario("Cenario");
+		this.cenarioController.cadastrarCenario("Outro cenario", 50);
+		this.arquivo = Files.createTempFile("apostas", ".txt");
+	}
+
+	/**
+	 * Apaga o arquivo
+	 */
+	@After
+	public void finaliza() throws IOException {
+		Files.deleteIfExists(this.arquivo);
+	}
+
+	/**
+	 * Testa a importação de um arquivo com linhas válidas e inválidas
+	 */
+	@Test
+	public void testImportar() throws IOException {
+		Files.write(this.arquivo, Arrays.asList(
+				"S;1;Maria;1000;VAI ACONTECER",
+				"S;1;;1000;VAI ACONTECER",
+				"",
+				"V;2;João;100;N VAI ACONTECER;500;200",
+				"T;2;Samuel;100;TALVEZ;0.4;200",
+				"T;2;Samuel;100;VAI ACONTECER;0,4;200\r",
+				"S;3;Maria;10;VAI ACONTECER",
+				"S;1;Maria;dez;VAI ACONTECER",
+				"S;1;Maria;-5;N VAI ACONTECER"), StandardCharsets.UTF_8);
+		ResultadoImportacao resultado = new ImportadorApostas(this.cenarioController).importar(this.arquivo);
+		assertEquals(8, resultado.getLinhas());
+		assertEquals(3, resultado.getQuantidadeCadastradas());
+		assertEquals(Arrays.asList(
+				"Linha 2: Erro no cadastro de aposta: Apostador nao pode ser vazio ou nulo",
+				"Linha 5: Erro no cadastro de aposta assegurada por taxa: Previsao invalida",
+				"Linha 7: Erro no cadastro de apostas: Cenario nao cadastrado",
+				"Linha 8: Erro na importacao de apostas: Linha mal formatada",
+				"Linha 9: Erro no cadastro de aposta: Valor nao pode ser menor ou igual a zero"), resultado.getErros());
+		assertEquals(1000, this.cenarioController.valorTotalDeApostas(1));
+		assertEquals(200, this.cenarioController.valorTotalDeApostas(2));
+		List<Aposta> apostas = this.cenarioController.getApostas(2, 0, 2);
+		assertEquals("João", apostas.get(0).getApostador());
+		assertEquals(40.0, ((ApostaAssegurada) apostas.get(1)).getSeguro(), 0.0);
+		assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+	}
+
+	/**
+	 * Testa a importação de um arquivo grande o bastante para ser lido em vários
+	 * trechos, verificando que as apostas de cada cenário mantêm a ordem do arquivo
+	 */
+	@Test
+	public void testImportarVariosTrechos() throws IOException {
+		int linhas = 60000;
+		try (Writer saida = Files.newBufferedWriter(this.arquivo, StandardCharsets.UTF_8)) {
+			for (int i = 1; i <= linhas; i++) {
+				if (i % 2 == 0) {
+					saida.write("V;2;Apostador " + (i % 97) + ";" + i + ";VAI ACONTECER;10;1\n");
+				} else {
+					saida.write("S;1;Apostador " + (i % 97) + ";1;N VAI ACONTECER\n");
+				}
+			}
+		}
+		ResultadoImportacao resultado = new ImportadorApostas(this.cenarioController).importar(this.arquivo);
+		assertEquals(linhas, resultado.getQuantidadeCadastradas());
+		assertEquals(0, resultado.getErros().size());
+		assertEquals(linhas / 2, this.cenarioController.totalDeApostas(1));
+		assertEquals(linhas / 2, this.cenarioController.totalDeApostas(2));
+		List<Aposta> apostas = this.cenarioController.getApostas(2, 0, linhas / 2);
+		for (int i = 0; i < apostas.size(); i++) {
+			assertEquals(2 * (i + 1), apostas.get(i).getValor());
+		}
+		assertEquals(this.cenarioController.recalcularCaixa(), this.cenarioController.getCaixa());
+	}
+
+}
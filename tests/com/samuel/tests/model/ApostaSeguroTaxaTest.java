@@ -68,6 +68,14 @@ public class ApostaSeguroTaxaTest {
 		this.aposta = new ApostaSeguroTaxa("Samuel", 10, false, 0, 100);
 	}
 	
+	/**
+	 * Testa o construtor quando recebe uma taxa positiva que vale 0 em ponto fixo
+	 */
+	@Test(expected = CampoInvalidoException.class)
+	public void testApostaTaxaArredondadaParaZero() {
+		this.aposta = new ApostaSeguroTaxa("Samuel", 10, false, 4e-7, 100);
+	}
+	
 	/**
 	 * Testa o construtor quando recebe uma taxa negativa
 	 */
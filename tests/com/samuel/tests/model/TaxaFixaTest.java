@@ -0,0 +1,48 @@
+package com.samuel.tests.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.samuel.lab.model.TaxaFixa;
+
+/**
+ * Classe responsável por testar a aritmética de taxas em ponto fixo
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class TaxaFixaTest {
+
+	/**
+	 * Testa a conversão de taxas para ponto fixo e de volta
+	 */
+	@Test
+	public void testConverter() {
+		assertEquals(20000, TaxaFixa.converter(0.02));
+		assertEquals(50800000, TaxaFixa.converter(50.80));
+		assertEquals(0.3, TaxaFixa.paraDouble(TaxaFixa.converter(0.3)), 0.0);
+	}
+
+	/**
+	 * Testa a aplicação de taxas que em ponto flutuante ficariam logo abaixo de um
+	 * valor inteiro
+	 */
+	@Test
+	public void testAplicarExato() {
+		assertEquals(28, (int) Math.floor(100 * 0.29));
+		assertEquals(29, TaxaFixa.aplicar(100, TaxaFixa.converter(0.29)));
+		assertEquals(10, TaxaFixa.aplicar(501, TaxaFixa.converter(0.02)));
+		assertEquals(5080, TaxaFixa.aplicar(100, TaxaFixa.converter(50.80)));
+	}
+
+	/**
+	 * Testa a aplicação de uma taxa a um valor cujo produto não cabe em um long
+	 */
+	@Test
+	public void testAplicarSemEstouro() {
+		long valor = Long.MAX_VALUE / 1000;
+		assertEquals(valor * 3 / 2, TaxaFixa.aplicar(valor, TaxaFixa.converter(1.5)));
+		assertEquals(-1, TaxaFixa.aplicar(-1, 1));
+	}
+
+}
@@ -0,0 +1,292 @@
+package com.samuel.tests.persistencia;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.exception.CampoInvalidoException;
+import com.samuel.lab.model.Facade;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.model.LoteFechamentos;
+import com.samuel.lab.model.ResultadoFechamentos;
+import com.samuel.lab.persistencia.Diario;
+
+/**
+ * Classe responsável por testar o diário de operações
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class DiarioTest {
+
+	/**
+	 * Arquivo do diário utilizado nos testes
+	 */
+	private Path arquivo;
+
+	/**
+	 * Cria um caminho para o diário, sem criar o arquivo
+	 */
+	@Before
+	public void inicializa() throws IOException {
+		this.arquivo = Files.createTempFile("diario", ".bin");
+		Files.delete(this.arquivo);
+	}
+
+	/**
+	 * Apaga o diário
+	 */
+	@After
+	public void finaliza() throws IOException {
+		Files.deleteIfExists(this.arquivo);
+	}
+
+	/**
+	 * Gera uma representação de todo o estado visível do controlador
+	 */
+	private static String estado(CenarioController controller) {
+		StringBuilder estado = new StringBuilder();
+		estado.append(controller.getCaixa()).append('\n').append(controller.exibirCenarios()).append('\n');
+		for (int id = 1; id <= controller.exibirCenarios().split(System.lineSeparator()).length; id++) {
+			estado.append(controller.exibirCenarioOrdenado(id)).append('\n');
+			if (controller.totalDeApostas(id) > 0)
+				estado.append(controller.exibirApostas(id)).append('\n');
+		}
+		return estado.toString();
+	}
+
+	/**
+	 * Testa se a reprodução do diário reconstrói o mesmo estado
+	 */
+	@Test
+	public void testReproduzir() throws IOException {
+		CenarioController controller = Diario.abrir(this.arquivo, 1000, 0.1);
+		controller.cadastrarCenario("Vai chover");
+		controller.cadastrarCenario("Vai fazer sol", 200);
+		controller.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+		controller.cadastrarAposta(1, "Samuel", 300, "N VAI ACONTECER", 100, 20);
+		controller.cadastrarAposta(2, "João", 300, "N VAI ACONTECER", 0.5, 30);
+		controller.cadastrarApostas(2, new LoteApostas().adicionar("Ana", 50, "VAI ACONTECER")
+				.adicionarSeguroValor("Ana", 70, "VAI ACONTECER", 10, 5).adicionar("", 10, "VAI ACONTECER"));
+		controller.alterarSeguro(1, 1, 0.2);
+		controller.alterarSeguro(2, 2, 40);
+		try {
+			controller.cadastrarAposta(1, "Maria", -1, "VAI ACONTECER");
+		} catch (CampoInvalidoException e) {
+		}
+		controller.fecharAposta(1, true);
+		controller.alterarOrdem("apostas");
+		String esperado = estado(controller);
+		controller.getDiario().close();
+
+		CenarioController reproduzido = Diario.abrir(this.arquivo, 0, 0);
+		assertEquals(esperado, estado(reproduzido));
+		assertEquals(3, reproduzido.cadastrarCenario("Novo cenario"));
+		esperado = estado(reproduzido);
+		reproduzido.getDiario().close();
+		assertEquals(esperado, estado(Diario.abrir(this.arquivo, 0, 0)));
+	}
+
+	/**
+	 * Testa se um registro incompleto no fim do diário é descartado
+	 */
+	@Test
+	public void testRegistroIncompleto() throws IOException {
+		CenarioController controller = Diario.abrir(this.arquivo, 1000, 0.1);
+		controller.cadastrarCenario("Vai chover");
+		controller.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+		String esperado = estado(controller);
+		controller.getDiario().close();
+		Files.write(this.arquivo, new byte[] { 0, 0, 0, 40, 3, 0, 0 }, StandardOpenOption.APPEND);
+
+		CenarioController reproduzido = Diario.abrir(this.arquivo, 0, 0);
+		assertEquals(esperado, estado(reproduzido));
+		reproduzido.cadastrarAposta(1, "Samuel", 100, "N VAI ACONTECER");
+		esperado = estado(reproduzido);
+		reproduzido.getDiario().close();
+		assertEquals(esperado, estado(Diario.abrir(this.arquivo, 0, 0)));
+	}
+
+	/**
+	 * Testa se um fim de arquivo só com zeros é descartado como um registro
+	 * incompleto
+	 */
+	@Test
+	public void testFimZerado() throws IOException {
+		CenarioController controller = Diario.abrir(this.arquivo, 1000, 0.1);
+		controller.cadastrarCenario("Vai chover");
+		String esperado = estado(controller);
+		controller.getDiario().close();
+		Files.write(this.arquivo, new byte[100], StandardOpenOption.APPEND);
+
+		CenarioController reproduzido = Diario.abrir(this.arquivo, 0, 0);
+		assertEquals(esperado, estado(reproduzido));
+		reproduzido.getDiario().close();
+	}
+
+	/**
+	 * Testa que um registro corrompido seguido de registros válidos impede a
+	 * abertura do diário sem descartar nada
+	 */
+	@Test
+	public void testRegistroCorrompido() throws IOException {
+		CenarioController controller = Diario.abrir(this.arquivo, 1000, 0.1);
+		controller.cadastrarCenario("Vai chover");
+		controller.getDiario().sincronizar();
+		long inicioAposta = Files.size(this.arquivo);
+		controller.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+		controller.cadastrarAposta(1, "Samuel", 100, "N VAI ACONTECER");
+		controller.getDiario().close();
+		byte[] conteudo = Files.readAllBytes(this.arquivo);
+		conteudo[(int) inicioAposta + 6] ^= 1;
+		Files.write(this.arquivo, conteudo);
+
+		try {
+			Diario.abrir(this.arquivo, 0, 0);
+			fail();
+		} catch (IOException e) {
+			assertEquals("Diario corrompido na posicao " + inicioAposta, e.getMessage());
+		}
+		assertArrayEquals(conteudo, Files.readAllBytes(this.arquivo));
+	}
+
+	/**
+	 * Testa a reprodução de operações feitas por várias threads, com sincronização
+	 * a cada poucos registros
+	 */
+	@Test
+	public void testReproduzirConcorrente() throws IOException, InterruptedException {
+		CenarioController controller = Diario.abrir(this.arquivo, 0, 0.05, 8, 1);
+		controller.cadastrarCenario("Cenario compartilhado");
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int thread = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 50; i++) {
+					int id = controller.cadastrarCenario("Cenario " + thread + " " + i);
+					controller.cadastrarAposta(id, "Apostador " + thread, 10 + i, "VAI ACONTECER");
+					controller.cadastrarAposta(1, "Apostador " + thread, 100, "VAI ACONTECER", 10 + i, 1);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		controller.getDiario().sincronizar();
+		assertEquals(200, controller.totalDeApostas(1));
+		String esperado = estado(controller);
+		controller.getDiario().close();
+		assertEquals(esperado, estado(Diario.abrir(this.arquivo, 0, 0)));
+	}
+
+	/**
+	 * Testa que as operações feitas com o diário fechado falham sem alterar o
+	 * estado, nem reservar ids de cenários
+	 */
+	@Test
+	public void testDiarioFechado() throws IOException {
+		CenarioController controller = Diario.abrir(this.arquivo, 1000, 0.1);
+		controller.cadastrarCenario("Vai chover");
+		controller.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+		String esperado = estado(controller);
+		controller.getDiario().close();
+		try {
+			controller.cadastrarAposta(1, "Samuel", 100, "N VAI ACONTECER");
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			controller.cadastrarCenario("Vai fazer sol");
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			controller.fecharAposta(1, true);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		ResultadoFechamentos resultado = controller.fecharApostas(new LoteFechamentos().adicionar(1, true)
+				.adicionar(1, false));
+		assertEquals("Erro ao fechar aposta: Diario fechado", resultado.getErro(0));
+		assertEquals("Erro ao fechar aposta: Diario fechado", resultado.getErro(1));
+		assertEquals(esperado, estado(controller));
+
+		controller.setDiario(null);
+		assertEquals(2, controller.cadastrarCenario("Vai fazer sol"));
+		assertEquals(esperado, estado(Diario.abrir(this.arquivo, 0, 0)));
+	}
+
+	/**
+	 * Testa que a Facade continua funcionando depois de fechar o diário, sem
+	 * registrar as operações seguintes
+	 */
+	@Test
+	public void testFecharDiarioFacade() throws IOException {
+		Facade facade = new Facade();
+		facade.inicializa(1000, 0.1, this.arquivo.toString());
+		facade.cadastrarCenario("Vai chover");
+		facade.sincronizarDiario();
+		facade.fecharDiario();
+		assertEquals(2, facade.cadastrarCenario("Vai fazer sol"));
+		facade.sincronizarDiario();
+		facade.fecharDiario();
+
+		Facade reaberta = new Facade();
+		reaberta.inicializa(0, 0, this.arquivo.toString());
+		assertEquals("1 - Vai chover - Nao finalizado", reaberta.exibirCenarios());
+		reaberta.fecharDiario();
+	}
+
+	/**
+	 * Testa que reinicializar a Facade no mesmo diário fecha o anterior e
+	 * continua a partir dos seus registros
+	 */
+	@Test
+	public void testReinicializarMesmoDiario() throws IOException {
+		Facade facade = new Facade();
+		facade.inicializa(1000, 0.1, this.arquivo.toString());
+		facade.cadastrarCenario("Vai chover");
+		facade.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+		facade.inicializa(0, 0, this.arquivo.toString());
+		assertEquals(2, facade.cadastrarCenario("Vai fazer sol"));
+		facade.cadastrarAposta(2, "Samuel", 300, "N VAI ACONTECER");
+		String esperado = estado(facade.exibirCenarios(), facade.getCaixa(), facade.totalDeApostas(1),
+				facade.totalDeApostas(2));
+		facade.inicializa(0, 0);
+		assertEquals("", facade.exibirCenarios());
+
+		CenarioController reproduzido = Diario.abrir(this.arquivo, 0, 0);
+		assertEquals(esperado, estado(reproduzido.exibirCenarios(), reproduzido.getCaixa(),
+				reproduzido.totalDeApostas(1), reproduzido.totalDeApostas(2)));
+		reproduzido.getDiario().close();
+	}
+
+	/**
+	 * Gera uma representação dos cenários, do caixa e das quantidades de apostas
+	 */
+	private static String estado(String cenarios, long caixa, int apostas1, int apostas2) {
+		return cenarios + "\n" + caixa + "\n" + apostas1 + "\n" + apostas2;
+	}
+
+	/**
+	 * Testa que um controlador criado sem diário não registra operações
+	 */
+	@Test
+	public void testSemDiario() {
+		CenarioController controller = new CenarioController(0, 0);
+		controller.cadastrarCenario("Vai chover");
+		assertNull(controller.getDiario());
+	}
+
+}
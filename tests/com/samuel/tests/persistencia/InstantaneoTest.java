@@ -0,0 +1,212 @@
+package com.samuel.tests.persistencia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.samuel.lab.controller.CenarioController;
+import com.samuel.lab.model.LoteApostas;
+import com.samuel.lab.persistencia.Diario;
+import com.samuel.lab.persistencia.Instantaneo;
+
+/**
+ * Classe responsável por testar o instantâneo do estado do sistema
+ * @author Samuel Pereira de Vasconcelos
+ *
+ */
+public class InstantaneoTest {
+
+	/**
+	 * Arquivo do instantâneo utilizado nos testes
+	 */
+	private Path arquivo;
+
+	/**
+	 * Cria um caminho para o instantâneo, sem criar o arquivo
+	 */
+	@Before
+	public void inicializa() throws IOException {
+		this.arquivo = Files.createTempFile("instantaneo", ".bin");
+		Files.delete(this.arquivo);
+	}
+
+	/**
+	 * Apaga o instantâneo
+	 */
+	@After
+	public void finaliza() throws IOException {
+		Files.deleteIfExists(this.arquivo);
+	}
+
+	/**
+	 * Gera uma representação de todo o estado visível do controlador
+	 */
+	private static String estado(CenarioController controller) {
+		StringBuilder estado = new StringBuilder();
+		estado.append(controller.getCaixa()).append('\n').append(controller.exibirCenarios()).append('\n');
+		for (int id = 1; id <= controller.exibirCenarios().split(System.lineSeparator()).length; id++) {
+			estado.append(controller.exibirCenarioOrdenado(id)).append('\n');
+			if (controller.totalDeApostas(id) > 0)
+				estado.append(controller.exibirApostas(id)).append('\n')
+						.append(controller.valorTotalDeApostas(id)).append('\n');
+		}
+		return estado.toString();
+	}
+
+	/**
+	 * Testa se a carga do instantâneo reconstrói o mesmo estado
+	 */
+	@Test
+	public void testSalvarCarregar() throws IOException {
+		CenarioController controller = new CenarioController(1000, 0.1);
+		controller.cadastrarCenario("Vai chover");
+		controller.cadastrarCenario("Vai fazer sol", 200);
+		controller.cadastrarCenario("Sem apostas");
+		controller.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+		controller.cadastrarAposta(1, "Samuel", 300, "N VAI ACONTECER", 100, 20);
+		controller.cadastrarAposta(2, "João", 300, "N VAI ACONTECER", 0.5, 30);
+		controller.cadastrarApostas(2, new LoteApostas().adicionar("Ana", 50, "VAI ACONTECER")
+				.adicionarSeguroValor("Ana", 70, "VAI ACONTECER", 10, 5).adicionar("João", 10, "N VAI ACONTECER"));
+		controller.alterarSeguro(1, 1, 0.2);
+		controller.alterarSeguro(2, 2, 40);
+		controller.fecharAposta(1, true);
+		controller.alterarOrdem("apostas");
+		String esperado = estado(controller);
+
+		Instantaneo.salvar(controller, this.arquivo);
+		CenarioController carregado = Instantaneo.carregar(this.arquivo);
+		assertEquals(esperado, estado(carregado));
+		assertEquals(controller.recalcularCaixa(), carregado.recalcularCaixa());
+		assertEquals(4, carregado.cadastrarCenario("Novo cenario"));
+	}
+
+	/**
+	 * Testa o instantâneo de um cenário com muitas apostas, maior que o buffer de
+	 * escrita
+	 */
+	@Test
+	public void testMuitasApostas() throws IOException {
+		CenarioController controller = new CenarioController(0, 0.05);
+		for (int c = 0; c < 4; c++) {
+			int id = controller.cadastrarCenario("Cenario " + c);
+			LoteApostas lote = new LoteApostas();
+			for (int i = 1; i <= 100000; i++) {
+				lote.adicionar("Apostador " + (i % 1000), i, i % 3 == 0 ? "VAI ACONTECER" : "N VAI ACONTECER");
+			}
+			controller.cadastrarApostas(id, lote);
+		}
+		controller.fecharAposta(2, false);
+		String esperado = estado(controller);
+
+		Instantaneo.salvar(controller, this.arquivo);
+		Instantaneo.salvar(controller, this.arquivo);
+		assertEquals(esperado, estado(Instantaneo.carregar(this.arquivo)));
+	}
+
+	/**
+	 * Testa um instantâneo com mais cenários que a quantidade de mapeamentos de
+	 * memória permitida por processo no Linux
+	 */
+	@Test
+	public void testMuitosCenarios() throws IOException {
+		CenarioController controller = new CenarioController(0, 0.05);
+		for (int c = 1; c <= 70000; c++) {
+			String descricao = c % 100 == 0 ? "Cenario " + c : "C";
+			if (c % 7 == 0) {
+				controller.cadastrarCenario(descricao, c);
+			} else {
+				controller.cadastrarCenario(descricao);
+			}
+		}
+		controller.cadastrarAposta(1, "Maria", 100, "VAI ACONTECER");
+		controller.cadastrarAposta(70000, "Samuel", 200, "N VAI ACONTECER", 0.5, 10);
+		controller.fecharAposta(69999, true);
+
+		Instantaneo.salvar(controller, this.arquivo);
+		CenarioController carregado = Instantaneo.carregar(this.arquivo);
+		for (int id : new int[] { 1, 7, 69999, 70000 }) {
+			assertEquals(controller.exibirCenario(id), carregado.exibirCenario(id));
+			assertEquals(controller.totalDeApostas(id), carregado.totalDeApostas(id));
+		}
+		assertEquals(controller.getCaixa(), carregado.getCaixa());
+		assertEquals(70001, carregado.cadastrarCenario("Novo cenario"));
+	}
+
+	/**
+	 * Testa a carga de um instantâneo junto com o diário em que ele foi salvo,
+	 * reproduzindo apenas as operações feitas depois dele
+	 */
+	@Test
+	public void testCarregarComDiario() throws IOException {
+		Path diario = Files.createTempFile("diario", ".bin");
+		Files.delete(diario);
+		try {
+			CenarioController controller = Diario.abrir(diario, 1000, 0.1);
+			controller.cadastrarCenario("Vai chover");
+			controller.cadastrarAposta(1, "Maria", 500, "VAI ACONTECER");
+			Instantaneo.salvar(controller, this.arquivo);
+			controller.cadastrarCenario("Vai fazer sol", 200);
+			controller.cadastrarAposta(1, "Samuel", 300, "N VAI ACONTECER", 100, 20);
+			controller.fecharAposta(2, false);
+			String esperado = estado(controller);
+			controller.getDiario().close();
+
+			CenarioController carregado = Instantaneo.carregar(this.arquivo, diario);
+			assertEquals(esperado, estado(carregado));
+			carregado.cadastrarAposta(1, "Ana", 50, "VAI ACONTECER");
+			esperado = estado(carregado);
+			carregado.getDiario().close();
+			CenarioController reproduzido = Diario.abrir(diario, 0, 0);
+			assertEquals(esperado, estado(reproduzido));
+			reproduzido.getDiario().close();
+		} finally {
+			Files.deleteIfExists(diario);
+		}
+	}
+
+	/**
+	 * Testa que um instantâneo salvo sem diário não é carregado com um diário
+	 */
+	@Test
+	public void testCarregarSemDiario() throws IOException {
+		CenarioController controller = new CenarioController(0, 0.05);
+		controller.cadastrarCenario("Vai chover");
+		Instantaneo.salvar(controller, this.arquivo);
+		try {
+			Instantaneo.carregar(this.arquivo, this.arquivo);
+			fail("Era esperado uma exceção ao carregar um instantâneo sem diário");
+		} catch (IOException e) {
+			assertEquals("Instantaneo nao foi salvo com um diario: " + this.arquivo, e.getMessage());
+		}
+	}
+
+	/**
+	 * Testa a carga de um instantâneo com uma versão desconhecida
+	 */
+	@Test
+	public void testVersaoNaoSuportada() throws IOException {
+		CenarioController controller = new CenarioController(0, 0.05);
+		controller.cadastrarCenario("Vai chover");
+		Instantaneo.salvar(controller, this.arquivo);
+		try (FileChannel canal = FileChannel.open(this.arquivo, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(4).putInt(0, 99), 4);
+		}
+		try {
+			Instantaneo.carregar(this.arquivo);
+			fail("Era esperado uma exceção ao carregar uma versão desconhecida");
+		} catch (IOException e) {
+			assertEquals("Versao de instantaneo nao suportada: 99", e.getMessage());
+		}
+	}
+
+}